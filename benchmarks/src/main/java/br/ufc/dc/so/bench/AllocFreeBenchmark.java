@@ -0,0 +1,135 @@
+package br.ufc.dc.so.bench;
+
+import br.ufc.dc.so.FitAlgorithm;
+import br.ufc.dc.so.MemoryManager;
+import br.ufc.dc.so.Result;
+import br.ufc.dc.so.SizeDistribution;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de vazão do MemoryManager em regime estacionário.
+ *
+ * A memória é pré-populada com 'liveBlocks' blocos ocupando cerca de metade
+ * do espaço. Cada operação libera um bloco vivo sorteado e aloca outro no
+ * lugar, mantendo o número de blocos vivos constante. Tamanhos e vítimas são
+ * sorteados no setup, para que o gerador aleatório não entre na medição.
+ *
+ * Parâmetros:
+ * - algorithm: FitAlgorithm usado nas alocações
+ * - memorySize: Tamanho da memória simulada em bytes
+ * - liveBlocks: Número de blocos vivos mantidos durante a medição
+ * - distribution: Distribuição dos tamanhos, de 8 bytes até
+ *   memorySize / (2 * liveBlocks)
+ *
+ * Para medir também a taxa de alocação, rode com o profiler de GC:
+ * java -jar benchmarks/target/benchmarks.jar -prof gc
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AllocFreeBenchmark {
+    private static final int SAMPLES = 1 << 16;
+    private static final int MASK = SAMPLES - 1;
+
+    @Param({"FIRST_FIT", "BEST_FIT", "WORST_FIT", "NEXT_FIT", "BUDDY", "TLSF"})
+    public FitAlgorithm algorithm;
+
+    @Param({"4194304", "67108864"})
+    public int memorySize;
+
+    @Param({"1000", "10000"})
+    public int liveBlocks;
+
+    @Param({"UNIFORM", "EXPONENTIAL", "BIMODAL", "POWER_LAW"})
+    public SizeDistribution distribution;
+
+    private MemoryManager manager;
+    private int[] liveIds;
+    private int[] sizes;
+    private int[] victims;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        int maxSize = Math.max(16, memorySize / (2 * liveBlocks));
+
+        sizes = new int[SAMPLES];
+        victims = new int[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            sizes[i] = distribution.sample(random, 8, maxSize);
+            victims[i] = random.nextInt(liveBlocks);
+        }
+
+        manager = new MemoryManager();
+        manager.init(memorySize);
+        liveIds = new int[liveBlocks];
+        for (int i = 0; i < liveBlocks; i++) {
+            liveIds[i] = Result.id(manager.alloc(sizes[i & MASK], algorithm));
+        }
+        cursor = 0;
+    }
+
+    /**
+     * Libera um bloco vivo pelo ID e aloca outro no lugar.
+     */
+    @Benchmark
+    public int allocFreeId() {
+        int slot = victims[cursor & MASK];
+        int size = sizes[cursor & MASK];
+        cursor++;
+
+        manager.freeId(liveIds[slot]);
+        liveIds[slot] = Result.id(manager.alloc(size, algorithm));
+        return liveIds[slot];
+    }
+
+    /**
+     * Libera um bloco vivo pelo endereço e aloca outro no lugar.
+     */
+    @Benchmark
+    public int allocFreeAddr() {
+        int slot = victims[cursor & MASK];
+        int size = sizes[cursor & MASK];
+        cursor++;
+
+        manager.freeAddr(manager.addressOf(liveIds[slot]));
+        liveIds[slot] = Result.id(manager.alloc(size, algorithm));
+        return liveIds[slot];
+    }
+
+    /**
+     * Padrão com muita coalescência: aloca três blocos e libera as pontas
+     * antes do meio, de modo que a última liberação funde o bloco com os
+     * vizinhos dos dois lados quando os três são adjacentes.
+     */
+    @Benchmark
+    public long coalesceHeavy() {
+        int size = sizes[cursor & MASK];
+        cursor++;
+
+        int first = Result.id(manager.alloc(size, algorithm));
+        int middle = Result.id(manager.alloc(size, algorithm));
+        int last = Result.id(manager.alloc(size, algorithm));
+        manager.freeId(first);
+        manager.freeId(last);
+        return manager.freeId(middle);
+    }
+}
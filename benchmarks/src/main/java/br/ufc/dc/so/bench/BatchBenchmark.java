@@ -0,0 +1,105 @@
+package br.ufc.dc.so.bench;
+
+import br.ufc.dc.so.FitAlgorithm;
+import br.ufc.dc.so.MemoryManager;
+import br.ufc.dc.so.Result;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara alocar e liberar um grupo de objetos um a um (alloc/freeId) com
+ * a API de lotes (allocBatch/freeBatch), em uma memória já fragmentada por
+ * blocos vivos. Cada operação aloca o grupo inteiro e o libera em seguida,
+ * como um pool por requisição.
+ *
+ * Parâmetros:
+ * - groupSize: Número de objetos do grupo
+ * - algorithm: FitAlgorithm usado nas alocações
+ * - liveBlocks: Número de blocos vivos (com buracos entre eles)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BatchBenchmark {
+    private static final int MEMORY_SIZE = 1 << 26;
+    private static final int MAX_OBJECT = 256;
+
+    @Param({"16", "64"})
+    public int groupSize;
+
+    @Param({"FIRST_FIT", "BEST_FIT"})
+    public FitAlgorithm algorithm;
+
+    @Param({"1000", "10000"})
+    public int liveBlocks;
+
+    private MemoryManager manager;
+    private int[] sizes;
+    private int[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        sizes = new int[groupSize];
+        for (int i = 0; i < groupSize; i++) {
+            sizes[i] = 8 + random.nextInt(MAX_OBJECT - 8);
+        }
+        ids = new int[groupSize];
+
+        // Aloca o dobro de blocos e libera um sim, outro não, deixando
+        // buracos pequenos demais para a maioria dos grupos
+        manager = new MemoryManager();
+        manager.init(MEMORY_SIZE);
+        for (int i = 0; i < 2 * liveBlocks; i++) {
+            long result = manager.alloc(8 + random.nextInt(MAX_OBJECT - 8), FitAlgorithm.FIRST_FIT);
+            if (i % 2 == 1) {
+                manager.freeId(Result.id(result));
+            }
+        }
+    }
+
+    /**
+     * Aloca e libera o grupo com uma chamada por objeto.
+     */
+    @Benchmark
+    public int perObject() {
+        for (int i = 0; i < groupSize; i++) {
+            ids[i] = Result.id(manager.alloc(sizes[i], algorithm));
+        }
+        int freed = 0;
+        for (int i = 0; i < groupSize; i++) {
+            if (Result.isOk(manager.freeId(ids[i]))) {
+                freed++;
+            }
+        }
+        return freed;
+    }
+
+    /**
+     * Aloca e libera o grupo com allocBatch e freeBatch.
+     */
+    @Benchmark
+    public int batch() {
+        long[] allocated = manager.allocBatch(sizes, algorithm);
+        for (int i = 0; i < groupSize; i++) {
+            ids[i] = Result.id(allocated[i]);
+        }
+        return manager.freeBatch(ids);
+    }
+}
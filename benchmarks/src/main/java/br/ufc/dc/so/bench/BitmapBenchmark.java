@@ -0,0 +1,95 @@
+package br.ufc.dc.so.bench;
+
+import br.ufc.dc.so.FitAlgorithm;
+import br.ufc.dc.so.MemoryManager;
+import br.ufc.dc.so.Result;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara o modo bitmap com a lista de blocos em uma carga densa de pedidos
+ * pequenos (de 1 a 4 unidades), no mesmo regime estacionário do
+ * AllocFreeBenchmark: cada operação libera um bloco vivo sorteado e aloca
+ * outro no lugar.
+ *
+ * Parâmetros:
+ * - bitmapUnit: Unidade do modo bitmap em bytes (0 = lista de blocos)
+ * - algorithm: FitAlgorithm usado nas alocações
+ * - liveBlocks: Número de blocos vivos, ocupando cerca de 3/4 da memória
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BitmapBenchmark {
+    private static final int SAMPLES = 1 << 16;
+    private static final int MASK = SAMPLES - 1;
+    private static final int UNIT = 16;
+
+    @Param({"0", "16"})
+    public int bitmapUnit;
+
+    @Param({"FIRST_FIT", "BEST_FIT"})
+    public FitAlgorithm algorithm;
+
+    @Param({"10000", "100000"})
+    public int liveBlocks;
+
+    private MemoryManager manager;
+    private int[] liveIds;
+    private int[] sizes;
+    private int[] victims;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        sizes = new int[SAMPLES];
+        victims = new int[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            sizes[i] = 1 + random.nextInt(4 * UNIT);
+            victims[i] = random.nextInt(liveBlocks);
+        }
+
+        // Média de 2,5 unidades por bloco: a memória fica cerca de 3/4 ocupada
+        manager = new MemoryManager();
+        manager.init((long) liveBlocks * 10 / 3 * UNIT);
+        if (bitmapUnit > 0) {
+            manager.enableBitmap(bitmapUnit);
+        }
+        liveIds = new int[liveBlocks];
+        for (int i = 0; i < liveBlocks; i++) {
+            liveIds[i] = Result.id(manager.alloc(sizes[i & MASK], algorithm));
+        }
+        cursor = 0;
+    }
+
+    /**
+     * Libera um bloco vivo pelo ID e aloca outro no lugar.
+     */
+    @Benchmark
+    public int allocFreeId() {
+        int slot = victims[cursor & MASK];
+        int size = sizes[cursor & MASK];
+        cursor++;
+
+        manager.freeId(liveIds[slot]);
+        liveIds[slot] = Result.id(manager.alloc(size, algorithm));
+        return liveIds[slot];
+    }
+}
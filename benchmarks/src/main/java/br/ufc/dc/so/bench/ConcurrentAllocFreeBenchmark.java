@@ -0,0 +1,110 @@
+package br.ufc.dc.so.bench;
+
+import br.ufc.dc.so.ConcurrentMemoryManager;
+import br.ufc.dc.so.FitAlgorithm;
+import br.ufc.dc.so.Result;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Vazão do ConcurrentMemoryManager com várias threads.
+ *
+ * O gerenciador é criado com uma arena por thread do JMH. Cada thread mantém
+ * RING blocos vivos; a cada operação libera o bloco mais antigo e aloca outro.
+ * Com probabilidade 'remoteFreePercent', o bloco liberado é trocado antes por
+ * um deixado por outra thread em uma caixa de correio compartilhada, de modo
+ * que a liberação passa pela fila remota da arena dona.
+ *
+ * Para medir a escalabilidade, varie o número de threads:
+ * java -jar benchmarks/target/benchmarks.jar ConcurrentAllocFreeBenchmark -t 1
+ * java -jar benchmarks/target/benchmarks.jar ConcurrentAllocFreeBenchmark -t 32
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConcurrentAllocFreeBenchmark {
+    private static final int SAMPLES = 1 << 14;
+    private static final int MASK = SAMPLES - 1;
+    private static final int RING = 256;
+    private static final int MAILBOX = 1024;
+
+    @Param({"FIRST_FIT", "BEST_FIT", "TLSF"})
+    public FitAlgorithm algorithm;
+
+    @Param({"268435456"})
+    public long memorySize;
+
+    @Param({"0", "25"})
+    public int remoteFreePercent;
+
+    private ConcurrentMemoryManager manager;
+    private AtomicIntegerArray mailbox;
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkParams params) {
+        manager = new ConcurrentMemoryManager(memorySize, params.getThreads());
+        mailbox = new AtomicIntegerArray(MAILBOX);
+    }
+
+    /**
+     * Blocos vivos e sorteios de cada thread.
+     */
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private final int[] ring = new int[RING];
+        private final int[] sizes = new int[SAMPLES];
+        private final int[] rolls = new int[SAMPLES];
+        private final int[] boxes = new int[SAMPLES];
+        private int cursor;
+
+        @Setup(Level.Trial)
+        public void setUp(ThreadParams params) {
+            SplittableRandom random = new SplittableRandom(params.getThreadIndex());
+            for (int i = 0; i < SAMPLES; i++) {
+                sizes[i] = random.nextInt(8, 257);
+                rolls[i] = random.nextInt(100);
+                boxes[i] = random.nextInt(MAILBOX);
+            }
+        }
+    }
+
+    /**
+     * Libera o bloco mais antigo da thread (ou o de outra thread, trocado pela
+     * caixa de correio) e aloca um novo no lugar.
+     */
+    @Benchmark
+    public int allocFree(ThreadState state) {
+        int i = state.cursor & MASK;
+        int slot = state.cursor & (RING - 1);
+        state.cursor++;
+
+        int victim = state.ring[slot];
+        if (state.rolls[i] < remoteFreePercent) {
+            victim = mailbox.getAndSet(state.boxes[i], victim);
+        }
+        if (victim > 0) {
+            manager.freeId(victim);
+        }
+        state.ring[slot] = Result.id(manager.alloc(state.sizes[i], algorithm));
+        return state.ring[slot];
+    }
+}
@@ -0,0 +1,154 @@
+package br.ufc.dc.so.bench;
+
+import br.ufc.dc.so.ConcurrentMemoryManager;
+import br.ufc.dc.so.FitAlgorithm;
+import br.ufc.dc.so.MemoryStats;
+import br.ufc.dc.so.Result;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Teste de estresse multi-thread do ConcurrentMemoryManager.
+ *
+ * Cada thread faz operações aleatórias de alocação e liberação (por ID e por
+ * endereço) com todos os FitAlgorithm, e repassa parte dos seus blocos para
+ * outras threads por uma fila compartilhada, para exercitar as liberações
+ * remotas. A execução é dividida em fases; ao fim de cada fase todas as
+ * threads param em uma barreira e as invariantes são verificadas
+ * (checkInvariants). Parte dos blocos liberados é liberada de novo: cada
+ * uma dessas liberações duplas deve ser rejeitada, na hora ou quando a
+ * arena dona esvazia o anel de liberações remotas. No final, todos os
+ * blocos são liberados e a memória deve voltar a ter apenas um bloco livre
+ * por arena.
+ *
+ * Uso: java -cp benchmarks/target/benchmarks.jar br.ufc.dc.so.bench.ConcurrentStressTest
+ *      [threads] [operações-por-thread] [tamanho-da-memória]
+ */
+public class ConcurrentStressTest {
+    private static final int PHASES = 10;
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        long operations = args.length > 1 ? Long.parseLong(args[1]) : 200_000;
+        long memorySize = args.length > 2 ? Long.parseLong(args[2]) : 64L << 20;
+
+        ConcurrentMemoryManager manager = new ConcurrentMemoryManager(memorySize, threads);
+        ConcurrentLinkedQueue<Integer> handoff = new ConcurrentLinkedQueue<>();
+        AtomicLong errors = new AtomicLong();
+        AtomicLong checks = new AtomicLong();
+        AtomicLong doubleFrees = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+        CyclicBarrier barrier = new CyclicBarrier(threads, () -> {
+            manager.checkInvariants();
+            checks.incrementAndGet();
+        });
+        long maxSize = Math.max(16, memorySize / threads / 2048);
+
+        Thread[] workers = new Thread[threads];
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            long seed = t;
+            workers[t] = new Thread(() -> {
+                try {
+                    run(manager, handoff, barrier, errors, doubleFrees, rejected, seed, operations, maxSize);
+                } catch (RuntimeException | InterruptedException | BrokenBarrierException e) {
+                    errors.incrementAndGet();
+                    e.printStackTrace();
+                    barrier.reset();
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        // Libera o que ficou na fila e verifica que a memória voltou ao estado inicial
+        Integer id;
+        while ((id = handoff.poll()) != null) {
+            if (!Result.isOk(manager.freeId(id))) {
+                errors.incrementAndGet();
+            }
+        }
+        manager.checkInvariants();
+        // Cada liberação dupla é rejeitada na hora ou quando a arena dona esvazia o anel
+        if (rejected.get() + manager.getRejectedFrees() != doubleFrees.get()) {
+            System.out.println("Liberações duplas: " + doubleFrees.get() + ", rejeitadas: " +
+                               (rejected.get() + manager.getRejectedFrees()));
+            errors.incrementAndGet();
+        }
+        MemoryStats stats = manager.snapshot();
+        if (stats.getUsedBytes() != 0 || stats.getHoles() != threads) {
+            System.out.println("Memória não voltou ao estado inicial: " + stats.getUsedBytes() +
+                               " bytes ocupados, " + stats.getHoles() + " buracos");
+            errors.incrementAndGet();
+        }
+
+        System.out.printf("%d threads, %d operações em %.3f s (%.0f ops/s), %d verificações de invariantes%n",
+            threads, threads * operations, elapsed / 1e9, threads * operations / (elapsed / 1e9), checks.get());
+        if (errors.get() > 0) {
+            System.out.println("FALHOU: " + errors.get() + " erro(s)");
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+
+    private static void run(ConcurrentMemoryManager manager, ConcurrentLinkedQueue<Integer> handoff,
+                            CyclicBarrier barrier, AtomicLong errors, AtomicLong doubleFrees,
+                            AtomicLong rejected, long seed, long operations, long maxSize) throws InterruptedException, BrokenBarrierException {
+        SplittableRandom random = new SplittableRandom(seed);
+        FitAlgorithm[] algorithms = FitAlgorithm.values();
+        int[] live = new int[1024];
+        int count = 0;
+        long perPhase = Math.max(1, operations / PHASES);
+
+        for (long op = 1; op <= operations; op++) {
+            int roll = random.nextInt(100);
+            if (count == 0 || (roll < 50 && count < live.length)) {
+                long result = manager.alloc(1 + random.nextLong(maxSize), algorithms[random.nextInt(algorithms.length)]);
+                if (Result.isOk(result)) {
+                    live[count++] = Result.id(result);
+                }
+            } else if (roll < 60) {
+                // Repassa um bloco próprio e libera um de outra thread
+                int index = random.nextInt(count);
+                handoff.add(live[index]);
+                live[index] = live[--count];
+                Integer foreign = handoff.poll();
+                if (foreign != null && !Result.isOk(manager.freeId(foreign))) {
+                    errors.incrementAndGet();
+                }
+            } else {
+                int index = random.nextInt(count);
+                int id = live[index];
+                live[index] = live[--count];
+                long freed = roll < 80
+                    ? manager.freeId(id)
+                    : manager.freeAddr(manager.addressOf(id));
+                if (!Result.isOk(freed)) {
+                    errors.incrementAndGet();
+                }
+                // Liberar de novo deve ser rejeitado (na hora ou no esvaziamento do anel)
+                doubleFrees.incrementAndGet();
+                if (!Result.isOk(manager.freeId(id))) {
+                    rejected.incrementAndGet();
+                }
+            }
+
+            if (op % perPhase == 0 && op / perPhase <= PHASES) {
+                barrier.await();
+            }
+        }
+
+        for (int i = 0; i < count; i++) {
+            if (!Result.isOk(manager.freeId(live[i]))) {
+                errors.incrementAndGet();
+            }
+        }
+    }
+}
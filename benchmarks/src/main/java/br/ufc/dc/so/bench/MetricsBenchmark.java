@@ -0,0 +1,94 @@
+package br.ufc.dc.so.bench;
+
+import br.ufc.dc.so.FitAlgorithm;
+import br.ufc.dc.so.MemoryManager;
+import br.ufc.dc.so.Result;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede o custo da instrumentação (MemoryManager.enableMetrics) no mesmo
+ * regime estacionário do AllocFreeBenchmark: cada operação libera um bloco
+ * vivo sorteado e aloca outro no lugar.
+ *
+ * Parâmetros:
+ * - metrics: true para medir com os histogramas ligados
+ * - algorithm: FitAlgorithm usado nas alocações
+ * - liveBlocks: Número de blocos vivos, ocupando cerca de metade da memória
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MetricsBenchmark {
+    private static final int SAMPLES = 1 << 16;
+    private static final int MASK = SAMPLES - 1;
+    private static final int MEMORY_SIZE = 1 << 26;
+
+    @Param({"false", "true"})
+    public boolean metrics;
+
+    @Param({"FIRST_FIT", "TLSF"})
+    public FitAlgorithm algorithm;
+
+    @Param({"1000", "10000"})
+    public int liveBlocks;
+
+    private MemoryManager manager;
+    private int[] liveIds;
+    private int[] sizes;
+    private int[] victims;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        int maxSize = MEMORY_SIZE / liveBlocks;
+        sizes = new int[SAMPLES];
+        victims = new int[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            sizes[i] = 8 + random.nextInt(maxSize - 8);
+            victims[i] = random.nextInt(liveBlocks);
+        }
+
+        manager = new MemoryManager();
+        if (metrics) {
+            manager.enableMetrics();
+        }
+        manager.init(MEMORY_SIZE);
+        liveIds = new int[liveBlocks];
+        for (int i = 0; i < liveBlocks; i++) {
+            liveIds[i] = Result.id(manager.alloc(sizes[i & MASK], algorithm));
+        }
+        cursor = 0;
+    }
+
+    /**
+     * Libera um bloco vivo pelo ID e aloca outro no lugar.
+     */
+    @Benchmark
+    public int allocFreeId() {
+        int slot = victims[cursor & MASK];
+        int size = sizes[cursor & MASK];
+        cursor++;
+
+        manager.freeId(liveIds[slot]);
+        liveIds[slot] = Result.id(manager.alloc(size, algorithm));
+        return liveIds[slot];
+    }
+}
@@ -0,0 +1,105 @@
+package br.ufc.dc.so.bench;
+
+import br.ufc.dc.so.FitAlgorithm;
+import br.ufc.dc.so.MemoryManager;
+import br.ufc.dc.so.Result;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara uma carga com escopo de requisição (alocar vários blocos e
+ * descartá-los juntos) na lista principal, com um alloc e um freeId por
+ * bloco, e em uma região, com allocIn por bloco e um único resetRegion.
+ * A memória começa fragmentada por blocos vivos.
+ *
+ * Parâmetros:
+ * - requestBlocks: Número de blocos alocados por requisição
+ * - algorithm: FitAlgorithm usado na lista principal
+ * - liveBlocks: Número de blocos vivos (com buracos entre eles)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RegionBenchmark {
+    private static final int MEMORY_SIZE = 1 << 26;
+    private static final int MAX_OBJECT = 256;
+    private static final String REGION = "req";
+
+    @Param({"16", "256"})
+    public int requestBlocks;
+
+    @Param({"FIRST_FIT", "TLSF"})
+    public FitAlgorithm algorithm;
+
+    @Param({"10000"})
+    public int liveBlocks;
+
+    private MemoryManager manager;
+    private int[] sizes;
+    private int[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        sizes = new int[requestBlocks];
+        for (int i = 0; i < requestBlocks; i++) {
+            sizes[i] = 8 + random.nextInt(MAX_OBJECT - 8);
+        }
+        ids = new int[requestBlocks];
+
+        // Aloca o dobro de blocos e libera um sim, outro não
+        manager = new MemoryManager();
+        manager.init(MEMORY_SIZE);
+        for (int i = 0; i < 2 * liveBlocks; i++) {
+            long result = manager.alloc(8 + random.nextInt(MAX_OBJECT - 8), FitAlgorithm.FIRST_FIT);
+            if (i % 2 == 1) {
+                manager.freeId(Result.id(result));
+            }
+        }
+        manager.createRegion(REGION, (long) requestBlocks * MAX_OBJECT, algorithm);
+    }
+
+    /**
+     * Aloca os blocos da requisição na lista principal e libera um a um.
+     */
+    @Benchmark
+    public int freeList() {
+        for (int i = 0; i < requestBlocks; i++) {
+            ids[i] = Result.id(manager.alloc(sizes[i], algorithm));
+        }
+        int freed = 0;
+        for (int i = 0; i < requestBlocks; i++) {
+            if (Result.isOk(manager.freeId(ids[i]))) {
+                freed++;
+            }
+        }
+        return freed;
+    }
+
+    /**
+     * Aloca os blocos da requisição na região e a reinicia.
+     */
+    @Benchmark
+    public int region() {
+        for (int i = 0; i < requestBlocks; i++) {
+            ids[i] = Result.id(manager.allocIn(REGION, sizes[i]));
+        }
+        return manager.resetRegion(REGION);
+    }
+}
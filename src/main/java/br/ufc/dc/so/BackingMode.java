@@ -0,0 +1,60 @@
+package br.ufc.dc.so;
+
+/**
+ * Enum que representa onde a memória física simulada é armazenada.
+ *
+ * - NONE: Sem memória física; o mapa de ocupação vem apenas dos blocos (padrão)
+ * - HEAP: byte[] no heap da JVM (até ~2 GB)
+ * - OFF_HEAP: Buffers diretos fora do heap, com endereços de 64 bits
+ * - SPARSE: Páginas de 64 KB materializadas apenas quando tocadas
+ */
+public enum BackingMode {
+    NONE("none"),
+    HEAP("heap"),
+    OFF_HEAP("offheap"),
+    SPARSE("sparse");
+
+    private final String cliName;
+
+    BackingMode(String cliName) {
+        this.cliName = cliName;
+    }
+
+    public String getCliName() {
+        return cliName;
+    }
+
+    /**
+     * Cria a memória física com o tamanho especificado.
+     *
+     * @param size Tamanho em bytes
+     * @return Memória física zerada, ou null no modo NONE
+     */
+    public BackingStore create(long size) {
+        switch (this) {
+            case NONE:
+                return null;
+            case OFF_HEAP:
+                return new OffHeapBackingStore(size);
+            case SPARSE:
+                return new SparseBackingStore(size);
+            default:
+                return new HeapBackingStore(size);
+        }
+    }
+
+
+    /**
+     * Converte o nome curto usado na CLI (ex.: "offheap") no modo.
+     *
+     * @return Modo correspondente, ou null se o nome for inválido
+     */
+    public static BackingMode fromCliName(String name) {
+        for (BackingMode mode : values()) {
+            if (mode.cliName.equalsIgnoreCase(name)) {
+                return mode;
+            }
+        }
+        return null;
+    }
+}
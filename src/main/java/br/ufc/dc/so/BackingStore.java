@@ -0,0 +1,65 @@
+package br.ufc.dc.so;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Interface da memória física simulada (um byte por endereço).
+ *
+ * Cada byte guarda o último byte do ID do bloco que o ocupa (0 para livre).
+ * As implementações escrevem e copiam intervalos inteiros de uma vez (fill e
+ * copy), em vez de um laço por byte no MemoryManager. read e write trocam
+ * intervalos com um ByteBuffer (usados por save e load).
+ */
+public interface BackingStore {
+
+    /**
+     * @return Tamanho da memória em bytes
+     */
+    long size();
+
+    /**
+     * Lê o byte de um endereço.
+     *
+     * @param address Endereço entre 0 e size() - 1
+     * @return Valor do byte
+     */
+    byte get(long address);
+
+    /**
+     * Preenche o intervalo [address, address + length) com 'value'.
+     *
+     * @param address Endereço inicial
+     * @param length Número de bytes
+     * @param value Valor a ser escrito
+     */
+    void fill(long address, long length, byte value);
+
+    /**
+     * Copia o intervalo [from, from + length) para [to, to + length). Os
+     * intervalos podem se sobrepor: o resultado é o mesmo de copiar antes
+     * para um buffer temporário (como memmove).
+     *
+     * @param from Endereço de origem
+     * @param to Endereço de destino
+     * @param length Número de bytes
+     */
+    void copy(long from, long to, long length);
+
+    /**
+     * Copia o intervalo [address, address + target.remaining()) para 'target',
+     * avançando a posição do buffer.
+     *
+     * @param address Endereço inicial
+     * @param target Buffer de destino
+     */
+    void read(long address, ByteBuffer target);
+
+    /**
+     * Escreve os bytes restantes de 'source' a partir de 'address', avançando
+     * a posição do buffer.
+     *
+     * @param address Endereço inicial
+     * @param source Buffer de origem
+     */
+    void write(long address, ByteBuffer source);
+}
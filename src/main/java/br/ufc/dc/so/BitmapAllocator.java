@@ -0,0 +1,469 @@
+package br.ufc.dc.so;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Motor de alocação por bitmap (modo bitmap do MemoryManager): a memória é
+ * dividida em unidades de tamanho fixo e cada unidade ocupa um bit.
+ *
+ * Estrutura de dados utilizada:
+ * - long[] used: Um bit por unidade (1 = ocupada); os bits após a última
+ *   unidade ficam sempre em 1, então as buscas param sozinhas no fim
+ * - BlockTable: Uma entrada por alocação (ID, endereço, tamanho reservado e
+ *   tamanho pedido), encadeada em ordem de endereço; não há entradas para os
+ *   buracos, que ficam apenas no bitmap
+ * - BlockTree (por endereço): Alocações por endereço inicial (freeaddr, dono de
+ *   um endereço e show)
+ * - IdIndex: Alocações por ID (freeid)
+ *
+ * Decisões de implementação:
+ * - As buscas percorrem o bitmap 64 unidades por vez: palavras cheias (ou
+ *   vazias) são puladas com uma comparação, e a primeira unidade livre (ou
+ *   ocupada) de uma palavra sai de Long.numberOfTrailingZeros. O custo de
+ *   pular um trecho é proporcional às palavras do trecho, e não às unidades
+ * - Alocar e liberar marcam e limpam o intervalo com máscaras: uma escrita
+ *   por palavra, sem split nem coalescência
+ * - FIRST_FIT, NEXT_FIT, BEST_FIT e WORST_FIT percorrem os trechos livres do
+ *   bitmap; TLSF e BUDDY não têm estrutura própria aqui e usam a busca
+ *   FIRST_FIT
+ * - O número de buracos e o maior trecho livre são calculados varrendo o
+ *   bitmap (O(unidades / 64))
+ * - O número de unidades é limitado pelo tamanho máximo de um long[]
+ *   (cerca de 2^37 unidades)
+ */
+class BitmapAllocator {
+    private static final int NIL = BlockTable.NIL;
+
+    private final long unitSize;
+    private final long units;
+    private final long[] used;
+    private final BlockTable allocations;
+    private BlockTree byAddress;
+    private final IdIndex byId;
+    private long usedUnits;
+    private long nextFitCursor;
+
+    /**
+     * @param totalSize Tamanho da memória em bytes (múltiplo de unitSize)
+     * @param unitSize Tamanho da unidade em bytes
+     * @throws IllegalArgumentException Se a unidade não for positiva, se o
+     *         tamanho não for múltiplo dela ou se houver unidades demais
+     */
+    BitmapAllocator(long totalSize, int unitSize) {
+        if (unitSize <= 0) {
+            throw new IllegalArgumentException("Tamanho da unidade deve ser maior que 0.");
+        }
+        if (totalSize % unitSize != 0) {
+            throw new IllegalArgumentException("Tamanho da memória (" + totalSize +
+                                               ") deve ser múltiplo da unidade do bitmap (" + unitSize + ").");
+        }
+        long words = (totalSize / unitSize + 63) / 64;
+        if (words > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Unidades demais para o bitmap; use uma unidade maior.");
+        }
+        this.unitSize = unitSize;
+        this.units = totalSize / unitSize;
+        this.used = new long[(int) words];
+        this.allocations = new BlockTable(16);
+        this.byAddress = new BlockTree(allocations, BlockTree.BY_ADDRESS);
+        this.byId = new IdIndex();
+        markPadding();
+    }
+
+    long getUnitSize() {
+        return unitSize;
+    }
+
+    /**
+     * @return Número total de unidades
+     */
+    long getUnits() {
+        return units;
+    }
+
+    /**
+     * @return Unidades ocupadas
+     */
+    long getUsedUnits() {
+        return usedUnits;
+    }
+
+    /**
+     * @return Número de alocações vivas
+     */
+    int liveAllocations() {
+        return byId.size();
+    }
+
+    /**
+     * @return Unidades necessárias para 'size' bytes
+     */
+    long unitsFor(long size) {
+        return (size - 1) / unitSize + 1;
+    }
+
+    /**
+     * Procura um trecho livre de 'count' unidades. Com NEXT_FIT, a busca
+     * recomeça logo após o último trecho encontrado por NEXT_FIT (o trecho
+     * devolvido deve ser alocado em seguida).
+     *
+     * @return Primeira unidade do trecho, ou -1 se não houver
+     */
+    long find(long count, FitAlgorithm algorithm) {
+        switch (algorithm) {
+            case NEXT_FIT: {
+                long first = firstFit(count, nextFitCursor);
+                if (first < 0 && nextFitCursor > 0) {
+                    first = firstFit(count, 0);
+                }
+                if (first >= 0) {
+                    nextFitCursor = first + count < units ? first + count : 0;
+                }
+                return first;
+            }
+
+            case BEST_FIT:
+            case WORST_FIT: {
+                // Menor (ou maior) trecho que comporta o pedido; empate fica com o menor endereço
+                boolean best = algorithm == FitAlgorithm.BEST_FIT;
+                long chosen = -1;
+                long chosenLength = 0;
+                for (long start = nextFree(0); start < units; ) {
+                    long end = nextUsed(start);
+                    long length = end - start;
+                    if (length >= count && (chosen < 0 || (best ? length < chosenLength : length > chosenLength))) {
+                        chosen = start;
+                        chosenLength = length;
+                        if (best && length == count) {
+                            break;
+                        }
+                    }
+                    start = nextFree(end);
+                }
+                return chosen;
+            }
+
+            default:
+                return firstFit(count, 0);
+        }
+    }
+
+    private long firstFit(long count, long from) {
+        for (long start = nextFree(from); start < units; ) {
+            long end = nextUsed(start);
+            if (end - start >= count) {
+                return start;
+            }
+            start = nextFree(end);
+        }
+        return -1;
+    }
+
+    /**
+     * Marca 'count' unidades a partir de 'first' (livres, vindas de find) e
+     * registra a alocação.
+     *
+     * @return Entrada da alocação
+     */
+    int allocate(long first, long count, int id, long requestedSize) {
+        setRange(first, count, true);
+        usedUnits += count;
+
+        long start = first * unitSize;
+        int entry = allocations.create(id, start, count * unitSize, requestedSize, false);
+        allocations.linkAfter(byAddress.floor(start, 0), entry);
+        byAddress.insert(entry);
+        byId.put(id, entry);
+        return entry;
+    }
+
+    /**
+     * Limpa as unidades da alocação e a remove dos índices.
+     */
+    void release(int entry) {
+        long count = allocations.getSize(entry) / unitSize;
+        setRange(allocations.getStartAddress(entry) / unitSize, count, false);
+        usedUnits -= count;
+
+        byAddress.remove(entry);
+        byId.remove(allocations.getId(entry));
+        allocations.unlink(entry);
+        allocations.destroy(entry);
+    }
+
+    /**
+     * Altera o tamanho de uma alocação sem mudar o endereço: diminuir limpa
+     * as unidades do fim; aumentar só é possível se as unidades seguintes
+     * estiverem livres.
+     *
+     * @return true se a alocação foi redimensionada no lugar
+     */
+    boolean resize(int entry, long newSize) {
+        long first = allocations.getStartAddress(entry) / unitSize;
+        long current = allocations.getSize(entry) / unitSize;
+        long count = unitsFor(newSize);
+        if (count > current) {
+            if (nextUsed(first + current) < first + count) {
+                return false;
+            }
+            setRange(first + current, count - current, true);
+        } else if (count < current) {
+            setRange(first + count, current - count, false);
+        }
+        usedUnits += count - current;
+        allocations.setSize(entry, count * unitSize);
+        allocations.setUsedSize(entry, newSize);
+        return true;
+    }
+
+    /**
+     * Desliza as alocações em direção ao endereço 0, mantendo a ordem. Só
+     * atualiza o bitmap e os índices; copiar o conteúdo fica com o chamador,
+     * na ordem da tabela devolvida.
+     *
+     * @return Tabela de realocação (alocações movidas, em ordem de endereço)
+     */
+    List<Relocation> compact() {
+        List<Relocation> relocations = new ArrayList<>();
+        Arrays.fill(used, 0);
+        markPadding();
+        byAddress = new BlockTree(allocations, BlockTree.BY_ADDRESS);
+        nextFitCursor = 0;
+
+        long cursor = 0;
+        for (int entry = allocations.getHead(); entry != NIL; entry = allocations.getNext(entry)) {
+            long start = allocations.getStartAddress(entry);
+            long size = allocations.getSize(entry);
+            if (start != cursor * unitSize) {
+                relocations.add(new Relocation(allocations.getId(entry), start, cursor * unitSize, size));
+                allocations.setStartAddress(entry, cursor * unitSize);
+            }
+            setRange(cursor, size / unitSize, true);
+            byAddress.insert(entry);
+            cursor += size / unitSize;
+        }
+        return relocations;
+    }
+
+    /**
+     * @return Tabela das alocações, encadeadas em ordem de endereço (somente leitura)
+     */
+    BlockTable getAllocations() {
+        return allocations;
+    }
+
+    /**
+     * @return Entrada da alocação com o ID, ou NIL
+     */
+    int entryById(int id) {
+        return byId.get(id);
+    }
+
+    /**
+     * @return Entrada da alocação que começa exatamente em 'address', ou NIL
+     */
+    int entryAt(long address) {
+        int entry = byAddress.floor(address, 0);
+        return entry != NIL && allocations.getStartAddress(entry) == address ? entry : NIL;
+    }
+
+    /**
+     * @return ID da alocação que contém o endereço, ou 0 se ele estiver livre
+     */
+    int ownerAt(long address) {
+        int entry = byAddress.floor(address, 0);
+        return entry != NIL && address < allocations.getEnd(entry) ? allocations.getId(entry) : 0;
+    }
+
+    int getId(int entry) {
+        return allocations.getId(entry);
+    }
+
+    long getStartAddress(int entry) {
+        return allocations.getStartAddress(entry);
+    }
+
+    long getSize(int entry) {
+        return allocations.getSize(entry);
+    }
+
+    long getUsedSize(int entry) {
+        return allocations.getUsedSize(entry);
+    }
+
+    /**
+     * @return Número de trechos livres no bitmap
+     */
+    int countHoles() {
+        int holes = 0;
+        for (long start = nextFree(0); start < units; start = nextFree(nextUsed(start))) {
+            holes++;
+        }
+        return holes;
+    }
+
+    /**
+     * @return Tamanho em bytes do maior trecho livre do bitmap
+     */
+    long largestFreeRun() {
+        long largest = 0;
+        for (long start = nextFree(0); start < units; ) {
+            long end = nextUsed(start);
+            largest = Math.max(largest, end - start);
+            start = nextFree(end);
+        }
+        return largest * unitSize;
+    }
+
+    /**
+     * Trechos (alocações e buracos) que intersectam [from, to), em ordem de
+     * endereço, como cópias.
+     */
+    List<MemoryBlock> views(long from, long to) {
+        List<MemoryBlock> views = new ArrayList<>();
+        int entry = byAddress.floor(from, 0);
+        long cursor = 0;
+        if (entry == NIL) {
+            entry = allocations.getHead();
+        } else {
+            cursor = allocations.getStartAddress(entry);
+        }
+
+        long totalSize = units * unitSize;
+        while (cursor < to) {
+            long end;
+            if (entry != NIL && allocations.getStartAddress(entry) == cursor) {
+                end = allocations.getEnd(entry);
+                if (end > from) {
+                    views.add(allocations.view(entry));
+                }
+                entry = allocations.getNext(entry);
+            } else {
+                end = entry != NIL ? allocations.getStartAddress(entry) : totalSize;
+                if (end > from) {
+                    views.add(new MemoryBlock(0, cursor, end - cursor, end - cursor, true));
+                }
+            }
+            cursor = end;
+        }
+        return views;
+    }
+
+    /**
+     * Verifica se o bitmap corresponde exatamente às alocações registradas.
+     *
+     * @throws IllegalStateException Na primeira inconsistência encontrada
+     */
+    void checkInvariants() {
+        long end = 0;
+        long counted = 0;
+        int count = 0;
+        for (int entry = allocations.getHead(); entry != NIL; entry = allocations.getNext(entry)) {
+            long start = allocations.getStartAddress(entry);
+            long size = allocations.getSize(entry);
+            check(start >= end, "alocações sobrepostas em @" + start);
+            check(start % unitSize == 0 && size % unitSize == 0 && size > 0, "alocação desalinhada em @" + start);
+            check(nextFree(start / unitSize) >= (start + size) / unitSize, "unidades livres dentro de @" + start);
+            check(byAddress.floor(start, 0) == entry, "alocação @" + start + " ausente do índice por endereço");
+            check(byId.get(allocations.getId(entry)) == entry, "alocação " + allocations.getId(entry) + " ausente do índice por ID");
+            counted += size / unitSize;
+            end = start + size;
+            count++;
+        }
+
+        long bits = 0;
+        for (long word : used) {
+            bits += Long.bitCount(word);
+        }
+        bits -= (long) used.length * 64 - units;
+
+        check(end <= units * unitSize, "alocação além do fim da memória");
+        check(bits == counted, "bitmap com " + bits + " unidades ocupadas, esperado " + counted);
+        check(usedUnits == counted, "contador de unidades: " + usedUnits + ", esperado " + counted);
+        check(count == byAddress.size() && count == byId.size() && count == allocations.liveBlocks(),
+              "índices do bitmap com alocações extras");
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException("Invariante violada: " + message);
+        }
+    }
+
+    /**
+     * @return Primeira unidade livre em [from, units), ou units
+     */
+    private long nextFree(long from) {
+        if (from >= units) {
+            return units;
+        }
+        int w = (int) (from >>> 6);
+        long word = ~used[w] & (-1L << from);
+        while (word == 0) {
+            if (++w == used.length) {
+                return units;
+            }
+            word = ~used[w];
+        }
+        return Math.min(units, ((long) w << 6) + Long.numberOfTrailingZeros(word));
+    }
+
+    /**
+     * @return Primeira unidade ocupada em [from, units), ou units
+     */
+    private long nextUsed(long from) {
+        if (from >= units) {
+            return units;
+        }
+        int w = (int) (from >>> 6);
+        long word = used[w] & (-1L << from);
+        while (word == 0) {
+            if (++w == used.length) {
+                return units;
+            }
+            word = used[w];
+        }
+        return Math.min(units, ((long) w << 6) + Long.numberOfTrailingZeros(word));
+    }
+
+    /**
+     * Marca (ou limpa) as unidades [from, from + count) com uma escrita
+     * mascarada nas palavras das pontas e escritas inteiras no meio.
+     */
+    private void setRange(long from, long count, boolean value) {
+        if (count <= 0) {
+            return;
+        }
+        long to = from + count;
+        int first = (int) (from >>> 6);
+        int last = (int) ((to - 1) >>> 6);
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+        if (first == last) {
+            apply(first, firstMask & lastMask, value);
+            return;
+        }
+        apply(first, firstMask, value);
+        Arrays.fill(used, first + 1, last, value ? -1L : 0L);
+        apply(last, lastMask, value);
+    }
+
+    private void apply(int word, long mask, boolean value) {
+        if (value) {
+            used[word] |= mask;
+        } else {
+            used[word] &= ~mask;
+        }
+    }
+
+    /**
+     * Marca como ocupados os bits após a última unidade.
+     */
+    private void markPadding() {
+        if (units % 64 != 0) {
+            used[used.length - 1] |= -1L << units;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package br.ufc.dc.so;
+
+import java.util.Arrays;
+
+/**
+ * Tabela dos blocos da lista principal do MemoryManager em arrays paralelos
+ * (struct of arrays), em vez de um objeto MemoryBlock por bloco.
+ *
+ * Estrutura de dados utilizada:
+ * - long[] de endereço inicial, tamanho e tamanho usado, int[] de ID e
+ *   boolean[] de livre/ocupado, todos indexados pelo índice do bloco
+ * - int[] prev/next: Lista duplamente encadeada em ordem de endereço, com
+ *   índices no lugar de referências (NIL marca o fim)
+ * - int[] recycled: Pilha de índices de blocos removidos, reutilizados pelos
+ *   próximos blocos criados
+ *
+ * Decisões de implementação:
+ * - Um bloco custa 37 bytes nos arrays, sem cabeçalho de objeto nem
+ *   referências para o GC percorrer; os arrays só crescem (dobrando) quando
+ *   não há índice reciclado
+ * - Criar e remover blocos (split e coalescência) não aloca objetos depois
+ *   que a tabela atinge o tamanho de trabalho
+ * - Os índices ordenados (BlockTree), o índice por ID (IdIndex) e o TLSF
+ *   guardam índices desta tabela
+ * - MemoryBlock passa a ser apenas uma visão (cópia) de um bloco para a API
+ *   e a CLI (ver view)
+ */
+class BlockTable {
+    static final int NIL = -1;
+
+    private long[] start;
+    private long[] size;
+    private long[] usedSize;
+    private int[] id;
+    private boolean[] free;
+    private int[] prev;
+    private int[] next;
+    private int[] recycled;
+    private int recycledCount;
+    private int highWater;
+    private int head = NIL;
+
+    BlockTable(int capacity) {
+        capacity = Math.max(capacity, 16);
+        start = new long[capacity];
+        size = new long[capacity];
+        usedSize = new long[capacity];
+        id = new int[capacity];
+        free = new boolean[capacity];
+        prev = new int[capacity];
+        next = new int[capacity];
+        recycled = new int[16];
+    }
+
+    /**
+     * Cria um bloco fora da lista (prev e next NIL).
+     *
+     * @return Índice do bloco
+     */
+    int create(int blockId, long startAddress, long blockSize, long used, boolean isFree) {
+        int block;
+        if (recycledCount > 0) {
+            block = recycled[--recycledCount];
+        } else {
+            if (highWater == start.length) {
+                grow();
+            }
+            block = highWater++;
+        }
+        id[block] = blockId;
+        start[block] = startAddress;
+        size[block] = blockSize;
+        usedSize[block] = used;
+        free[block] = isFree;
+        prev[block] = NIL;
+        next[block] = NIL;
+        return block;
+    }
+
+    /**
+     * Devolve o índice de um bloco já retirado da lista para reutilização.
+     */
+    void destroy(int block) {
+        if (recycledCount == recycled.length) {
+            recycled = Arrays.copyOf(recycled, recycledCount * 2);
+        }
+        recycled[recycledCount++] = block;
+    }
+
+    private void grow() {
+        int capacity = (int) Math.min(Integer.MAX_VALUE - 8, start.length * 2L);
+        if (capacity == start.length) {
+            throw new IllegalStateException("Tabela de blocos cheia.");
+        }
+        start = Arrays.copyOf(start, capacity);
+        size = Arrays.copyOf(size, capacity);
+        usedSize = Arrays.copyOf(usedSize, capacity);
+        id = Arrays.copyOf(id, capacity);
+        free = Arrays.copyOf(free, capacity);
+        prev = Arrays.copyOf(prev, capacity);
+        next = Arrays.copyOf(next, capacity);
+    }
+
+    /**
+     * @return Número de blocos existentes (criados e não removidos)
+     */
+    int liveBlocks() {
+        return highWater - recycledCount;
+    }
+
+    int getHead() {
+        return head;
+    }
+
+    void setHead(int block) {
+        head = block;
+    }
+
+    int getId(int block) {
+        return id[block];
+    }
+
+    long getStartAddress(int block) {
+        return start[block];
+    }
+
+    long getSize(int block) {
+        return size[block];
+    }
+
+    long getUsedSize(int block) {
+        return usedSize[block];
+    }
+
+    boolean isFree(int block) {
+        return free[block];
+    }
+
+    int getPrev(int block) {
+        return prev[block];
+    }
+
+    int getNext(int block) {
+        return next[block];
+    }
+
+    /**
+     * @return Endereço logo após o bloco
+     */
+    long getEnd(int block) {
+        return start[block] + size[block];
+    }
+
+    /**
+     * @return Bytes reservados e não usados (0 para blocos livres)
+     */
+    long getInternalFragmentation(int block) {
+        return free[block] ? 0 : size[block] - usedSize[block];
+    }
+
+    void setId(int block, int blockId) {
+        id[block] = blockId;
+    }
+
+    void setStartAddress(int block, long startAddress) {
+        start[block] = startAddress;
+    }
+
+    void setSize(int block, long blockSize) {
+        size[block] = blockSize;
+    }
+
+    void setUsedSize(int block, long used) {
+        usedSize[block] = used;
+    }
+
+    void setFree(int block, boolean isFree) {
+        free[block] = isFree;
+    }
+
+    /**
+     * Insere 'block' na lista imediatamente após 'anchor' (ou no início, se
+     * 'anchor' for NIL).
+     */
+    void linkAfter(int anchor, int block) {
+        int after = anchor == NIL ? head : next[anchor];
+        prev[block] = anchor;
+        next[block] = after;
+        if (anchor == NIL) {
+            head = block;
+        } else {
+            next[anchor] = block;
+        }
+        if (after != NIL) {
+            prev[after] = block;
+        }
+    }
+
+    /**
+     * Remove 'block' da lista.
+     */
+    void unlink(int block) {
+        int before = prev[block];
+        int after = next[block];
+        if (before != NIL) {
+            next[before] = after;
+        } else {
+            head = after;
+        }
+        if (after != NIL) {
+            prev[after] = before;
+        }
+        prev[block] = NIL;
+        next[block] = NIL;
+    }
+
+    /**
+     * @return Cópia do bloco como MemoryBlock, para a API e a CLI
+     */
+    MemoryBlock view(int block) {
+        return new MemoryBlock(id[block], start[block], size[block], usedSize[block], free[block]);
+    }
+}
@@ -0,0 +1,239 @@
+package br.ufc.dc.so;
+
+import java.util.Arrays;
+
+/**
+ * Índice ordenado de blocos de uma BlockTable, sem objetos por nó.
+ *
+ * Estrutura de dados utilizada:
+ * - Treap (árvore de busca binária com prioridades de heap) cujos nós são os
+ *   próprios índices dos blocos; os filhos ficam em int[] left/right
+ * - A chave é lida da tabela: o endereço inicial (BY_ADDRESS) ou o par
+ *   (tamanho, endereço) (BY_SIZE)
+ *
+ * Decisões de implementação:
+ * - A prioridade de um nó é um hash do índice do bloco, então não precisa
+ *   ser guardada e a árvore fica balanceada em média (O(log n) por operação)
+ * - As chaves são únicas (não há dois blocos com o mesmo endereço); remover
+ *   um bloco exige a chave atual, então deve ser feito antes de mudar o
+ *   tamanho ou o endereço do bloco (como no TreeSet que este índice substitui)
+ * - Inserir e remover não alocam objetos; left/right crescem junto com os
+ *   índices da tabela
+ */
+class BlockTree {
+    static final boolean BY_ADDRESS = false;
+    static final boolean BY_SIZE = true;
+
+    private static final int NIL = BlockTable.NIL;
+
+    private final BlockTable table;
+    private final boolean bySize;
+    private int[] left = new int[16];
+    private int[] right = new int[16];
+    private int root = NIL;
+    private int size;
+    private boolean removed;
+
+    BlockTree(BlockTable table, boolean bySize) {
+        this.table = table;
+        this.bySize = bySize;
+    }
+
+    /**
+     * @return Número de blocos no índice
+     */
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void insert(int block) {
+        if (block >= left.length) {
+            int capacity = Math.max(block + 1, left.length * 2);
+            left = Arrays.copyOf(left, capacity);
+            right = Arrays.copyOf(right, capacity);
+        }
+        left[block] = NIL;
+        right[block] = NIL;
+        root = insert(root, block);
+        size++;
+    }
+
+    /**
+     * Remove um bloco pela sua chave atual.
+     *
+     * @return true se o bloco estava no índice
+     */
+    boolean remove(int block) {
+        removed = false;
+        root = remove(root, block, primary(block), secondary(block));
+        if (removed) {
+            size--;
+        }
+        return removed;
+    }
+
+    /**
+     * @return true se o bloco está no índice
+     */
+    boolean contains(int block) {
+        long key = primary(block);
+        long tie = secondary(block);
+        int node = root;
+        while (node != NIL && node != block) {
+            node = compare(key, tie, node) < 0 ? left[node] : right[node];
+        }
+        return node == block;
+    }
+
+    /**
+     * @return Bloco com a maior chave menor ou igual a (key, tie), ou NIL
+     */
+    int floor(long key, long tie) {
+        int result = NIL;
+        int node = root;
+        while (node != NIL) {
+            int c = compare(key, tie, node);
+            if (c == 0) {
+                return node;
+            }
+            if (c < 0) {
+                node = left[node];
+            } else {
+                result = node;
+                node = right[node];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return Bloco com a menor chave maior ou igual a (key, tie), ou NIL
+     */
+    int ceiling(long key, long tie) {
+        int result = NIL;
+        int node = root;
+        while (node != NIL) {
+            int c = compare(key, tie, node);
+            if (c == 0) {
+                return node;
+            }
+            if (c > 0) {
+                node = right[node];
+            } else {
+                result = node;
+                node = left[node];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return Bloco com a maior chave, ou NIL se o índice estiver vazio
+     */
+    int last() {
+        int node = root;
+        if (node == NIL) {
+            return NIL;
+        }
+        while (right[node] != NIL) {
+            node = right[node];
+        }
+        return node;
+    }
+
+    private int insert(int node, int block) {
+        if (node == NIL) {
+            return block;
+        }
+        if (compare(primary(block), secondary(block), node) < 0) {
+            left[node] = insert(left[node], block);
+            if (priority(left[node]) > priority(node)) {
+                node = rotateRight(node);
+            }
+        } else {
+            right[node] = insert(right[node], block);
+            if (priority(right[node]) > priority(node)) {
+                node = rotateLeft(node);
+            }
+        }
+        return node;
+    }
+
+    private int remove(int node, int block, long key, long tie) {
+        if (node == NIL) {
+            return NIL;
+        }
+        if (node == block) {
+            removed = true;
+            return merge(left[node], right[node]);
+        }
+        if (compare(key, tie, node) < 0) {
+            left[node] = remove(left[node], block, key, tie);
+        } else {
+            right[node] = remove(right[node], block, key, tie);
+        }
+        return node;
+    }
+
+    /**
+     * Junta duas subárvores em que todas as chaves de 'a' são menores que as de 'b'.
+     */
+    private int merge(int a, int b) {
+        if (a == NIL) {
+            return b;
+        }
+        if (b == NIL) {
+            return a;
+        }
+        if (priority(a) > priority(b)) {
+            right[a] = merge(right[a], b);
+            return a;
+        }
+        left[b] = merge(a, left[b]);
+        return b;
+    }
+
+    private int rotateRight(int node) {
+        int pivot = left[node];
+        left[node] = right[pivot];
+        right[pivot] = node;
+        return pivot;
+    }
+
+    private int rotateLeft(int node) {
+        int pivot = right[node];
+        right[node] = left[pivot];
+        left[pivot] = node;
+        return pivot;
+    }
+
+    private long primary(int block) {
+        return bySize ? table.getSize(block) : table.getStartAddress(block);
+    }
+
+    private long secondary(int block) {
+        return bySize ? table.getStartAddress(block) : 0;
+    }
+
+    private int compare(long key, long tie, int node) {
+        int c = Long.compare(key, primary(node));
+        return c != 0 ? c : Long.compare(tie, secondary(node));
+    }
+
+    /**
+     * Prioridade pseudoaleatória do nó (finalizador do MurmurHash3, bijetor).
+     */
+    private static int priority(int block) {
+        int h = block;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
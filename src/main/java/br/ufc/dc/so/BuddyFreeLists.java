@@ -0,0 +1,355 @@
+package br.ufc.dc.so;
+
+import java.util.Arrays;
+
+/**
+ * Listas livres por ordem do sistema buddy (binary buddy).
+ *
+ * Estrutura de dados utilizada:
+ * - Um OrderSet por ordem k, com os blocos livres de 2^k bytes alinhados em
+ *   múltiplos de 2^k, guardados pelo número do bloco (endereço >>> k): um
+ *   heap mínimo em long[] e uma tabela hash de número para posição no heap
+ *
+ * Decisões de implementação:
+ * - As listas descrevem todo o espaço livre do MemoryManager: cada bloco
+ *   livre da lista principal é decomposto nos maiores blocos alinhados de
+ *   potência de 2 que cabem nele. Assim, alocações buddy e alocações dos
+ *   demais algoritmos convivem no mesmo espaço de endereços
+ * - O buddy de um bloco de ordem k no endereço a está em a XOR 2^k. Ao
+ *   devolver um bloco, ele é fundido com o buddy enquanto o buddy estiver
+ *   livre na mesma ordem (O(log N) fusões)
+ * - Ao alocar, o menor bloco livre de ordem >= k é dividido ao meio até a
+ *   ordem k, e as metades superiores voltam às listas (O(log N) divisões)
+ * - Em cada ordem é escolhido o bloco de menor endereço (o topo do heap),
+ *   para que o resultado seja determinístico
+ * - Os conjuntos guardam long em arrays, sem Long nem nós de árvore:
+ *   dividir e fundir blocos não alocam objetos (os arrays só crescem)
+ */
+class BuddyFreeLists {
+
+    /**
+     * Blocos livres de uma ordem, pelo número do bloco.
+     *
+     * - Inserir, remover um bloco qualquer e retirar o menor custam
+     *   O(log n); testar se um bloco está livre custa O(1)
+     * - A tabela hash usa endereçamento aberto com sondagem linear e remoção
+     *   por deslocamento para trás, como o IdIndex; -1 marca posição vazia
+     */
+    private static final class OrderSet {
+        private static final long EMPTY = -1;
+
+        private long[] heap = new long[16];
+        private int size;
+        private long[] keys = emptyKeys(16);
+        private int[] positions = new int[16];
+
+        int size() {
+            return size;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        boolean contains(long block) {
+            return find(block) >= 0;
+        }
+
+        void add(long block) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            if ((size + 1) * 2 > keys.length) {
+                resize(keys.length * 2);
+            }
+            int slot = slot(block, keys.length - 1);
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & (keys.length - 1);
+            }
+            keys[slot] = block;
+            heap[size] = block;
+            positions[slot] = size;
+            siftUp(size++);
+        }
+
+        /**
+         * @return true se o bloco estava no conjunto
+         */
+        boolean remove(long block) {
+            int slot = find(block);
+            if (slot < 0) {
+                return false;
+            }
+            int position = positions[slot];
+            removeKey(slot);
+            removeAt(position);
+            return true;
+        }
+
+        /**
+         * Retira o menor número de bloco. O conjunto não pode estar vazio.
+         */
+        long pollFirst() {
+            long first = heap[0];
+            removeKey(find(first));
+            removeAt(0);
+            return first;
+        }
+
+        private void removeAt(int position) {
+            size--;
+            if (position < size) {
+                heap[position] = heap[size];
+                positions[find(heap[position])] = position;
+                siftDown(position);
+                siftUp(position);
+            }
+        }
+
+        private void siftUp(int position) {
+            long block = heap[position];
+            while (position > 0) {
+                int parent = (position - 1) >>> 1;
+                if (heap[parent] <= block) {
+                    break;
+                }
+                move(parent, position);
+                position = parent;
+            }
+            place(block, position);
+        }
+
+        private void siftDown(int position) {
+            long block = heap[position];
+            int half = size >>> 1;
+            while (position < half) {
+                int child = 2 * position + 1;
+                if (child + 1 < size && heap[child + 1] < heap[child]) {
+                    child++;
+                }
+                if (block <= heap[child]) {
+                    break;
+                }
+                move(child, position);
+                position = child;
+            }
+            place(block, position);
+        }
+
+        private void move(int from, int to) {
+            heap[to] = heap[from];
+            positions[find(heap[to])] = to;
+        }
+
+        private void place(long block, int position) {
+            heap[position] = block;
+            positions[find(block)] = position;
+        }
+
+        /**
+         * @return Posição do bloco na tabela hash, ou -1
+         */
+        private int find(long block) {
+            int mask = keys.length - 1;
+            for (int i = slot(block, mask); keys[i] != EMPTY; i = (i + 1) & mask) {
+                if (keys[i] == block) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void removeKey(int slot) {
+            int mask = keys.length - 1;
+            // Desloca para trás as entradas que passaram pela posição liberada
+            int gap = slot;
+            for (int j = (slot + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+                int home = slot(keys[j], mask);
+                if (((j - home) & mask) >= ((j - gap) & mask)) {
+                    keys[gap] = keys[j];
+                    positions[gap] = positions[j];
+                    gap = j;
+                }
+            }
+            keys[gap] = EMPTY;
+        }
+
+        private void resize(int capacity) {
+            keys = emptyKeys(capacity);
+            positions = new int[capacity];
+            int mask = capacity - 1;
+            for (int position = 0; position < size; position++) {
+                int slot = slot(heap[position], mask);
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = heap[position];
+                positions[slot] = position;
+            }
+        }
+
+        private static long[] emptyKeys(int capacity) {
+            long[] keys = new long[capacity];
+            Arrays.fill(keys, EMPTY);
+            return keys;
+        }
+
+        /**
+         * Posição inicial do bloco (hash de Fibonacci, para espalhar números
+         * de bloco vizinhos).
+         */
+        private static int slot(long block, int mask) {
+            long h = block * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+
+    private final OrderSet[] freeByOrder;
+    private final int maxOrder;
+
+    /**
+     * @param totalSize Tamanho total da memória (define a maior ordem)
+     */
+    BuddyFreeLists(long totalSize) {
+        this.maxOrder = 63 - Long.numberOfLeadingZeros(Math.max(1, totalSize));
+        this.freeByOrder = new OrderSet[maxOrder + 1];
+        for (int order = 0; order <= maxOrder; order++) {
+            freeByOrder[order] = new OrderSet();
+        }
+    }
+
+    /**
+     * Ordem do menor bloco de potência de 2 que comporta 'size' bytes.
+     */
+    static int orderFor(long size) {
+        return size <= 1 ? 0 : 64 - Long.numberOfLeadingZeros(size - 1);
+    }
+
+    int getMaxOrder() {
+        return maxOrder;
+    }
+
+    /**
+     * Retira um bloco livre de ordem 'order', dividindo um bloco maior se preciso.
+     *
+     * @param order Ordem desejada
+     * @return Endereço do bloco de 2^order bytes, ou -1 se não houver espaço
+     */
+    long allocate(int order) {
+        if (order > maxOrder) {
+            return -1;
+        }
+
+        int found = order;
+        while (found <= maxOrder && freeByOrder[found].isEmpty()) {
+            found++;
+        }
+        if (found > maxOrder) {
+            return -1;
+        }
+
+        long address = freeByOrder[found].pollFirst() << found;
+
+        // Divide ao meio até a ordem pedida; a metade superior (buddy) fica livre
+        while (found > order) {
+            found--;
+            freeByOrder[found].add((address >>> found) + 1);
+        }
+        return address;
+    }
+
+    /**
+     * Devolve o intervalo [start, start + size) às listas, fundindo cada
+     * pedaço com seu buddy sempre que possível.
+     */
+    void addRange(long start, long size) {
+        long address = start;
+        long end = start + size;
+        while (address < end) {
+            int order = largestAlignedOrder(address, end);
+            insert(address, order);
+            address += 1L << order;
+        }
+    }
+
+    /**
+     * Remove das listas o intervalo [start, start + size), que passa a ser
+     * ocupado por uma alocação de outro algoritmo. Partes de blocos que
+     * ficam fora do intervalo voltam às listas.
+     *
+     * @throws IllegalStateException Se parte do intervalo não está nas
+     *         listas (as listas não correspondem mais à lista principal)
+     */
+    void removeRange(long start, long size) {
+        long address = start;
+        long end = start + size;
+        while (address < end) {
+            int order = orderOfFreeBlockContaining(address);
+            if (order < 0) {
+                throw new IllegalStateException("Listas buddy inconsistentes: @" + address +
+                                                " está livre na lista principal, mas não nas listas buddy");
+            }
+            long blockStart = address & ~((1L << order) - 1);
+            long blockEnd = blockStart + (1L << order);
+            freeByOrder[order].remove(blockStart >>> order);
+
+            if (blockStart < start) {
+                addRange(blockStart, start - blockStart);
+            }
+            if (blockEnd > end) {
+                addRange(end, blockEnd - end);
+            }
+            address = blockEnd;
+        }
+    }
+
+    /**
+     * Insere um bloco de ordem 'order' e o funde com o buddy (endereço XOR 2^k)
+     * enquanto o buddy também estiver livre.
+     */
+    private void insert(long address, int order) {
+        while (order < maxOrder) {
+            long buddy = address ^ (1L << order);
+            if (!freeByOrder[order].remove(buddy >>> order)) {
+                break;
+            }
+            address = Math.min(address, buddy);
+            order++;
+        }
+        freeByOrder[order].add(address >>> order);
+    }
+
+    /**
+     * Maior ordem k tal que 'address' é múltiplo de 2^k e o bloco cabe até 'end'.
+     */
+    private int largestAlignedOrder(long address, long end) {
+        int order = address == 0 ? maxOrder : Math.min(maxOrder, Long.numberOfTrailingZeros(address));
+        while ((1L << order) > end - address) {
+            order--;
+        }
+        return order;
+    }
+
+    /**
+     * Procura, da menor para a maior ordem, o bloco livre que contém 'address'.
+     *
+     * @return Ordem do bloco, ou -1 se o endereço não estiver em bloco livre
+     */
+    private int orderOfFreeBlockContaining(long address) {
+        for (int order = 0; order <= maxOrder; order++) {
+            long blockStart = address & ~((1L << order) - 1);
+            if (freeByOrder[order].contains(blockStart >>> order)) {
+                return order;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param order Ordem
+     * @return Número de blocos livres de 2^order bytes
+     */
+    int freeBlocksOfOrder(int order) {
+        return freeByOrder[order].size();
+    }
+}
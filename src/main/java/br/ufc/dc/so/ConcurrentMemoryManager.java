@@ -0,0 +1,316 @@
+package br.ufc.dc.so;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Variante do gerenciador que pode ser compartilhada entre threads.
+ *
+ * Estrutura de dados utilizada:
+ * - Arena[]: O espaço de endereços é dividido em faixas contíguas de mesmo
+ *   tamanho; cada arena é um MemoryManager próprio (com endereços locais),
+ *   protegido por um ReentrantLock
+ * - ThreadLocal<Arena>: Arena "de casa" de cada thread, distribuída em
+ *   rodízio na primeira alocação da thread
+ * - IDs com o índice da arena nos bits baixos: cada arena gera seus IDs
+ *   com um contador próprio (ver MemoryManager.idSequence)
+ * - RemoteFreeRing: Anel de liberações remotas de cada arena
+ *
+ * Decisões de implementação:
+ * - Com até uma thread por arena, cada thread aloca na sua arena e o lock
+ *   nunca é disputado; quando a arena de casa não tem espaço, as demais são
+ *   tentadas em ordem
+ * - A arena dona de um ID sai dos seus bits baixos (id & idMask), sem mapa
+ *   compartilhado de donos nem contador global de IDs: alocar e liberar só
+ *   tocam estruturas da arena
+ * - Liberar um bloco de outra arena (ou da própria arena com o lock em uso)
+ *   não bloqueia: o ID é colocado no anel da arena dona, que o esvazia na
+ *   próxima operação que fizer sob o lock. A liberação dupla é detectada
+ *   pelo índice de IDs da própria arena: na hora, se o lock foi obtido, ou
+ *   no esvaziamento, que conta as liberações rejeitadas (getRejectedFrees)
+ * - Se o anel estiver cheio, a liberação espera o lock da arena dona
+ * - Blocos nunca atravessam a fronteira entre arenas, então o maior bloco
+ *   possível é o tamanho de uma arena
+ * - Os listeners e as camadas opcionais (slabs, memória física) não são
+ *   expostos; cada arena usa o modo NONE
+ */
+public class ConcurrentMemoryManager {
+    private static final int REMOTE_FREE_CAPACITY = 1024;
+
+    /**
+     * Uma faixa do espaço de endereços.
+     */
+    private static final class Arena {
+        private final int index;
+        private final long base;
+        private final MemoryManager manager = new MemoryManager();
+        private final ReentrantLock lock = new ReentrantLock();
+        private final RemoteFreeRing remoteFrees = new RemoteFreeRing(REMOTE_FREE_CAPACITY);
+        private final LongAdder rejectedFrees;
+
+        Arena(int index, long base, long size, int idStride, LongAdder rejectedFrees) {
+            this.index = index;
+            this.base = base;
+            this.rejectedFrees = rejectedFrees;
+            manager.init(size);
+            manager.idSequence(idStride + index, idStride);
+        }
+
+        /**
+         * Aplica as liberações remotas pendentes. Deve ser chamado com o lock.
+         */
+        private void drainRemoteFrees() {
+            int id;
+            while ((id = remoteFrees.poll()) != 0) {
+                if (!Result.isOk(manager.freeId(id))) {
+                    rejectedFrees.increment();
+                }
+            }
+        }
+    }
+
+    private final long totalSize;
+    private final long arenaSize;
+    private final Arena[] arenas;
+    private final int idMask;
+    private final AtomicInteger nextHome = new AtomicInteger();
+    private final ThreadLocal<Arena> home;
+    private final LongAdder failedAllocations = new LongAdder();
+    private final LongAdder rejectedFrees = new LongAdder();
+
+    /**
+     * Cria o gerenciador com a memória já inicializada.
+     *
+     * @param totalSize Tamanho total da memória em bytes
+     * @param arenaCount Número de arenas (tipicamente o número de threads)
+     */
+    public ConcurrentMemoryManager(long totalSize, int arenaCount) {
+        if (arenaCount <= 0 || totalSize < arenaCount) {
+            throw new IllegalArgumentException("É preciso ao menos uma arena e 1 byte por arena.");
+        }
+        this.totalSize = totalSize;
+        this.arenaSize = totalSize / arenaCount;
+        this.arenas = new Arena[arenaCount];
+        // Bits baixos suficientes para o índice da arena
+        this.idMask = (1 << (32 - Integer.numberOfLeadingZeros(arenaCount - 1))) - 1;
+        for (int i = 0; i < arenaCount; i++) {
+            long base = i * arenaSize;
+            // A última arena fica com o resto da divisão
+            long size = i == arenaCount - 1 ? totalSize - base : arenaSize;
+            arenas[i] = new Arena(i, base, size, idMask + 1, rejectedFrees);
+        }
+        this.home = ThreadLocal.withInitial(
+            () -> arenas[Math.floorMod(nextHome.getAndIncrement(), arenas.length)]);
+    }
+
+    public long getTotalSize() {
+        return totalSize;
+    }
+
+    public int getArenaCount() {
+        return arenas.length;
+    }
+
+    /**
+     * @return Número de liberações remotas rejeitadas pela arena dona ao
+     *         esvaziar o anel (IDs já liberados ou nunca alocados)
+     */
+    public long getRejectedFrees() {
+        return rejectedFrees.sum();
+    }
+
+    /**
+     * @return Arena indicada pelos bits baixos do ID, ou null se o ID não
+     *         pode ter sido gerado por nenhuma arena
+     */
+    private Arena ownerOf(int id) {
+        if (id <= 0) {
+            return null;
+        }
+        int index = id & idMask;
+        return index < arenas.length ? arenas[index] : null;
+    }
+
+    /**
+     * Aloca na arena da thread atual ou, se ela não tiver espaço, na
+     * primeira arena seguinte que tiver.
+     *
+     * @param size Tamanho requerido em bytes
+     * @param algorithm Algoritmo de alocação usado dentro da arena
+     * @return Resultado (ver Result) com o ID do bloco alocado, ou com o
+     *         motivo da falha da última arena tentada
+     */
+    public long alloc(long size, FitAlgorithm algorithm) {
+        long result = Result.failed(FailureReason.NO_SPACE);
+        Arena first = home.get();
+        for (int i = 0; i < arenas.length; i++) {
+            Arena arena = arenas[(first.index + i) % arenas.length];
+            arena.lock.lock();
+            try {
+                arena.drainRemoteFrees();
+                result = arena.manager.alloc(size, algorithm);
+                if (Result.isOk(result)) {
+                    return result;
+                }
+                if (Result.failure(result) == FailureReason.INVALID_SIZE) {
+                    break;
+                }
+            } finally {
+                arena.lock.unlock();
+            }
+        }
+        failedAllocations.increment();
+        return result;
+    }
+
+    /**
+     * Libera um bloco pelo ID, a partir de qualquer thread. Se a arena dona
+     * não é a da thread atual (ou está em uso), a liberação é enfileirada
+     * sem bloquear e validada quando a arena esvaziar o anel.
+     *
+     * @param id ID do bloco
+     * @return Resultado (ver Result) com o ID, ou BLOCK_NOT_FOUND se o ID
+     *         não está alocado (uma liberação enfileirada é aceita, e uma
+     *         eventual rejeição aparece em getRejectedFrees)
+     */
+    public long freeId(int id) {
+        Arena arena = ownerOf(id);
+        if (arena == null) {
+            return Result.failed(FailureReason.BLOCK_NOT_FOUND);
+        }
+
+        if (arena == home.get() && arena.lock.tryLock()) {
+            try {
+                arena.drainRemoteFrees();
+                return arena.manager.freeId(id);
+            } finally {
+                arena.lock.unlock();
+            }
+        }
+        if (arena.remoteFrees.offer(id)) {
+            return Result.ok(id);
+        }
+
+        // Anel cheio: libera sob o lock, esvaziando o anel antes
+        arena.lock.lock();
+        try {
+            arena.drainRemoteFrees();
+            return arena.manager.freeId(id);
+        } finally {
+            arena.lock.unlock();
+        }
+    }
+
+    /**
+     * Libera um bloco pelo endereço inicial. Sempre usa o lock da arena,
+     * pois é preciso consultar os blocos para achar o ID.
+     *
+     * @param address Endereço global do bloco
+     * @return Resultado (ver Result) com o ID do bloco liberado, ou
+     *         BLOCK_NOT_FOUND se nenhum bloco alocado começa no endereço
+     */
+    public long freeAddr(long address) {
+        if (address < 0 || address >= totalSize) {
+            return Result.failed(FailureReason.BLOCK_NOT_FOUND);
+        }
+        Arena arena = arenas[(int) Math.min(address / arenaSize, arenas.length - 1)];
+
+        arena.lock.lock();
+        try {
+            arena.drainRemoteFrees();
+            return arena.manager.freeAddr(address - arena.base);
+        } finally {
+            arena.lock.unlock();
+        }
+    }
+
+    /**
+     * @param id ID do bloco
+     * @return Endereço global do bloco, ou -1 se o ID não estiver alocado
+     */
+    public long addressOf(int id) {
+        Arena arena = ownerOf(id);
+        if (arena == null) {
+            return -1;
+        }
+        arena.lock.lock();
+        try {
+            arena.drainRemoteFrees();
+            long local = arena.manager.addressOf(id);
+            return local < 0 ? -1 : arena.base + local;
+        } finally {
+            arena.lock.unlock();
+        }
+    }
+
+    /**
+     * Soma as estatísticas das arenas, tomando o lock de uma arena por vez.
+     * O pico de uso é a soma dos picos das arenas (um limite superior do
+     * pico global).
+     *
+     * @return Estatísticas agregadas
+     */
+    public MemoryStats snapshot() {
+        long used = 0;
+        long free = 0;
+        int holes = 0;
+        long largest = 0;
+        long internal = 0;
+        long peak = 0;
+        long allocations = 0;
+        long frees = 0;
+
+        for (Arena arena : arenas) {
+            MemoryStats stats;
+            arena.lock.lock();
+            try {
+                arena.drainRemoteFrees();
+                stats = arena.manager.snapshot();
+            } finally {
+                arena.lock.unlock();
+            }
+            used += stats.getUsedBytes();
+            free += stats.getFreeBytes();
+            holes += stats.getHoles();
+            largest = Math.max(largest, stats.getLargestFreeBlock());
+            internal += stats.getInternalFragmentation();
+            peak += stats.getPeakUsedBytes();
+            allocations += stats.getAllocations();
+            frees += stats.getFrees();
+        }
+
+        return new MemoryStats(totalSize, used, free, holes, largest, internal, peak,
+                               allocations, frees, failedAllocations.sum());
+    }
+
+    /**
+     * Verifica as invariantes de cada arena, que o anel de cada uma foi
+     * esvaziado e que os bits baixos de cada ID alocado indicam a arena
+     * que o guarda. Deve ser chamado sem operações concorrentes em
+     * andamento.
+     *
+     * @throws IllegalStateException Na primeira inconsistência encontrada
+     */
+    public void checkInvariants() {
+        for (Arena arena : arenas) {
+            arena.lock.lock();
+            try {
+                arena.drainRemoteFrees();
+                if (!arena.remoteFrees.isEmpty()) {
+                    throw new IllegalStateException("Invariante violada: anel de liberações da arena " +
+                                                    arena.index + " não foi esvaziado");
+                }
+                arena.manager.checkInvariants();
+                for (MemoryBlock block : arena.manager.getBlocks()) {
+                    if (!block.isFree() && ownerOf(block.getId()) != arena) {
+                        throw new IllegalStateException("Invariante violada: ID " + block.getId() +
+                                                        " na arena " + arena.index + " indica outra arena");
+                    }
+                }
+            } finally {
+                arena.lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package br.ufc.dc.so;
+
+/**
+ * Enum que representa o motivo de falha de uma operação do MemoryManager.
+ *
+ * - NOT_INITIALIZED: A memória ainda não foi inicializada com 'init'
+ * - INVALID_SIZE: Tamanho solicitado menor ou igual a zero
+ * - NO_SPACE: Nenhum bloco livre é suficientemente grande
+ * - BLOCK_NOT_FOUND: Não existe bloco alocado com o ID/endereço informado
+ */
+public enum FailureReason {
+    NOT_INITIALIZED,
+    INVALID_SIZE,
+    NO_SPACE,
+    BLOCK_NOT_FOUND
+}
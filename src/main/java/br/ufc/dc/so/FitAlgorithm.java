@@ -6,9 +6,60 @@ package br.ufc.dc.so;
  * - FIRST_FIT: Seleciona o primeiro bloco livre que seja suficientemente grande
  * - BEST_FIT: Seleciona o menor bloco livre que seja suficientemente grande
  * - WORST_FIT: Seleciona o maior bloco livre disponível
+ * - NEXT_FIT: Como o FIRST_FIT, mas a busca recomeça de onde a última
+ *   alocação NEXT_FIT parou e dá a volta no fim da lista
+ * - BUDDY: Sistema buddy binário; reserva um bloco de potência de 2 alinhado
+ *   ao próprio tamanho (ver BuddyFreeLists)
+ * - TLSF: Two-Level Segregated Fit; busca em tempo constante por bitmaps de
+ *   classes de tamanho (ver TlsfFreeLists)
+ *
+ * Cada algoritmo tem um nome curto usado na CLI e nos arquivos de trace.
  */
 public enum FitAlgorithm {
-    FIRST_FIT,
-    BEST_FIT,
-    WORST_FIT
+    FIRST_FIT("first"),
+    BEST_FIT("best"),
+    WORST_FIT("worst"),
+    NEXT_FIT("next"),
+    BUDDY("buddy"),
+    TLSF("tlsf");
+
+    private final String cliName;
+
+    FitAlgorithm(String cliName) {
+        this.cliName = cliName;
+    }
+
+    public String getCliName() {
+        return cliName;
+    }
+
+    /**
+     * Converte o nome curto usado na CLI (ex.: "first") no algoritmo.
+     *
+     * @param name Nome curto, sem diferenciar maiúsculas e minúsculas
+     * @return Algoritmo correspondente, ou null se o nome for inválido
+     */
+    public static FitAlgorithm fromCliName(String name) {
+        for (FitAlgorithm algorithm : values()) {
+            if (algorithm.cliName.equalsIgnoreCase(name)) {
+                return algorithm;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Lista os nomes curtos para mensagens de ajuda (ex.: "first, best ou worst").
+     */
+    public static String cliNames() {
+        FitAlgorithm[] all = values();
+        StringBuilder names = new StringBuilder();
+        for (int i = 0; i < all.length; i++) {
+            if (i > 0) {
+                names.append(i == all.length - 1 ? " ou " : ", ");
+            }
+            names.append(all[i].cliName);
+        }
+        return names.toString();
+    }
 }
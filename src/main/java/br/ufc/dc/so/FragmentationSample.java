@@ -0,0 +1,60 @@
+package br.ufc.dc.so;
+
+/**
+ * Amostra do estado de fragmentação da memória durante a reprodução de um trace.
+ */
+public class FragmentationSample {
+    private final long operation;
+    private final long usedBytes;
+    private final long freeBytes;
+    private final int holes;
+    private final long largestFreeBlock;
+
+    /**
+     * @param operation Número de operações já reproduzidas
+     * @param usedBytes Bytes ocupados
+     * @param freeBytes Bytes livres
+     * @param holes Número de blocos livres
+     * @param largestFreeBlock Tamanho do maior bloco livre
+     */
+    public FragmentationSample(long operation, long usedBytes, long freeBytes, int holes, long largestFreeBlock) {
+        this.operation = operation;
+        this.usedBytes = usedBytes;
+        this.freeBytes = freeBytes;
+        this.holes = holes;
+        this.largestFreeBlock = largestFreeBlock;
+    }
+
+    public long getOperation() {
+        return operation;
+    }
+
+    public long getUsedBytes() {
+        return usedBytes;
+    }
+
+    public long getFreeBytes() {
+        return freeBytes;
+    }
+
+    public int getHoles() {
+        return holes;
+    }
+
+    public long getLargestFreeBlock() {
+        return largestFreeBlock;
+    }
+
+    /**
+     * Fragmentação externa = 1 - (maior bloco livre / total livre).
+     * Vale 0 quando todo o espaço livre é contíguo.
+     *
+     * @return Valor entre 0 e 1
+     */
+    public double getExternalFragmentation() {
+        if (freeBytes == 0) {
+            return 0.0;
+        }
+        return 1.0 - (double) largestFreeBlock / freeBytes;
+    }
+}
@@ -0,0 +1,59 @@
+package br.ufc.dc.so;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Memória física simulada em um byte[] no heap da JVM (até ~2 GB).
+ *
+ * É o modo padrão para memórias pequenas; o array já nasce zerado, então
+ * não é preciso limpá-lo na inicialização.
+ */
+public class HeapBackingStore implements BackingStore {
+    /**
+     * Maior tamanho de array suportado pelas JVMs usuais.
+     */
+    public static final long MAX_SIZE = Integer.MAX_VALUE - 8;
+
+    private final byte[] memory;
+
+    /**
+     * @param size Tamanho em bytes (até MAX_SIZE)
+     */
+    public HeapBackingStore(long size) {
+        if (size > MAX_SIZE) {
+            throw new IllegalArgumentException("Tamanho excede o limite do modo heap (" + MAX_SIZE + " bytes).");
+        }
+        this.memory = new byte[(int) size];
+    }
+
+    @Override
+    public long size() {
+        return memory.length;
+    }
+
+    @Override
+    public byte get(long address) {
+        return memory[(int) address];
+    }
+
+    @Override
+    public void fill(long address, long length, byte value) {
+        Arrays.fill(memory, (int) address, (int) (address + length), value);
+    }
+
+    @Override
+    public void copy(long from, long to, long length) {
+        System.arraycopy(memory, (int) from, memory, (int) to, (int) length);
+    }
+
+    @Override
+    public void read(long address, ByteBuffer target) {
+        target.put(memory, (int) address, target.remaining());
+    }
+
+    @Override
+    public void write(long address, ByteBuffer source) {
+        source.get(memory, (int) address, source.remaining());
+    }
+}
@@ -0,0 +1,144 @@
+package br.ufc.dc.so;
+
+import java.util.Arrays;
+
+/**
+ * Índice dos blocos alocados por ID: tabela hash de int para long, sem
+ * objetos por entrada (substitui um HashMap<Integer, ...>).
+ *
+ * Estrutura de dados utilizada:
+ * - int[] keys / long[] values: Endereçamento aberto com sondagem linear;
+ *   a chave 0 marca posição vazia (o ID 0 é reservado para blocos livres)
+ *
+ * Decisões de implementação:
+ * - A remoção desloca para trás as entradas seguintes do mesmo grupo, então
+ *   não há marcas de removido e as buscas não degradam com o tempo
+ * - A tabela dobra quando passa de metade da ocupação
+ * - Os valores são long para que o RegionAllocator guarde a região e a
+ *   posição do objeto em uma só entrada; os demais usos guardam um int
+ */
+class IdIndex {
+    private static final int NIL = BlockTable.NIL;
+
+    private int[] keys = new int[16];
+    private long[] values = new long[16];
+    private int size;
+
+    /**
+     * @return Número de IDs no índice
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return Valor associado ao ID, ou NIL
+     */
+    int get(int id) {
+        return (int) getLong(id);
+    }
+
+    /**
+     * @return Valor associado ao ID, ou NIL
+     */
+    long getLong(int id) {
+        int mask = keys.length - 1;
+        for (int i = slot(id, mask); keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == id) {
+                return values[i];
+            }
+        }
+        return NIL;
+    }
+
+    /**
+     * Associa um valor ao ID (que deve ser diferente de 0).
+     */
+    void put(int id, long value) {
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        int i = slot(id, mask);
+        while (keys[i] != 0) {
+            if (keys[i] == id) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = id;
+        values[i] = value;
+        size++;
+    }
+
+    /**
+     * Remove o ID.
+     *
+     * @return Valor que estava associado ao ID, ou NIL
+     */
+    int remove(int id) {
+        int mask = keys.length - 1;
+        int i = slot(id, mask);
+        while (keys[i] != id) {
+            if (keys[i] == 0) {
+                return NIL;
+            }
+            i = (i + 1) & mask;
+        }
+        int value = (int) values[i];
+
+        // Desloca para trás as entradas que passaram pela posição liberada
+        int gap = i;
+        for (int j = (i + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+            int home = slot(keys[j], mask);
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        keys[gap] = 0;
+        size--;
+        return value;
+    }
+
+    /**
+     * Remove todos os IDs. Mantém a tabela, para que ela não precise crescer
+     * de novo, se ela estava ao menos 1/8 cheia; senão volta ao tamanho
+     * inicial. O custo é proporcional aos IDs removidos.
+     */
+    void clear() {
+        if (size * 8 >= keys.length) {
+            Arrays.fill(keys, 0);
+        } else {
+            keys = new int[16];
+            values = new long[16];
+        }
+        size = 0;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new int[capacity];
+        values = new long[capacity];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    /**
+     * Posição inicial do ID (finalizador do MurmurHash3 para espalhar IDs sequenciais).
+     */
+    private static int slot(int id, int mask) {
+        int h = id;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return h & mask;
+    }
+}
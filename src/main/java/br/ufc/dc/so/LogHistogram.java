@@ -0,0 +1,150 @@
+package br.ufc.dc.so;
+
+import java.util.Arrays;
+
+/**
+ * Histograma de valores não negativos (latências em ns, blocos examinados)
+ * com buckets logarítmicos, no estilo do HdrHistogram.
+ *
+ * Estrutura de dados utilizada:
+ * - long[] counts: Valores abaixo de SUB_BUCKETS têm um bucket cada; acima
+ *   disso, cada potência de 2 é dividida em SUB_BUCKETS / 2 buckets iguais
+ *
+ * Decisões de implementação:
+ * - O bucket de um valor sai de Long.numberOfLeadingZeros e de um
+ *   deslocamento, sem laço nem busca; registrar um valor é um incremento
+ *   no array, sem alocar objetos
+ * - O erro relativo de um percentil é de no máximo 1/16 (6,25%), para
+ *   valores de 0 até Long.MAX_VALUE, com 960 buckets fixos (7,5 KB)
+ * - Os percentis devolvem o maior valor do bucket (limitado ao máximo
+ *   observado), então nunca subestimam a cauda
+ * - Não é thread-safe, como o MemoryManager que o alimenta
+ */
+public class LogHistogram {
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int HALF = SUB_BUCKETS / 2;
+    private static final int BUCKETS = SUB_BUCKETS + (63 - SUB_BITS) * HALF;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    /**
+     * Registra um valor (negativos contam como 0).
+     *
+     * @param value Valor a registrar
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts[bucketOf(value)]++;
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Soma as contagens de outro histograma a este.
+     *
+     * @param other Histograma a ser somado
+     */
+    public void add(LogHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Zera todas as contagens.
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    /**
+     * @return Número de valores registrados
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return Menor valor registrado (0 se vazio)
+     */
+    public long getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    /**
+     * @return Maior valor registrado (0 se vazio)
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * @return Média exata dos valores registrados (0 se vazio)
+     */
+    public double getMean() {
+        return count == 0 ? 0.0 : (double) sum / count;
+    }
+
+    /**
+     * Retorna o valor abaixo do qual (ou igual) está a fração 'percentile'
+     * dos valores registrados.
+     *
+     * @param percentile Percentil entre 0 e 100
+     * @return Maior valor do bucket do percentil, ou 0 se vazio
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestValueIn(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Bucket de um valor não negativo.
+     */
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        // value >>> shift fica em [HALF, SUB_BUCKETS)
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BITS - 1);
+        return SUB_BUCKETS + (shift - 1) * HALF + (int) (value >>> shift) - HALF;
+    }
+
+    /**
+     * Maior valor que cai no bucket.
+     */
+    private static long highestValueIn(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKETS) / HALF + 1;
+        long mantissa = (bucket - SUB_BUCKETS) % HALF + HALF;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
@@ -1,7 +1,9 @@
 package br.ufc.dc.so;
 
 /**
- * Classe que representa um bloco de memória.
+ * Classe que representa um bloco de memória. Os blocos da lista principal
+ * do MemoryManager ficam na BlockTable; um MemoryBlock é uma cópia de um
+ * deles (ver MemoryManager.getBlocks) ou um slot de página de slab.
  *
  * Estrutura de dados utilizada: Classe encapsulada com atributos privados
  * para garantir integridade dos dados.
@@ -15,9 +17,9 @@ package br.ufc.dc.so;
  */
 public class MemoryBlock {
     private int id;
-    private int startAddress;
-    private int size;
-    private int usedSize;
+    private long startAddress;
+    private long size;
+    private long usedSize;
     private boolean isFree;
 
     /**
@@ -29,7 +31,7 @@ public class MemoryBlock {
      * @param usedSize Tamanho usado (igual a size para blocos livres)
      * @param isFree True se o bloco está livre
      */
-    public MemoryBlock(int id, int startAddress, int size, int usedSize, boolean isFree) {
+    public MemoryBlock(int id, long startAddress, long size, long usedSize, boolean isFree) {
         this.id = id;
         this.startAddress = startAddress;
         this.size = size;
@@ -42,15 +44,15 @@ public class MemoryBlock {
         return id;
     }
 
-    public int getStartAddress() {
+    public long getStartAddress() {
         return startAddress;
     }
 
-    public int getSize() {
+    public long getSize() {
         return size;
     }
 
-    public int getUsedSize() {
+    public long getUsedSize() {
         return usedSize;
     }
 
@@ -58,7 +60,7 @@ public class MemoryBlock {
         return isFree;
     }
 
-    public int getEndAddress() {
+    public long getEndAddress() {
         return startAddress + size - 1;
     }
 
@@ -67,15 +69,15 @@ public class MemoryBlock {
         this.id = id;
     }
 
-    public void setStartAddress(int startAddress) {
+    public void setStartAddress(long startAddress) {
         this.startAddress = startAddress;
     }
 
-    public void setSize(int size) {
+    public void setSize(long size) {
         this.size = size;
     }
 
-    public void setUsedSize(int usedSize) {
+    public void setUsedSize(long usedSize) {
         this.usedSize = usedSize;
     }
 
@@ -89,7 +91,7 @@ public class MemoryBlock {
      *
      * @return Bytes desperdiçados no bloco
      */
-    public int getInternalFragmentation() {
+    public long getInternalFragmentation() {
         if (isFree) {
             return 0;
         }
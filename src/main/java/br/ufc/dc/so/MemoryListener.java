@@ -0,0 +1,121 @@
+package br.ufc.dc.so;
+
+/**
+ * Interface para observar os eventos do MemoryManager.
+ *
+ * O MemoryManager não escreve nada no console: cada operação apenas retorna
+ * seu resultado e notifica os listeners registrados. Os eventos recebem apenas
+ * valores primitivos, de modo que publicar um evento não aloca objetos.
+ *
+ * Todos os métodos têm implementação vazia; basta sobrescrever os de interesse.
+ */
+public interface MemoryListener {
+
+    /**
+     * Memória inicializada.
+     *
+     * @param size Tamanho total da memória em bytes
+     */
+    default void onInit(long size) {
+    }
+
+    /**
+     * Snapshot carregado (ver MemoryManager.load).
+     *
+     * @param size Tamanho total da memória em bytes
+     * @param allocatedBlocks Número de blocos alocados restaurados
+     */
+    default void onLoad(long size, int allocatedBlocks) {
+    }
+
+    /**
+     * Bloco alocado com sucesso.
+     *
+     * @param id ID do novo bloco
+     * @param address Endereço inicial do bloco
+     * @param size Tamanho do bloco em bytes
+     * @param algorithm Algoritmo usado na escolha do bloco
+     */
+    default void onAlloc(int id, long address, long size, FitAlgorithm algorithm) {
+    }
+
+    /**
+     * Bloco alocado com sucesso em uma região (allocIn).
+     *
+     * @param id ID do novo bloco
+     * @param address Endereço inicial do bloco
+     * @param size Tamanho do bloco em bytes
+     * @param region Nome da região
+     */
+    default void onRegionAlloc(int id, long address, long size, String region) {
+    }
+
+    /**
+     * Falha na alocação.
+     *
+     * @param size Tamanho solicitado
+     * @param algorithm Algoritmo solicitado (null em uma alocação de região)
+     * @param reason Motivo da falha
+     */
+    default void onAllocFailed(long size, FitAlgorithm algorithm, FailureReason reason) {
+    }
+
+    /**
+     * Bloco liberado (antes da coalescência).
+     *
+     * @param id ID do bloco liberado
+     * @param address Endereço inicial do bloco
+     * @param size Tamanho do bloco em bytes
+     */
+    default void onFree(int id, long address, long size) {
+    }
+
+    /**
+     * Falha na liberação pelo ID ('freeid').
+     *
+     * @param id ID informado
+     * @param reason Motivo da falha
+     */
+    default void onFreeIdFailed(int id, FailureReason reason) {
+    }
+
+    /**
+     * Falha na liberação pelo endereço ('freeaddr').
+     *
+     * @param address Endereço informado
+     * @param reason Motivo da falha
+     */
+    default void onFreeAddrFailed(long address, FailureReason reason) {
+    }
+
+    /**
+     * Tamanho de um bloco alterado por realloc. O ID não muda; o endereço
+     * muda apenas se o bloco precisou ser movido.
+     *
+     * @param id ID do bloco
+     * @param oldAddress Endereço antes da operação
+     * @param newAddress Endereço depois da operação
+     * @param newSize Novo tamanho pedido em bytes
+     */
+    default void onRealloc(int id, long oldAddress, long newAddress, long newSize) {
+    }
+
+    /**
+     * Falha no realloc; o bloco não foi alterado.
+     *
+     * @param id ID informado
+     * @param newSize Tamanho pedido
+     * @param reason Motivo da falha
+     */
+    default void onReallocFailed(int id, long newSize, FailureReason reason) {
+    }
+
+    /**
+     * Memória compactada (ver MemoryManager.compact).
+     *
+     * @param movedBlocks Número de blocos que mudaram de endereço
+     * @param movedBytes Total de bytes copiados
+     */
+    default void onCompact(int movedBlocks, long movedBytes) {
+    }
+}
@@ -1,316 +1,2739 @@
 package br.ufc.dc.so;
 
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * Classe principal que gerencia a alocação e liberação de memória.
  *
  * Estrutura de dados utilizada:
- * - ArrayList<MemoryBlock>: Lista dinâmica de blocos de memória (livres e alocados)
- * - byte[]: Array que simula a memória física do sistema
+ * - BlockTable: Blocos (livres e alocados) em arrays paralelos, encadeados
+ *   por índices em uma lista duplamente encadeada em ordem de endereço
+ * - BlockTree (por endereço): Índice de todos os blocos por endereço inicial
+ * - IdIndex: Índice dos blocos alocados por ID
+ * - BlockTree (por tamanho): Índice dos blocos livres ordenado por tamanho e
+ *   endereço (criado na primeira alocação BEST_FIT ou WORST_FIT)
+ * - BuddyFreeLists: Listas livres por ordem do sistema buddy (criadas na
+ *   primeira alocação BUDDY)
+ * - TlsfFreeLists: Índice TLSF dos blocos livres com bitmaps de dois níveis
+ *   (criado na primeira alocação TLSF)
+ * - rover: Ponteiro do NEXT_FIT para o bloco onde a próxima busca recomeça
+ * - SlabAllocator: Camada opcional de slabs para pedidos pequenos
+ * - RegionAllocator: Regiões (arenas) nomeadas com alocação por bump,
+ *   criadas com createRegion
+ * - BitmapAllocator: Motor opcional (modo bitmap) com um bit por unidade de
+ *   tamanho fixo, que substitui a lista de blocos enquanto estiver ativo
+ * - Contadores de bytes livres, fragmentação interna, pico de uso e
+ *   operações, atualizados a cada operação (ver snapshot)
+ * - OperationMetrics: Instrumentação opcional (histogramas de latência e
+ *   de blocos examinados, splits, merges e falhas por algoritmo)
+ * - BackingStore: Memória física simulada opcional (byte[] no heap, buffers
+ *   fora do heap ou páginas esparsas materializadas sob demanda)
  *
  * Decisões de implementação:
- * - Utilizamos ArrayList para facilitar a busca, inserção e remoção de blocos
- * - Cada posição do array 'memory' representa 1 byte
+ * - A lista encadeada permite inserir (split) e remover (coalescência) blocos em
+ *   O(1), sem deslocar elementos como em um ArrayList
+ * - Os blocos não são objetos: cada um é um índice da BlockTable, e os
+ *   índices guardam esses inteiros. Split e coalescência não alocam objetos
+ *   e o GC não percorre um grafo de blocos; MemoryBlock é só uma visão
+ *   (cópia) para a API (getBlocks) e a CLI
+ * - freeId localiza o bloco em O(1) pelo ID e freeAddr em O(log n) pelo endereço
+ * - O índice de blocos livres permite que BEST_FIT e WORST_FIT escolham o bloco
+ *   em O(log n), sem percorrer os blocos alocados. Como os índices TLSF e
+ *   buddy, ele só existe depois do primeiro uso: até lá, alocar e liberar
+ *   com os demais algoritmos não tocam em nenhuma árvore
+ * - O número de buracos e o maior bloco livre são contadores atualizados ao
+ *   inserir e remover blocos livres; quando o maior bloco sai, o valor é
+ *   recalculado na próxima consulta pela maior classe do TLSF ou pelo
+ *   índice por tamanho, que é criado nessa consulta se ainda não existir.
+ *   Assim nenhuma consulta percorre a lista de blocos
+ * - Cada endereço de 'memory' representa 1 byte; endereços e tamanhos são
+ *   long, permitindo memórias simuladas maiores que 2 GB (modo OFF_HEAP)
+ * - O dono de cada endereço é obtido da estrutura de blocos (busca binária
+ *   em blocksByAddress), e não dos bytes de 'memory'. Por padrão (modo NONE)
+ *   não há memória física: alocar e liberar custam o mesmo para 1 byte ou
+ *   1 MB, e o mapa do show vale para qualquer ID
  * - O ID 0 é reservado para blocos livres
  * - IDs de blocos alocados começam em 1 e são incrementados sequencialmente
+ * - compact() desliza os blocos alocados para o início da memória; as
+ *   páginas de slab e as regiões ficam fixas, pois os endereços dos seus
+ *   objetos são guardados pelo SlabAllocator e pelo RegionAllocator
+ * - No modo bitmap, alloc, realloc, free, compact, show e as estatísticas
+ *   usam o BitmapAllocator; a lista de blocos fica com um único bloco livre.
+ *   Os contadores (bytes livres, fragmentação interna, pico, operações)
+ *   continuam sendo mantidos aqui
+ * - allocBatch faz uma busca para o grupo inteiro e divide um único bloco
+ *   livre entre os pedidos; freeBatch ordena os endereços e libera cada
+ *   trecho de blocos vizinhos com uma só coalescência
+ * - Uma região é um bloco da lista principal; alocar nela só avança o
+ *   topo, e resetRegion descarta todos os objetos em O(1). freeRegion
+ *   devolve o bloco inteiro à lista, coalescido com os vizinhos livres
+ * - save grava só os blocos alocados e os bytes deles (ver SnapshotFile);
+ *   load valida o arquivo inteiro antes de substituir o estado e reconstrói
+ *   a lista e os índices em uma passada pelos registros, que já estão em
+ *   ordem de endereço
+ * - As métricas ficam desligadas por padrão (metrics == null): cada ponto
+ *   de medição é um teste de null, sem chamadas a System.nanoTime
+ * - Nenhuma operação escreve no console: alloc, allocIn, realloc, freeId e
+ *   freeAddr retornam um Result (ID e motivo da falha em um único long, sem
+ *   estado guardado entre chamadas), e eventos são publicados para os
+ *   MemoryListener registrados (ver MemorySimulator)
  */
 public class MemoryManager {
-    private byte[] memory;
-    private int totalSize;
-    private List<MemoryBlock> blocks;
+    private static final int NIL = BlockTable.NIL;
+
+    /**
+     * Maior número de posições (bytes ou células) de um mapa do show.
+     */
+    public static final int MAX_MAP_CELLS = 1 << 16;
+
+    /**
+     * Células do mapa ampliado usado por show() em memórias maiores que MAX_MAP_CELLS.
+     */
+    private static final int DEFAULT_ZOOM_CELLS = 128;
+
+    /**
+     * Visitante dos trechos de mesmo dono (bloco ou slot de slab) de um intervalo.
+     */
+    private interface RunVisitor {
+        void visit(long start, long length, int id);
+    }
+
+    private BackingStore memory;
+    private BackingMode backingMode = BackingMode.NONE;
+    private boolean initialized;
+    private long totalSize;
+    private BlockTable blocks;
+    private BlockTree blocksByAddress;
+    private IdIndex blocksById;
+    private BlockTree freeBlocks;
+    private int freeBlockCount;
+    private long largestFree;
+    private boolean largestFreeStale;
+    private BuddyFreeLists buddyFreeLists;
+    private TlsfFreeLists tlsfFreeLists;
+    private int rover = NIL;
+    private SlabAllocator slabs;
+    private RegionAllocator regions;
+    private BitmapAllocator bitmap;
+    private int bitmapUnit;
+    private boolean autoCompact;
+    private int[] slabClassSizes;
+    private int slabPageSize;
+    private long[] searches = new long[FitAlgorithm.values().length];
+    private long[] blocksExamined = new long[FitAlgorithm.values().length];
+    private long freeBytes;
+    private long internalFragmentation;
+    private long peakUsedBytes;
+    private long allocations;
+    private long frees;
+    private long failedAllocations;
     private int nextId;
+    private int idStride = 1;
+    private MemoryListener[] listeners = new MemoryListener[0];
+    private OperationMetrics metrics;
+
+    /**
+     * Construtor padrão (memória não inicializada).
+     */
+    public MemoryManager() {
+        this.blocks = new BlockTable(16);
+        this.blocksByAddress = new BlockTree(blocks, BlockTree.BY_ADDRESS);
+        this.blocksById = new IdIndex();
+        this.nextId = 1;
+    }
+
+    /**
+     * Registra um listener para os eventos de init, alocação e liberação.
+     *
+     * @param listener Listener a ser notificado
+     */
+    public void addListener(MemoryListener listener) {
+        listeners = Arrays.copyOf(listeners, listeners.length + 1);
+        listeners[listeners.length - 1] = listener;
+    }
+
+    /**
+     * Remove um listener previamente registrado.
+     *
+     * @param listener Listener a ser removido
+     */
+    public void removeListener(MemoryListener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                MemoryListener[] updated = new MemoryListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, updated, 0, i);
+                System.arraycopy(listeners, i + 1, updated, i, listeners.length - i - 1);
+                listeners = updated;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Faz os IDs seguirem a sequência first, first + stride, ... (usado pelas
+     * arenas do ConcurrentMemoryManager, em que os bits baixos do ID são o
+     * índice da arena). Deve ser chamado depois de init.
+     *
+     * @param first Primeiro ID
+     * @param stride Distância entre IDs consecutivos
+     */
+    void idSequence(int first, int stride) {
+        this.nextId = first;
+        this.idStride = stride;
+    }
+
+    private int takeId() {
+        int id = nextId;
+        nextId += idStride;
+        return id;
+    }
+
+    /**
+     * Retorna o endereço inicial de um bloco alocado.
+     *
+     * @param id ID do bloco
+     * @return Endereço do bloco, ou -1 se não houver bloco alocado com esse ID
+     */
+    public long addressOf(int id) {
+        long slot = slabs != null ? slabs.objectById(id) : NIL;
+        if (slot != NIL) {
+            return slabs.getStartAddress(slot);
+        }
+        if (bitmap != null) {
+            int entry = bitmap.entryById(id);
+            return entry == NIL ? -1 : bitmap.getStartAddress(entry);
+        }
+        int block = blocksById.get(id);
+        if (block == NIL) {
+            long object = regions != null ? regions.find(id) : NIL;
+            return object == NIL ? -1 : regions.regionOf(object).getStart(RegionAllocator.indexOf(object));
+        }
+        return blocks.getStartAddress(block);
+    }
+
+    /**
+     * Retorna o ID do bloco que ocupa um endereço, por busca binária no
+     * índice de blocos por endereço (e na página de slab, se for o caso).
+     *
+     * @param address Endereço
+     * @return ID do dono, ou 0 se o endereço estiver livre ou fora da memória
+     */
+    public int ownerAt(long address) {
+        if (!initialized || address < 0 || address >= totalSize) {
+            return 0;
+        }
+        if (bitmap != null) {
+            return bitmap.ownerAt(address);
+        }
+        if (slabs != null) {
+            long slot = slabs.slotAt(address);
+            if (slot != NIL) {
+                return slabs.getId(slot);
+            }
+        }
+        if (regions != null) {
+            RegionAllocator.Region region = regions.regionAt(address);
+            if (region != null) {
+                int index = region.indexAt(address);
+                return index == NIL ? 0 : region.getId(index);
+            }
+        }
+        // Páginas de slab têm ID 0, então sobras de página também contam como livres
+        return blocks.getId(blocksByAddress.floor(address, 0));
+    }
+
+    /**
+     * Ativa a camada de slabs: pedidos de até o tamanho da maior classe são
+     * atendidos por slots da menor classe que os comporta, em páginas de
+     * 'pageSize' bytes reservadas na memória principal. Pedidos maiores seguem
+     * para os algoritmos de fit. A configuração é mantida após um novo init.
+     *
+     * @param classSizes Tamanhos das classes em bytes
+     * @param pageSize Tamanho das páginas em bytes
+     * @throws IllegalStateException Se a memória não foi inicializada ou se
+     *         ainda há objetos alocados nos slabs atuais
+     */
+    public void enableSlabs(int[] classSizes, int pageSize) {
+        if (!initialized) {
+            throw new IllegalStateException("Memória não inicializada. Use 'init' primeiro.");
+        }
+        if (bitmap != null) {
+            throw new IllegalStateException("Slabs não estão disponíveis no modo bitmap.");
+        }
+        SlabAllocator configured = new SlabAllocator(classSizes, pageSize);
+        disableSlabs();
+        this.slabs = configured;
+        this.slabClassSizes = classSizes.clone();
+        this.slabPageSize = pageSize;
+    }
+
+    /**
+     * Desativa a camada de slabs e devolve as páginas à memória principal.
+     *
+     * @throws IllegalStateException Se ainda há objetos alocados nos slabs
+     */
+    public void disableSlabs() {
+        if (slabs == null) {
+            slabClassSizes = null;
+            return;
+        }
+        if (slabs.liveObjects() > 0) {
+            throw new IllegalStateException("Ainda há " + slabs.liveObjects() + " objetos alocados nos slabs.");
+        }
+        for (SlabAllocator.SlabPage page : slabs.pages()) {
+            releaseBlock(blockAt(page.getAddress()));
+        }
+        slabs = null;
+        slabClassSizes = null;
+    }
+
+    /**
+     * Ativa o modo bitmap: a memória passa a ser dividida em unidades de
+     * 'unitSize' bytes, uma por bit, e toda alocação reserva um número
+     * inteiro de unidades (a sobra conta como fragmentação interna). A
+     * configuração é mantida após um novo init.
+     *
+     * @param unitSize Tamanho da unidade em bytes
+     * @throws IllegalArgumentException Se a unidade não for positiva ou o
+     *         tamanho da memória não for múltiplo dela
+     * @throws IllegalStateException Se a memória não foi inicializada, se os
+     *         slabs estão ativos, se há regiões ou se ainda há blocos alocados
+     */
+    public void enableBitmap(int unitSize) {
+        if (!initialized) {
+            throw new IllegalStateException("Memória não inicializada. Use 'init' primeiro.");
+        }
+        if (slabs != null) {
+            throw new IllegalStateException("Desative os slabs antes de ativar o bitmap.");
+        }
+        if (regions != null) {
+            throw new IllegalStateException("Libere as regiões antes de ativar o bitmap.");
+        }
+        int live = bitmap != null ? bitmap.liveAllocations() : blocksById.size();
+        if (live > 0) {
+            throw new IllegalStateException("Ainda há " + live + " blocos alocados.");
+        }
+        this.bitmap = new BitmapAllocator(totalSize, unitSize);
+        this.bitmapUnit = unitSize;
+    }
+
+    /**
+     * Desativa o modo bitmap e volta para a lista de blocos.
+     *
+     * @throws IllegalStateException Se ainda há blocos alocados no bitmap
+     */
+    public void disableBitmap() {
+        if (bitmap != null && bitmap.liveAllocations() > 0) {
+            throw new IllegalStateException("Ainda há " + bitmap.liveAllocations() + " blocos alocados no bitmap.");
+        }
+        bitmap = null;
+        bitmapUnit = 0;
+    }
+
+    /**
+     * @return Tamanho da unidade do modo bitmap, ou 0 se o modo estiver desativado
+     */
+    public int getBitmapUnit() {
+        return bitmapUnit;
+    }
+
+    /**
+     * Define se uma alocação que falha por falta de espaço deve compactar a
+     * memória e tentar de novo (quando os bytes livres somados bastam). A
+     * configuração é mantida após um novo init.
+     *
+     * @param autoCompact true para compactar automaticamente
+     */
+    public void setAutoCompact(boolean autoCompact) {
+        this.autoCompact = autoCompact;
+    }
+
+    public boolean isAutoCompact() {
+        return autoCompact;
+    }
+
+    /**
+     * Liga a instrumentação (ver OperationMetrics) com as métricas zeradas.
+     * A configuração é mantida após um novo init, que zera as métricas.
+     */
+    public void enableMetrics() {
+        this.metrics = new OperationMetrics();
+    }
+
+    /**
+     * Desliga a instrumentação e descarta as métricas.
+     */
+    public void disableMetrics() {
+        this.metrics = null;
+    }
+
+    /**
+     * @return Métricas atuais, ou null se a instrumentação estiver desligada
+     */
+    public OperationMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return true se a memória já foi inicializada com init
+     */
+    public boolean isInitialized() {
+        return initialized;
+    }
+
+    /**
+     * @return Tamanho total da memória em bytes (0 se não inicializada)
+     */
+    public long getTotalSize() {
+        return totalSize;
+    }
+
+    /**
+     * @return Número de blocos livres ("buracos", fragmentação externa)
+     */
+    public int getHoleCount() {
+        return bitmap != null ? bitmap.countHoles() : freeBlockCount;
+    }
+
+    /**
+     * @return Tamanho do maior bloco livre em bytes (0 se não houver)
+     */
+    public long getLargestFreeBlock() {
+        if (bitmap != null) {
+            return bitmap.largestFreeRun();
+        }
+        if (freeBlocks == null && largestFreeStale && tlsfFreeLists != null) {
+            largestFree = tlsfFreeLists.largest(blocks);
+            largestFreeStale = false;
+        }
+        if (freeBlocks == null && largestFreeStale) {
+            // Sem índice que responda: cria o índice por tamanho, mantido daí em diante
+            freeBlocks();
+        }
+        if (freeBlocks != null) {
+            return freeBlocks.isEmpty() ? 0 : blocks.getSize(freeBlocks.last());
+        }
+        return largestFree;
+    }
+
+    /**
+     * @return Bytes livres (contador mantido pelos índices de blocos livres)
+     */
+    public long getFreeSpace() {
+        return freeBytes;
+    }
+
+    /**
+     * Retorna um retrato das estatísticas a partir dos contadores mantidos a
+     * cada operação, sem percorrer a lista de blocos: O(1), exceto o maior
+     * bloco livre, que vem do índice por tamanho em O(log n) ou da maior
+     * subclasse do TLSF quando o maior bloco anterior saiu. No modo
+     * bitmap, os buracos e o maior trecho livre vêm de uma varredura do
+     * bitmap, em O(unidades / 64).
+     *
+     * @return Estatísticas atuais
+     */
+    public MemoryStats snapshot() {
+        long internal = internalFragmentation;
+        // Desperdício dentro dos slots de slab (tamanho do slot - tamanho pedido)
+        if (slabs != null) {
+            for (SlabAllocator.SlabClass slabClass : slabs.getClasses()) {
+                internal += slabClass.getInternalFragmentation();
+            }
+        }
+        return new MemoryStats(totalSize, totalSize - freeBytes, freeBytes, getHoleCount(),
+                               getLargestFreeBlock(), internal, peakUsedBytes, allocations, frees,
+                               failedAllocations);
+    }
+
+    /**
+     * Inicializa a memória sem memória física (modo NONE): o estado fica
+     * apenas na estrutura de blocos.
+     *
+     * @param size Tamanho total da memória em bytes
+     */
+    public void init(long size) {
+        init(size, BackingMode.NONE);
+    }
+
+    /**
+     * Inicializa o vetor que simula a memória física.
+     * Cria o primeiro bloco livre com todo o espaço disponível.
+     *
+     * @param size Tamanho total da memória em bytes
+     * @param mode Onde a memória física é armazenada
+     * @throws IllegalArgumentException Se o tamanho for negativo
+     */
+    public void init(long size, BackingMode mode) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Tamanho não pode ser negativo.");
+        }
+
+        // Cria o bitmap e a memória antes de alterar o estado, caso falhem
+        BitmapAllocator configuredBitmap = bitmapUnit > 0 ? new BitmapAllocator(size, bitmapUnit) : null;
+        this.memory = mode.create(size);
+        this.backingMode = mode;
+        this.bitmap = configuredBitmap;
+        this.initialized = true;
+        this.totalSize = size;
+        this.blocks = new BlockTable(16);
+        this.blocksByAddress = new BlockTree(blocks, BlockTree.BY_ADDRESS);
+        this.blocksById = new IdIndex();
+        this.freeBlocks = null;
+        this.freeBlockCount = 0;
+        this.largestFree = 0;
+        this.largestFreeStale = false;
+        this.buddyFreeLists = null;
+        this.tlsfFreeLists = null;
+        this.rover = NIL;
+        this.slabs = slabClassSizes != null ? new SlabAllocator(slabClassSizes, slabPageSize) : null;
+        this.regions = null;
+        this.searches = new long[FitAlgorithm.values().length];
+        this.blocksExamined = new long[FitAlgorithm.values().length];
+        this.freeBytes = 0;
+        this.internalFragmentation = 0;
+        this.peakUsedBytes = 0;
+        this.allocations = 0;
+        this.frees = 0;
+        this.failedAllocations = 0;
+        this.nextId = 1;
+        if (metrics != null) {
+            metrics.reset();
+        }
+
+        // A memória física já é criada zerada (toda livre)
+
+        // Cria um único bloco livre com todo o espaço
+        int initial = blocks.create(0, 0, size, size, true);
+        blocks.linkAfter(NIL, initial);
+        blocksByAddress.insert(initial);
+        addFreeBlock(initial);
+
+        for (MemoryListener listener : listeners) {
+            listener.onInit(size);
+        }
+    }
+
+    /**
+     * Executa a alocação de memória usando o algoritmo especificado.
+     *
+     * Com BUDDY, o bloco reservado tem o tamanho arredondado para a próxima
+     * potência de 2; a diferença aparece como fragmentação interna (usedSize).
+     *
+     * @param size Tamanho requerido em bytes
+     * @param algorithm Algoritmo de alocação
+     * @return Resultado (ver Result) com o ID do bloco alocado, ou com o
+     *         motivo da falha
+     */
+    public long alloc(long size, FitAlgorithm algorithm) {
+        if (metrics == null) {
+            return doAlloc(size, algorithm);
+        }
+        long started = System.nanoTime();
+        long result = doAlloc(size, algorithm);
+        metrics.record(OperationMetrics.Operation.ALLOC, algorithm, Result.id(result), size,
+                       System.nanoTime() - started, Result.isOk(result));
+        return result;
+    }
+
+    private long doAlloc(long size, FitAlgorithm algorithm) {
+        if (!initialized) {
+            return allocFailed(size, algorithm, FailureReason.NOT_INITIALIZED);
+        }
+
+        if (size <= 0) {
+            return allocFailed(size, algorithm, FailureReason.INVALID_SIZE);
+        }
+
+        if (bitmap != null) {
+            return bitmapAlloc(size, algorithm);
+        }
+
+        // Pedidos pequenos são atendidos pelos slabs, se configurados
+        if (slabs != null) {
+            int slabId = slabAlloc(size, algorithm);
+            if (slabId > 0) {
+                return Result.ok(slabId);
+            }
+        }
+
+        int allocated = allocateOrCompact(size, algorithm);
+        if (allocated == NIL) {
+            return allocFailed(size, algorithm, FailureReason.NO_SPACE);
+        }
+
+        // Aloca o bloco
+        int blockId = takeId();
+        long startAddr = blocks.getStartAddress(allocated);
+        blocks.setId(allocated, blockId);
+        blocksById.put(blockId, allocated);
+
+        // Marca a memória física
+        stamp(startAddr, blocks.getSize(allocated), blockId);
+
+        allocations++;
+        for (MemoryListener listener : listeners) {
+            listener.onAlloc(blockId, startAddr, size, algorithm);
+        }
+        return Result.ok(blockId);
+    }
+
+    /**
+     * Aloca um grupo de blocos de uma vez (ex.: os buffers de um pedido).
+     *
+     * Uma única busca com 'algorithm' procura um bloco livre que comporte a
+     * soma dos tamanhos; esse bloco é recortado uma vez e dividido em blocos
+     * contíguos, um por pedido, na ordem de 'sizes'. No modo bitmap, uma
+     * única busca reserva as unidades de todos os pedidos. Se nenhum bloco
+     * comportar o grupo, cada pedido é alocado separadamente, como em alloc.
+     * Pedidos atendidos pelos slabs e pedidos BUDDY (blocos de potência de 2
+     * alinhados) também são alocados um a um.
+     *
+     * @param sizes Tamanhos requeridos em bytes
+     * @param algorithm Algoritmo de alocação
+     * @return Resultados (ver Result), na ordem de 'sizes'
+     */
+    public long[] allocBatch(int[] sizes, FitAlgorithm algorithm) {
+        if (metrics == null) {
+            return doAllocBatch(sizes, algorithm);
+        }
+        long started = System.nanoTime();
+        long[] results = doAllocBatch(sizes, algorithm);
+        long elapsed = System.nanoTime() - started;
+        long total = 0;
+        boolean success = true;
+        for (int i = 0; i < sizes.length; i++) {
+            total += sizes[i];
+            success &= Result.isOk(results[i]);
+        }
+        metrics.record(OperationMetrics.Operation.ALLOC_BATCH, algorithm, 0, total, elapsed, success);
+        return results;
+    }
+
+    private long[] doAllocBatch(int[] sizes, FitAlgorithm algorithm) {
+        long[] results = new long[sizes.length];
+        int[] grouped = new int[sizes.length];
+        int count = 0;
+        long total = 0;
+
+        // Separa os pedidos que podem ser atendidos por um único trecho
+        for (int i = 0; i < sizes.length; i++) {
+            if (initialized && sizes[i] > 0 && algorithm != FitAlgorithm.BUDDY &&
+                (slabs == null || slabs.classFor(sizes[i]) == null)) {
+                grouped[count++] = i;
+                total += bitmap != null ? bitmap.unitsFor(sizes[i]) : sizes[i];
+            } else {
+                results[i] = doAlloc(sizes[i], algorithm);
+            }
+        }
+
+        boolean placed = count > 1 && (bitmap != null
+            ? bitmapAllocGroup(sizes, grouped, count, total, algorithm, results)
+            : allocGroup(sizes, grouped, count, total, algorithm, results));
+        if (!placed) {
+            for (int k = 0; k < count; k++) {
+                results[grouped[k]] = doAlloc(sizes[grouped[k]], algorithm);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Reserva um trecho de 'total' bytes e o divide em blocos contíguos para
+     * os pedidos sizes[grouped[0..count)].
+     *
+     * @return false se não há bloco livre que comporte o grupo
+     */
+    private boolean allocGroup(int[] sizes, int[] grouped, int count, long total,
+                               FitAlgorithm algorithm, long[] results) {
+        int region = allocateOrCompact(total, algorithm);
+        if (region == NIL) {
+            return false;
+        }
+
+        long address = blocks.getStartAddress(region);
+        int block = region;
+        for (int k = 0; k < count; k++) {
+            long size = sizes[grouped[k]];
+            if (k == 0) {
+                blocks.setSize(region, size);
+                blocks.setUsedSize(region, size);
+            } else {
+                int next = blocks.create(0, address, size, size, false);
+                blocks.linkAfter(block, next);
+                blocksByAddress.insert(next);
+                block = next;
+            }
+            int blockId = takeId();
+            blocks.setId(block, blockId);
+            blocksById.put(blockId, block);
+            stamp(address, size, blockId);
+            results[grouped[k]] = Result.ok(blockId);
+            address += size;
+        }
+
+        allocations += count;
+        for (int k = 0; k < count; k++) {
+            int blockId = Result.id(results[grouped[k]]);
+            for (MemoryListener listener : listeners) {
+                listener.onAlloc(blockId, addressOf(blockId), sizes[grouped[k]], algorithm);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Versão do allocGroup para o modo bitmap: um trecho de 'units' unidades
+     * livres é dividido entre os pedidos, cada um com suas unidades.
+     *
+     * @return false se não há trecho livre que comporte o grupo
+     */
+    private boolean bitmapAllocGroup(int[] sizes, int[] grouped, int count, long units,
+                                     FitAlgorithm algorithm, long[] results) {
+        long first = bitmapFind(units, units * bitmap.getUnitSize(), algorithm);
+        if (first < 0) {
+            return false;
+        }
+
+        for (int k = 0; k < count; k++) {
+            long size = sizes[grouped[k]];
+            long blockUnits = bitmap.unitsFor(size);
+            int blockId = takeId();
+            int entry = bitmap.allocate(first, blockUnits, blockId, size);
+            long blockSize = bitmap.getSize(entry);
+            freeBytes -= blockSize;
+            internalFragmentation += blockSize - size;
+            stamp(bitmap.getStartAddress(entry), blockSize, blockId);
+            results[grouped[k]] = Result.ok(blockId);
+            first += blockUnits;
+        }
+        peakUsedBytes = Math.max(peakUsedBytes, totalSize - freeBytes);
+
+        allocations += count;
+        for (int k = 0; k < count; k++) {
+            int blockId = Result.id(results[grouped[k]]);
+            for (MemoryListener listener : listeners) {
+                listener.onAlloc(blockId, addressOf(blockId), sizes[grouped[k]], algorithm);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Alocação no modo bitmap: reserva o primeiro trecho de unidades livres
+     * escolhido pelo algoritmo (ver BitmapAllocator.find).
+     */
+    private long bitmapAlloc(long size, FitAlgorithm algorithm) {
+        long units = bitmap.unitsFor(size);
+        long first = bitmapFind(units, size, algorithm);
+        if (first < 0) {
+            return allocFailed(size, algorithm, FailureReason.NO_SPACE);
+        }
+
+        int blockId = takeId();
+        int entry = bitmap.allocate(first, units, blockId, size);
+        long startAddr = bitmap.getStartAddress(entry);
+        long blockSize = bitmap.getSize(entry);
+        freeBytes -= blockSize;
+        internalFragmentation += blockSize - size;
+        peakUsedBytes = Math.max(peakUsedBytes, totalSize - freeBytes);
+
+        // Marca a memória física
+        stamp(startAddr, blockSize, blockId);
+
+        allocations++;
+        for (MemoryListener listener : listeners) {
+            listener.onAlloc(blockId, startAddr, size, algorithm);
+        }
+        return Result.ok(blockId);
+    }
+
+    /**
+     * Procura 'units' unidades livres no bitmap, compactando e tentando de
+     * novo se a compactação automática estiver ativa (como allocateOrCompact).
+     *
+     * @return Primeira unidade do trecho, ou -1 se não houver espaço
+     */
+    private long bitmapFind(long units, long size, FitAlgorithm algorithm) {
+        long first = bitmap.find(units, algorithm);
+        if (first < 0 && autoCompact && size <= freeBytes && bitmap.countHoles() > 1) {
+            compact();
+            first = bitmap.find(units, algorithm);
+        }
+        return first;
+    }
+
+    /**
+     * Escolhe e recorta um bloco conforme o algoritmo, sem atribuir ID.
+     *
+     * @param size Tamanho requerido em bytes
+     * @param algorithm Algoritmo de alocação
+     * @return Bloco marcado como ocupado (usedSize = size), ou NIL se não houver espaço
+     */
+    private int allocateBlock(long size, FitAlgorithm algorithm) {
+        int chosenBlock;
+        long startAddr;
+        long blockSize;
+
+        if (algorithm == FitAlgorithm.BUDDY) {
+            // Bloco de potência de 2 alinhado, retirado das listas buddy
+            int order = BuddyFreeLists.orderFor(size);
+            startAddr = buddyFreeLists().allocate(order);
+            if (startAddr < 0) {
+                return NIL;
+            }
+            blockSize = 1L << order;
+            chosenBlock = blocksByAddress.floor(startAddr, 0);
+        } else {
+            // Escolhe o bloco adequado conforme o algoritmo
+            chosenBlock = chooseBlock(size, algorithm);
+
+            if (chosenBlock == NIL) {
+                return NIL;
+            }
+            startAddr = blocks.getStartAddress(chosenBlock);
+            blockSize = size;
+            if (buddyFreeLists != null) {
+                buddyFreeLists.removeRange(startAddr, blockSize);
+            }
+        }
+
+        int allocated = carve(chosenBlock, startAddr, blockSize);
+        blocks.setUsedSize(allocated, size);
+        blocks.setFree(allocated, false);
+        internalFragmentation += blocks.getInternalFragmentation(allocated);
+        peakUsedBytes = Math.max(peakUsedBytes, totalSize - freeBytes);
+        if (algorithm == FitAlgorithm.NEXT_FIT) {
+            // A próxima busca recomeça logo após o bloco alocado
+            rover = blocks.getNext(allocated);
+        }
+        return allocated;
+    }
+
+    /**
+     * Como allocateBlock, mas, com a compactação automática ativa, compacta
+     * a memória e tenta de novo quando falta um bloco contíguo e a soma dos
+     * bytes livres bastaria.
+     */
+    private int allocateOrCompact(long size, FitAlgorithm algorithm) {
+        int allocated = allocateBlock(size, algorithm);
+        if (allocated == NIL && autoCompact && size <= freeBytes && freeBlockCount > 1) {
+            compact();
+            allocated = allocateBlock(size, algorithm);
+        }
+        return allocated;
+    }
+
+    /**
+     * Tenta atender o pedido pela camada de slabs. Se a classe não tem slot
+     * livre, reserva uma nova página com o algoritmo pedido.
+     *
+     * @return ID do objeto alocado, ou -1 se o pedido deve seguir para os algoritmos de fit
+     */
+    private int slabAlloc(long size, FitAlgorithm algorithm) {
+        SlabAllocator.SlabClass slabClass = slabs.classFor(size);
+        if (slabClass == null) {
+            return -1;
+        }
+
+        long slot = takeSlot(slabClass, algorithm);
+        if (slot == NIL) {
+            return -1;
+        }
+
+        int blockId = takeId();
+        long startAddr = slabs.getStartAddress(slot);
+        slabs.register(slabClass, slot, blockId, size);
+
+        // Marca a memória física
+        stamp(startAddr, slabClass.getObjectSize(), blockId);
+
+        allocations++;
+        for (MemoryListener listener : listeners) {
+            listener.onAlloc(blockId, startAddr, size, algorithm);
+        }
+        return blockId;
+    }
+
+    /**
+     * Desempilha um slot livre da classe, reservando uma nova página com o
+     * algoritmo pedido se a classe não tiver slot livre.
+     *
+     * @return Slot livre (ainda não registrado), ou NIL se não há espaço para a página
+     */
+    private long takeSlot(SlabAllocator.SlabClass slabClass, FitAlgorithm algorithm) {
+        long slot = slabs.take(slabClass);
+        if (slot == NIL) {
+            int page = allocateOrCompact(slabs.getPageSize(), algorithm);
+            if (page == NIL) {
+                return NIL;
+            }
+            // A página inteira é "usada"; o desperdício passa a ser medido por slot
+            internalFragmentation -= blocks.getInternalFragmentation(page);
+            blocks.setUsedSize(page, blocks.getSize(page));
+            slabs.addPage(slabClass, blocks.getStartAddress(page), blocks.getSize(page));
+            slot = slabs.take(slabClass);
+        }
+        return slot;
+    }
+
+    /**
+     * Recorta o intervalo [address, address + size) de um bloco livre.
+     * As sobras à esquerda e à direita continuam livres na lista e no índice.
+     *
+     * @param block Bloco livre que contém o intervalo
+     * @param address Endereço inicial do intervalo
+     * @param size Tamanho do intervalo
+     * @return Bloco que corresponde exatamente ao intervalo (ainda marcado como livre)
+     */
+    private int carve(int block, long address, long size) {
+        // Remove do índice antes de alterar o tamanho (chave de ordenação)
+        removeFreeBlock(block);
+
+        // Sobra à esquerda: o bloco original continua livre e o intervalo vira um bloco novo
+        if (address > blocks.getStartAddress(block)) {
+            long leftSize = address - blocks.getStartAddress(block);
+            long rightSize = blocks.getSize(block) - leftSize;
+            int right = blocks.create(0, address, rightSize, rightSize, true);
+            blocks.setSize(block, leftSize);
+            blocks.setUsedSize(block, leftSize);
+            blocks.linkAfter(block, right);
+            blocksByAddress.insert(right);
+            addFreeBlock(block);
+            block = right;
+            if (metrics != null) {
+                metrics.countSplit();
+            }
+        }
+
+        // Se o bloco escolhido é maior que o necessário, dividimos
+        if (blocks.getSize(block) > size) {
+            // Cria novo bloco livre com o espaço restante
+            long rest = blocks.getSize(block) - size;
+            int newFreeBlock = blocks.create(0, address + size, rest, rest, true);
+            blocks.setSize(block, size);
+            blocks.setUsedSize(block, size);
+
+            // Adiciona o novo bloco livre na lista, logo após o escolhido
+            blocks.linkAfter(block, newFreeBlock);
+            blocksByAddress.insert(newFreeBlock);
+            addFreeBlock(newFreeBlock);
+            if (metrics != null) {
+                metrics.countSplit();
+            }
+        }
+
+        return block;
+    }
+
+    /**
+     * Insere um bloco livre nos índices de blocos livres.
+     */
+    private void addFreeBlock(int block) {
+        long size = blocks.getSize(block);
+        freeBlockCount++;
+        freeBytes += size;
+        if (!largestFreeStale && size > largestFree) {
+            largestFree = size;
+        }
+        if (freeBlocks != null) {
+            freeBlocks.insert(block);
+        }
+        if (tlsfFreeLists != null) {
+            tlsfFreeLists.insert(block, size);
+        }
+    }
+
+    /**
+     * Remove um bloco livre dos índices. Deve ser chamado antes de alterar
+     * o tamanho ou o endereço do bloco (chaves dos índices).
+     */
+    private void removeFreeBlock(int block) {
+        long size = blocks.getSize(block);
+        freeBlockCount--;
+        freeBytes -= size;
+        if (size == largestFree) {
+            largestFreeStale = true;
+        }
+        if (freeBlocks != null) {
+            freeBlocks.remove(block);
+        }
+        if (tlsfFreeLists != null) {
+            tlsfFreeLists.remove(block, size);
+        }
+    }
+
+    /**
+     * Retorna o índice por tamanho, criando-o a partir dos blocos livres
+     * atuais na primeira alocação BEST_FIT ou WORST_FIT, ou na primeira
+     * consulta ao maior bloco livre depois que ele saiu (sem TLSF).
+     */
+    private BlockTree freeBlocks() {
+        if (freeBlocks == null) {
+            freeBlocks = new BlockTree(blocks, BlockTree.BY_SIZE);
+            for (int block = blocks.getHead(); block != NIL; block = blocks.getNext(block)) {
+                if (blocks.isFree(block)) {
+                    freeBlocks.insert(block);
+                }
+            }
+        }
+        return freeBlocks;
+    }
+
+    /**
+     * Retorna o índice TLSF, criando-o na primeira alocação TLSF a partir
+     * dos blocos livres atuais.
+     */
+    private TlsfFreeLists tlsfFreeLists() {
+        if (tlsfFreeLists == null) {
+            tlsfFreeLists = new TlsfFreeLists();
+            for (int block = blocks.getHead(); block != NIL; block = blocks.getNext(block)) {
+                if (blocks.isFree(block)) {
+                    tlsfFreeLists.insert(block, blocks.getSize(block));
+                }
+            }
+        }
+        return tlsfFreeLists;
+    }
+
+    /**
+     * Retorna as listas buddy, criando-as na primeira alocação BUDDY a partir
+     * dos blocos livres atuais. Até lá, os demais algoritmos não pagam pela
+     * manutenção das listas.
+     */
+    private BuddyFreeLists buddyFreeLists() {
+        if (buddyFreeLists == null) {
+            buddyFreeLists = new BuddyFreeLists(totalSize);
+            for (int block = blocks.getHead(); block != NIL; block = blocks.getNext(block)) {
+                if (blocks.isFree(block)) {
+                    buddyFreeLists.addRange(blocks.getStartAddress(block), blocks.getSize(block));
+                }
+            }
+        }
+        return buddyFreeLists;
+    }
+
+    /**
+     * Registra a falha de uma alocação e notifica os listeners.
+     *
+     * @return Resultado de falha com o motivo
+     */
+    private long allocFailed(long size, FitAlgorithm algorithm, FailureReason reason) {
+        failedAllocations++;
+        if (metrics != null && algorithm != null) {
+            metrics.recordFailure(algorithm, reason);
+        }
+        for (MemoryListener listener : listeners) {
+            listener.onAllocFailed(size, algorithm, reason);
+        }
+        return Result.failed(reason);
+    }
+
+    /**
+     * Seleciona o bloco ideal conforme o algoritmo de alocação.
+     *
+     * FIRST_FIT percorre a lista em ordem de endereço a partir do início e
+     * NEXT_FIT a partir do ponteiro 'rover', dando a volta. BEST_FIT e WORST_FIT
+     * consultam o índice de blocos livres em O(log n) e escolhem o mesmo bloco
+     * que a busca linear escolheria (menor endereço em caso de empate).
+     * TLSF consulta os bitmaps do índice TLSF em O(1).
+     *
+     * @param size Tamanho necessário
+     * @param algorithm Algoritmo a ser aplicado
+     * @return Bloco escolhido ou NIL se não houver espaço
+     */
+    private int chooseBlock(long size, FitAlgorithm algorithm) {
+        switch (algorithm) {
+            case FIRST_FIT: {
+                // Retorna o primeiro bloco que couber
+                int examined = 0;
+                int found = NIL;
+                for (int block = blocks.getHead(); block != NIL; block = blocks.getNext(block)) {
+                    examined++;
+                    if (blocks.isFree(block) && blocks.getSize(block) >= size) {
+                        found = block;
+                        break;
+                    }
+                }
+                recordSearch(algorithm, examined);
+                return found;
+            }
+
+            case NEXT_FIT: {
+                // Recomeça de onde a última alocação NEXT_FIT parou, dando a volta na lista
+                int start = rover != NIL ? rover : blocks.getHead();
+                int block = start;
+                int examined = 0;
+                int found = NIL;
+                do {
+                    examined++;
+                    if (blocks.isFree(block) && blocks.getSize(block) >= size) {
+                        found = block;
+                        break;
+                    }
+                    block = blocks.getNext(block) != NIL ? blocks.getNext(block) : blocks.getHead();
+                } while (block != start);
+                recordSearch(algorithm, examined);
+                return found;
+            }
+
+            case BEST_FIT:
+                // Menor bloco com tamanho >= size (ceiling no índice)
+                return smallestFreeBlockOfAtLeast(size);
+
+            case WORST_FIT:
+                // Maior bloco disponível; entre blocos de mesmo tamanho, o de menor endereço
+                if (freeBlocks().isEmpty()) {
+                    return NIL;
+                }
+                long largest = blocks.getSize(freeBlocks.last());
+                if (largest < size) {
+                    return NIL;
+                }
+                return smallestFreeBlockOfAtLeast(largest);
+
+            case TLSF:
+                // Busca em tempo constante nos bitmaps de dois níveis
+                return tlsfFreeLists().find(size);
+
+            default:
+                // BUDDY não escolhe blocos da lista (ver alloc)
+                return NIL;
+        }
+    }
+
+    /**
+     * Acumula o número de blocos examinados por uma busca linear.
+     */
+    private void recordSearch(FitAlgorithm algorithm, int examined) {
+        searches[algorithm.ordinal()]++;
+        blocksExamined[algorithm.ordinal()] += examined;
+        if (metrics != null) {
+            metrics.recordSearch(algorithm, examined);
+        }
+    }
+
+    /**
+     * Média de blocos examinados por alocação nos algoritmos de busca linear
+     * (FIRST_FIT e NEXT_FIT), incluindo as buscas que falharam.
+     *
+     * @param algorithm Algoritmo
+     * @return Média de blocos examinados, ou 0 se o algoritmo não foi usado
+     */
+    public double getAverageBlocksExamined(FitAlgorithm algorithm) {
+        long count = searches[algorithm.ordinal()];
+        return count == 0 ? 0.0 : (double) blocksExamined[algorithm.ordinal()] / count;
+    }
+
+    /**
+     * Busca no índice o menor bloco livre com pelo menos 'size' bytes,
+     * desempatando pelo menor endereço.
+     */
+    private int smallestFreeBlockOfAtLeast(long size) {
+        return freeBlocks().ceiling(size, Long.MIN_VALUE);
+    }
+
+    /**
+     * @return Bloco da lista principal que começa exatamente em 'address', ou NIL
+     */
+    private int blockAt(long address) {
+        int block = blocksByAddress.floor(address, 0);
+        return block != NIL && blocks.getStartAddress(block) == address ? block : NIL;
+    }
+
+    /**
+     * Libera um bloco previamente alocado com base no ID.
+     * Realiza coalescência (merge) com blocos livres adjacentes.
+     *
+     * @param id Identificador do bloco a ser liberado
+     * @return Resultado (ver Result) com o ID liberado, ou com o motivo da
+     *         falha
+     */
+    public long freeId(int id) {
+        if (metrics == null) {
+            return doFreeId(id);
+        }
+        long started = System.nanoTime();
+        long result = doFreeId(id);
+        metrics.record(OperationMetrics.Operation.FREE_ID, null, id, 0, System.nanoTime() - started,
+                       Result.isOk(result));
+        return result;
+    }
+
+    private long doFreeId(int id) {
+        if (!initialized) {
+            return freeIdFailed(id, FailureReason.NOT_INITIALIZED);
+        }
+
+        if (bitmap != null) {
+            int entry = bitmap.entryById(id);
+            if (entry == NIL) {
+                return freeIdFailed(id, FailureReason.BLOCK_NOT_FOUND);
+            }
+            releaseBitmapEntry(entry);
+            return Result.ok(id);
+        }
+
+        // Objetos de slab voltam para a pilha da sua classe
+        if (slabs != null) {
+            long slot = slabs.objectById(id);
+            if (slot != NIL) {
+                releaseSlabObject(slot);
+                return Result.ok(id);
+            }
+        }
+
+        // Procura o bloco com o ID especificado
+        int blockToFree = blocksById.get(id);
+
+        if (blockToFree == NIL) {
+            long object = regions != null ? regions.find(id) : NIL;
+            if (object == NIL) {
+                return freeIdFailed(id, FailureReason.BLOCK_NOT_FOUND);
+            }
+            releaseRegionObject(regions.regionOf(object), RegionAllocator.indexOf(object));
+            return Result.ok(id);
+        }
+
+        release(blockToFree);
+        return Result.ok(id);
+    }
+
+    /**
+     * Libera um bloco com base no endereço.
+     *
+     * @param address Endereço do bloco
+     * @return Resultado (ver Result) com o ID do bloco liberado, ou com o
+     *         motivo da falha
+     */
+    public long freeAddr(long address) {
+        if (metrics == null) {
+            return doFreeAddr(address);
+        }
+        long started = System.nanoTime();
+        long result = doFreeAddr(address);
+        metrics.record(OperationMetrics.Operation.FREE_ADDR, null, Result.id(result), 0,
+                       System.nanoTime() - started, Result.isOk(result));
+        return result;
+    }
+
+    private long doFreeAddr(long address) {
+        if (!initialized) {
+            return freeAddrFailed(address, FailureReason.NOT_INITIALIZED);
+        }
+
+        if (bitmap != null) {
+            int entry = bitmap.entryAt(address);
+            if (entry == NIL) {
+                return freeAddrFailed(address, FailureReason.BLOCK_NOT_FOUND);
+            }
+            int id = bitmap.getId(entry);
+            releaseBitmapEntry(entry);
+            return Result.ok(id);
+        }
+
+        if (slabs != null && slabs.pageAt(address) != null) {
+            long slot = slabs.objectAt(address);
+            if (slot == NIL) {
+                return freeAddrFailed(address, FailureReason.BLOCK_NOT_FOUND);
+            }
+            int id = slabs.getId(slot);
+            releaseSlabObject(slot);
+            return Result.ok(id);
+        }
+
+        RegionAllocator.Region region = regions != null ? regions.regionAt(address) : null;
+        if (region != null) {
+            int index = region.indexAt(address);
+            if (index == NIL || region.getStart(index) != address) {
+                return freeAddrFailed(address, FailureReason.BLOCK_NOT_FOUND);
+            }
+            int id = region.getId(index);
+            releaseRegionObject(region, index);
+            return Result.ok(id);
+        }
+
+        int block = blockAt(address);
+        if (block == NIL || blocks.isFree(block)) {
+            return freeAddrFailed(address, FailureReason.BLOCK_NOT_FOUND);
+        }
+
+        int id = blocks.getId(block);
+        release(block);
+        return Result.ok(id);
+    }
+
+    /**
+     * Libera um grupo de blocos pelos IDs.
+     *
+     * Os blocos da lista principal são ordenados por endereço e liberados em
+     * uma varredura: cada trecho de blocos vizinhos vira um único bloco livre,
+     * com uma só limpeza da memória física e uma só coalescência com os
+     * vizinhos. Objetos de slab e alocações do modo bitmap (que não têm
+     * coalescência) são liberados um a um. Os listeners recebem um onFree por
+     * bloco, depois que o grupo inteiro foi liberado.
+     *
+     * @param ids IDs dos blocos
+     * @return Número de blocos liberados (IDs não encontrados, ou repetidos,
+     *         notificam onFreeIdFailed e são ignorados)
+     */
+    public int freeBatch(int[] ids) {
+        if (metrics == null) {
+            return doFreeBatch(ids);
+        }
+        long started = System.nanoTime();
+        int freed = doFreeBatch(ids);
+        metrics.record(OperationMetrics.Operation.FREE_BATCH, null, 0, 0, System.nanoTime() - started,
+                       freed == ids.length);
+        return freed;
+    }
+
+    private int doFreeBatch(int[] ids) {
+        if (!initialized) {
+            for (int id : ids) {
+                freeIdFailed(id, FailureReason.NOT_INITIALIZED);
+            }
+            return 0;
+        }
+
+        int freed = 0;
+        long[] addresses = new long[ids.length];
+        int count = 0;
+        for (int id : ids) {
+            if (bitmap != null) {
+                int entry = bitmap.entryById(id);
+                if (entry == NIL) {
+                    freeIdFailed(id, FailureReason.BLOCK_NOT_FOUND);
+                } else {
+                    releaseBitmapEntry(entry);
+                    freed++;
+                }
+                continue;
+            }
+            long slot = slabs != null ? slabs.objectById(id) : NIL;
+            if (slot != NIL) {
+                releaseSlabObject(slot);
+                freed++;
+                continue;
+            }
+            // Sai do índice já aqui, para que um ID repetido no grupo falhe
+            int block = blocksById.remove(id);
+            long object = block == NIL && regions != null ? regions.find(id) : NIL;
+            if (object != NIL) {
+                releaseRegionObject(regions.regionOf(object), RegionAllocator.indexOf(object));
+                freed++;
+            } else if (block == NIL) {
+                freeIdFailed(id, FailureReason.BLOCK_NOT_FOUND);
+            } else {
+                addresses[count++] = blocks.getStartAddress(block);
+            }
+        }
+
+        Arrays.sort(addresses, 0, count);
+        int[] freedIds = new int[count];
+        long[] freedSizes = new long[count];
+        int i = 0;
+        while (i < count) {
+            // Estende o trecho enquanto o próximo endereço é o do bloco seguinte na lista
+            int first = blockAt(addresses[i]);
+            int last = first;
+            int runStart = i++;
+            while (i < count && blocks.getNext(last) != NIL &&
+                   blocks.getStartAddress(blocks.getNext(last)) == addresses[i]) {
+                last = blocks.getNext(last);
+                i++;
+            }
+            releaseRun(first, last, freedIds, freedSizes, runStart);
+        }
+        freed += count;
+        frees += count;
+
+        for (int k = 0; k < count; k++) {
+            for (MemoryListener listener : listeners) {
+                listener.onFree(freedIds[k], addresses[k], freedSizes[k]);
+            }
+        }
+        return freed;
+    }
+
+    /**
+     * Transforma os blocos alocados vizinhos de 'first' até 'last' (já fora
+     * do índice por ID) em um único bloco livre e o coalesce com os vizinhos.
+     * IDs e tamanhos dos blocos são gravados em freedIds/freedSizes a partir
+     * de 'offset'.
+     */
+    private void releaseRun(int first, int last, int[] freedIds, long[] freedSizes, int offset) {
+        long start = blocks.getStartAddress(first);
+        long end = blocks.getEnd(last);
+
+        int block = first;
+        while (true) {
+            int next = blocks.getNext(block);
+            freedIds[offset] = blocks.getId(block);
+            freedSizes[offset++] = blocks.getSize(block);
+            internalFragmentation -= blocks.getInternalFragmentation(block);
+            if (block != first) {
+                unlink(block);
+                blocksByAddress.remove(block);
+                blocks.destroy(block);
+                if (metrics != null) {
+                    metrics.countMerge();
+                }
+            }
+            if (block == last) {
+                break;
+            }
+            block = next;
+        }
+
+        blocks.setFree(first, true);
+        blocks.setId(first, 0);
+        blocks.setSize(first, end - start);
+        blocks.setUsedSize(first, end - start);
+        stamp(start, end - start, 0);
+        if (buddyFreeLists != null) {
+            buddyFreeLists.addRange(start, end - start);
+        }
+        coalesce(first);
+    }
+
+    /**
+     * Cria uma região (arena) nomeada: reserva com 'algorithm' um bloco de
+     * 'size' bytes na lista principal, no qual allocIn aloca por bump. O
+     * bloco aparece como ocupado (ID 0) e não se move na compactação.
+     *
+     * @param name Nome da região
+     * @param size Tamanho da região em bytes
+     * @param algorithm Algoritmo usado para reservar o bloco
+     * @return Endereço da região, ou -1 se a memória não foi inicializada, se
+     *         o tamanho não é positivo ou se não há bloco livre que comporte a
+     *         região (o motivo é publicado em onAllocFailed, como no alloc)
+     * @throws IllegalArgumentException Se já existe uma região com o nome
+     * @throws IllegalStateException No modo bitmap ou se já existem
+     *         RegionAllocator.MAX_REGIONS regiões
+     */
+    public long createRegion(String name, long size, FitAlgorithm algorithm) {
+        if (!initialized) {
+            allocFailed(size, algorithm, FailureReason.NOT_INITIALIZED);
+            return -1;
+        }
+        if (bitmap != null) {
+            throw new IllegalStateException("Regiões não estão disponíveis no modo bitmap.");
+        }
+        if (size <= 0) {
+            allocFailed(size, algorithm, FailureReason.INVALID_SIZE);
+            return -1;
+        }
+        if (regions != null && regions.byName(name) != null) {
+            throw new IllegalArgumentException("Já existe uma região '" + name + "'.");
+        }
+        if (regions != null && regions.size() == RegionAllocator.MAX_REGIONS) {
+            throw new IllegalStateException("Limite de " + RegionAllocator.MAX_REGIONS + " regiões atingido.");
+        }
+
+        int span = allocateOrCompact(size, algorithm);
+        if (span == NIL) {
+            allocFailed(size, algorithm, FailureReason.NO_SPACE);
+            return -1;
+        }
+        // O bloco inteiro é "usado"; o que sobra acima do topo é medido pela região
+        internalFragmentation -= blocks.getInternalFragmentation(span);
+        blocks.setUsedSize(span, blocks.getSize(span));
+        if (regions == null) {
+            regions = new RegionAllocator();
+        }
+        regions.add(name, blocks.getStartAddress(span), blocks.getSize(span));
+        return blocks.getStartAddress(span);
+    }
+
+    /**
+     * Aloca um bloco na região: o bloco começa no topo da região, que avança
+     * 'size' bytes, em O(1). O bloco tem um ID como os demais (freeId,
+     * freeAddr e realloc funcionam), mas o espaço de um bloco liberado
+     * sozinho só volta a ser usado no resetRegion, a não ser que ele esteja
+     * no topo.
+     *
+     * @param name Nome da região
+     * @param size Tamanho requerido em bytes
+     * @return Resultado (ver Result) com o ID do bloco alocado, ou com o
+     *         motivo da falha (NO_SPACE se a região não tem espaço)
+     * @throws IllegalArgumentException Se não existe região com o nome
+     */
+    public long allocIn(String name, long size) {
+        if (metrics == null) {
+            return doAllocIn(name, size);
+        }
+        long started = System.nanoTime();
+        long result = doAllocIn(name, size);
+        metrics.record(OperationMetrics.Operation.REGION_ALLOC, null, Result.id(result), size,
+                       System.nanoTime() - started, Result.isOk(result));
+        return result;
+    }
+
+    private long doAllocIn(String name, long size) {
+        if (!initialized) {
+            return allocFailed(size, null, FailureReason.NOT_INITIALIZED);
+        }
+        RegionAllocator.Region region = region(name);
+        if (size <= 0) {
+            return allocFailed(size, null, FailureReason.INVALID_SIZE);
+        }
+        if (size > region.remaining()) {
+            return allocFailed(size, null, FailureReason.NO_SPACE);
+        }
+
+        int blockId = takeId();
+        long startAddr = region.getStart(regions.allocIn(region, blockId, size));
+
+        // Marca a memória física
+        stamp(startAddr, size, blockId);
+
+        allocations++;
+        for (MemoryListener listener : listeners) {
+            listener.onRegionAlloc(blockId, startAddr, size, name);
+        }
+        return Result.ok(blockId);
+    }
+
+    /**
+     * Libera todos os blocos da região de uma vez e volta o topo ao início,
+     * em O(1) no número de blocos (ver RegionAllocator; com memória física,
+     * os bytes usados da região ainda são zerados). A região continua
+     * reservada.
+     *
+     * @param name Nome da região
+     * @return Número de blocos liberados
+     * @throws IllegalArgumentException Se não existe região com o nome
+     */
+    public int resetRegion(String name) {
+        if (metrics == null) {
+            return clearRegion(region(name));
+        }
+        long started = System.nanoTime();
+        int released = clearRegion(region(name));
+        metrics.record(OperationMetrics.Operation.REGION_RESET, null, 0, 0, System.nanoTime() - started, true);
+        return released;
+    }
+
+    /**
+     * Libera todos os blocos da região, como resetRegion, e devolve o bloco
+     * da região à lista principal como um único bloco livre, coalescido com
+     * os vizinhos.
+     *
+     * @param name Nome da região
+     * @return Número de blocos liberados
+     * @throws IllegalArgumentException Se não existe região com o nome
+     */
+    public int freeRegion(String name) {
+        if (metrics == null) {
+            return doFreeRegion(name);
+        }
+        long started = System.nanoTime();
+        int released = doFreeRegion(name);
+        metrics.record(OperationMetrics.Operation.REGION_FREE, null, 0, 0, System.nanoTime() - started, true);
+        return released;
+    }
+
+    private int doFreeRegion(String name) {
+        RegionAllocator.Region region = region(name);
+        int released = clearRegion(region);
+        regions.remove(region);
+        releaseBlock(blockAt(region.getAddress()));
+        if (regions.size() == 0) {
+            regions = null;
+        }
+        return released;
+    }
+
+    /**
+     * @return Região com o nome
+     * @throws IllegalArgumentException Se não existe região com o nome
+     */
+    private RegionAllocator.Region region(String name) {
+        RegionAllocator.Region region = regions != null ? regions.byName(name) : null;
+        if (region == null) {
+            throw new IllegalArgumentException("Região '" + name + "' não encontrada.");
+        }
+        return region;
+    }
+
+    /**
+     * Descarta os objetos da região, sem eventos por bloco.
+     */
+    private int clearRegion(RegionAllocator.Region region) {
+        int released = region.getLive();
+        stamp(region.getAddress(), region.getTop(), 0);
+        regions.reset(region);
+        frees += released;
+        return released;
+    }
+
+    /**
+     * Libera um bloco de região sozinho (ver RegionAllocator.release).
+     */
+    private void releaseRegionObject(RegionAllocator.Region region, int index) {
+        int id = region.getId(index);
+        long start = region.getStart(index);
+        long size = region.getObjectSize(index);
+
+        // Limpa a memória física
+        stamp(start, size, 0);
+        regions.release(region, index);
+
+        frees++;
+        for (MemoryListener listener : listeners) {
+            listener.onFree(id, start, size);
+        }
+    }
+
+    /**
+     * Realloc de um bloco de região: o bloco do topo muda de tamanho no
+     * lugar; os demais diminuem no lugar ou, para crescer, são copiados
+     * para o topo da mesma região.
+     */
+    private long regionRealloc(RegionAllocator.Region region, int index, long newSize) {
+        int id = region.getId(index);
+        long start = region.getStart(index);
+        long size = region.getObjectSize(index);
+
+        if (region.isTop(index)) {
+            if (!region.resizeTop(newSize)) {
+                return reallocFailed(id, newSize, FailureReason.NO_SPACE);
+            }
+            if (newSize > size) {
+                stamp(start + size, newSize - size, id);
+            } else {
+                stamp(start + newSize, size - newSize, 0);
+            }
+            return reallocated(id, start, start, newSize);
+        }
+
+        if (newSize <= size) {
+            region.shrink(index, newSize);
+            stamp(start + newSize, size - newSize, 0);
+            return reallocated(id, start, start, newSize);
+        }
+
+        if (newSize > region.remaining()) {
+            return reallocFailed(id, newSize, FailureReason.NO_SPACE);
+        }
+        long target = region.getStart(regions.moveToTop(region, index, newSize));
+        if (memory != null) {
+            memory.copy(start, target, size);
+        }
+        stamp(target + size, newSize - size, id);
+        stamp(start, size, 0);
+        return reallocated(id, start, target, newSize);
+    }
+
+    /**
+     * Altera o tamanho de um bloco alocado, mantendo o ID.
+     *
+     * - Diminuir: o bloco é reduzido no lugar e a sobra no fim é liberada
+     *   (e coalescida com o vizinho livre, se houver)
+     * - Aumentar: se o bloco seguinte estiver livre e for grande o bastante,
+     *   o bloco cresce sobre ele, sem mudar de endereço
+     * - Caso contrário, um bloco novo é alocado com 'algorithm', o conteúdo é
+     *   copiado em bloco (BackingStore.copy) e o bloco antigo é liberado
+     * - Com BUDDY, o bloco continua de potência de 2 alinhado: ele só fica no
+     *   lugar se já estiver alinhado à potência de 2 do novo tamanho e não
+     *   for menor que ela (diminuir libera as metades do fim). Senão ele é
+     *   movido para um bloco buddy novo. Com os demais algoritmos, um bloco
+     *   alocado com BUDDY é tratado como qualquer outro e pode deixar de ser
+     *   de potência de 2
+     *
+     * Objetos de slab mudam apenas o tamanho pedido enquanto couberem no slot;
+     * acima disso, são movidos para a classe adequada ou para a lista principal.
+     * Blocos de região só mudam de lugar dentro da própria região (ver
+     * allocIn).
+     * No modo bitmap vale o mesmo, em unidades: as unidades do fim são
+     * liberadas, as seguintes são ocupadas se estiverem livres, ou o bloco é
+     * movido para um trecho escolhido por 'algorithm'.
+     *
+     * @param id ID do bloco
+     * @param newSize Novo tamanho em bytes
+     * @param algorithm Algoritmo usado se o bloco precisar ser movido
+     * @return Resultado (ver Result) com o ID do bloco, ou com o motivo da
+     *         falha; em caso de falha o bloco mantém o tamanho e o conteúdo
+     *         (mas a compactação automática, se ativa, pode tê-lo movido)
+     */
+    public long realloc(int id, long newSize, FitAlgorithm algorithm) {
+        if (metrics == null) {
+            return doRealloc(id, newSize, algorithm);
+        }
+        long started = System.nanoTime();
+        long result = doRealloc(id, newSize, algorithm);
+        metrics.record(OperationMetrics.Operation.REALLOC, algorithm, id, newSize, System.nanoTime() - started,
+                       Result.isOk(result));
+        return result;
+    }
+
+    private long doRealloc(int id, long newSize, FitAlgorithm algorithm) {
+        if (!initialized) {
+            return reallocFailed(id, newSize, FailureReason.NOT_INITIALIZED);
+        }
+        if (newSize <= 0) {
+            return reallocFailed(id, newSize, FailureReason.INVALID_SIZE);
+        }
+
+        if (bitmap != null) {
+            return bitmapRealloc(id, newSize, algorithm);
+        }
+
+        long slot = slabs != null ? slabs.objectById(id) : NIL;
+        if (slot != NIL) {
+            if (newSize <= slabs.getSize(slot)) {
+                slabs.resize(slot, newSize);
+                return reallocated(id, slabs.getStartAddress(slot), slabs.getStartAddress(slot), newSize);
+            }
+            return move(slot, NIL, newSize, algorithm);
+        }
+
+        int block = blocksById.get(id);
+        if (block == NIL) {
+            long object = regions != null ? regions.find(id) : NIL;
+            if (object == NIL) {
+                return reallocFailed(id, newSize, FailureReason.BLOCK_NOT_FOUND);
+            }
+            return regionRealloc(regions.regionOf(object), RegionAllocator.indexOf(object), newSize);
+        }
+
+        long start = blocks.getStartAddress(block);
+        long size = blocks.getSize(block);
+        if (algorithm == FitAlgorithm.BUDDY) {
+            return buddyRealloc(block, newSize);
+        }
+        if (newSize <= size) {
+            internalFragmentation -= blocks.getInternalFragmentation(block);
+            truncate(block, newSize);
+            blocks.setUsedSize(block, newSize);
+            return reallocated(id, start, start, newSize);
+        }
+
+        int next = blocks.getNext(block);
+        long extra = newSize - size;
+        if (next != NIL && blocks.isFree(next) && blocks.getSize(next) >= extra) {
+            // Cresce no lugar, absorvendo o início do bloco livre seguinte
+            long absorbedStart = blocks.getStartAddress(next);
+            int absorbed = carve(next, absorbedStart, extra);
+            if (buddyFreeLists != null) {
+                buddyFreeLists.removeRange(absorbedStart, extra);
+            }
+            unlink(absorbed);
+            blocksByAddress.remove(absorbed);
+            blocks.destroy(absorbed);
+            stamp(absorbedStart, extra, id);
+
+            internalFragmentation -= blocks.getInternalFragmentation(block);
+            blocks.setSize(block, newSize);
+            blocks.setUsedSize(block, newSize);
+            peakUsedBytes = Math.max(peakUsedBytes, totalSize - freeBytes);
+            return reallocated(id, start, start, newSize);
+        }
+
+        return move(NIL, block, newSize, algorithm);
+    }
+
+    /**
+     * Realloc que mantém a disciplina buddy: o bloco fica no lugar só se
+     * já estiver alinhado à potência de 2 que comporta 'newSize' e não for
+     * menor que ela. Nesse caso, as metades do fim que sobram são liberadas
+     * (e fundidas com os seus buddies). Senão o bloco é movido para um
+     * bloco buddy novo.
+     */
+    private long buddyRealloc(int block, long newSize) {
+        int id = blocks.getId(block);
+        long start = blocks.getStartAddress(block);
+        int order = BuddyFreeLists.orderFor(newSize);
+        long target = order < 63 ? 1L << order : Long.MAX_VALUE;
+        if (target > blocks.getSize(block) || start % target != 0) {
+            return move(NIL, block, newSize, FitAlgorithm.BUDDY);
+        }
+        internalFragmentation -= blocks.getInternalFragmentation(block);
+        truncate(block, target);
+        blocks.setUsedSize(block, newSize);
+        internalFragmentation += blocks.getInternalFragmentation(block);
+        return reallocated(id, start, start, newSize);
+    }
+
+    /**
+     * Reduz um bloco alocado a 'newSize' bytes; a sobra do fim é liberada
+     * (e coalescida com o vizinho livre, se houver).
+     */
+    private void truncate(int block, long newSize) {
+        long start = blocks.getStartAddress(block);
+        long size = blocks.getSize(block);
+        if (newSize == size) {
+            return;
+        }
+        // A sobra vira um bloco ocupado sem dono, liberado em seguida
+        int tail = blocks.create(0, start + newSize, size - newSize, size - newSize, false);
+        blocks.setSize(block, newSize);
+        blocks.linkAfter(block, tail);
+        blocksByAddress.insert(tail);
+        if (metrics != null) {
+            metrics.countSplit();
+        }
+        releaseBlock(tail);
+    }
+
+    /**
+     * Move um objeto de slab ('oldSlot') ou um bloco da lista principal
+     * ('oldBlock', se oldSlot for NIL) para um novo espaço de 'newSize'
+     * bytes, copiando o conteúdo, e libera o espaço antigo.
+     */
+    private long move(long oldSlot, int oldBlock, long newSize, FitAlgorithm algorithm) {
+        int id = oldSlot != NIL ? slabs.getId(oldSlot) : blocks.getId(oldBlock);
+        SlabAllocator.SlabClass slabClass = slabs != null ? slabs.classFor(newSize) : null;
+        long targetSlot = slabClass != null ? takeSlot(slabClass, algorithm) : NIL;
+        int targetBlock = NIL;
+        if (targetSlot == NIL) {
+            slabClass = null;
+            targetBlock = allocateOrCompact(newSize, algorithm);
+            if (targetBlock == NIL) {
+                return reallocFailed(id, newSize, FailureReason.NO_SPACE);
+            }
+        }
+        long targetAddress = targetSlot != NIL
+            ? slabs.getStartAddress(targetSlot) : blocks.getStartAddress(targetBlock);
+        long targetSize = targetSlot != NIL ? slabs.getSize(targetSlot) : blocks.getSize(targetBlock);
+
+        // A compactação automática pode ter mudado o endereço do bloco antigo
+        long oldAddress = oldSlot != NIL ? slabs.getStartAddress(oldSlot) : blocks.getStartAddress(oldBlock);
+        long oldSize = oldSlot != NIL ? slabs.getSize(oldSlot) : blocks.getSize(oldBlock);
+        long copied = Math.min(oldSize, targetSize);
+        if (memory != null) {
+            memory.copy(oldAddress, targetAddress, copied);
+        }
+        stamp(targetAddress + copied, targetSize - copied, id);
+
+        if (oldSlot != NIL) {
+            stamp(oldAddress, oldSize, 0);
+            slabs.release(oldSlot);
+        } else {
+            blocksById.remove(id);
+            releaseBlock(oldBlock);
+        }
+
+        if (slabClass != null) {
+            slabs.register(slabClass, targetSlot, id, newSize);
+        } else {
+            blocks.setId(targetBlock, id);
+            blocksById.put(id, targetBlock);
+        }
+        return reallocated(id, oldAddress, targetAddress, newSize);
+    }
+
+    /**
+     * Realloc no modo bitmap: no lugar, se possível; senão move o conteúdo
+     * para um novo trecho.
+     */
+    private long bitmapRealloc(int id, long newSize, FitAlgorithm algorithm) {
+        int entry = bitmap.entryById(id);
+        if (entry == NIL) {
+            return reallocFailed(id, newSize, FailureReason.BLOCK_NOT_FOUND);
+        }
+
+        long start = bitmap.getStartAddress(entry);
+        long size = bitmap.getSize(entry);
+        long waste = size - bitmap.getUsedSize(entry);
+        if (bitmap.resize(entry, newSize)) {
+            long resized = bitmap.getSize(entry);
+            if (resized > size) {
+                stamp(start + size, resized - size, id);
+            } else {
+                stamp(start + resized, size - resized, 0);
+            }
+            freeBytes -= resized - size;
+            internalFragmentation += resized - newSize - waste;
+            peakUsedBytes = Math.max(peakUsedBytes, totalSize - freeBytes);
+            return reallocated(id, start, start, newSize);
+        }
+
+        long units = bitmap.unitsFor(newSize);
+        long first = bitmapFind(units, newSize, algorithm);
+        if (first < 0) {
+            return reallocFailed(id, newSize, FailureReason.NO_SPACE);
+        }
+
+        // A compactação automática pode ter mudado o endereço do bloco antigo
+        long oldAddress = bitmap.getStartAddress(entry);
+        bitmap.release(entry);
+        int target = bitmap.allocate(first, units, id, newSize);
+        long targetAddress = bitmap.getStartAddress(target);
+        long targetSize = bitmap.getSize(target);
+
+        long copied = Math.min(size, targetSize);
+        if (memory != null) {
+            memory.copy(oldAddress, targetAddress, copied);
+        }
+        stamp(targetAddress + copied, targetSize - copied, id);
+        stamp(oldAddress, size, 0);
+
+        freeBytes += size - targetSize;
+        internalFragmentation += targetSize - newSize - waste;
+        peakUsedBytes = Math.max(peakUsedBytes, totalSize - freeBytes);
+        return reallocated(id, oldAddress, targetAddress, newSize);
+    }
+
+    private long reallocated(int id, long oldAddress, long newAddress, long newSize) {
+        for (MemoryListener listener : listeners) {
+            listener.onRealloc(id, oldAddress, newAddress, newSize);
+        }
+        return Result.ok(id);
+    }
+
+    private long reallocFailed(int id, long newSize, FailureReason reason) {
+        for (MemoryListener listener : listeners) {
+            listener.onReallocFailed(id, newSize, reason);
+        }
+        return Result.failed(reason);
+    }
+
+    /**
+     * Libera um bloco alocado e notifica os listeners.
+     *
+     * @param blockToFree Bloco alocado a ser liberado
+     */
+    private void release(int blockToFree) {
+        int id = blocks.getId(blockToFree);
+        long start = blocks.getStartAddress(blockToFree);
+        long size = blocks.getSize(blockToFree);
+        blocksById.remove(id);
+
+        releaseBlock(blockToFree);
+
+        frees++;
+        for (MemoryListener listener : listeners) {
+            listener.onFree(id, start, size);
+        }
+    }
+
+    /**
+     * Marca um bloco da lista principal como livre, limpa a memória física
+     * e realiza a coalescência.
+     *
+     * @param blockToFree Bloco ocupado a ser liberado
+     */
+    private void releaseBlock(int blockToFree) {
+        long start = blocks.getStartAddress(blockToFree);
+        long size = blocks.getSize(blockToFree);
+
+        // Marca como livre
+        internalFragmentation -= blocks.getInternalFragmentation(blockToFree);
+        blocks.setFree(blockToFree, true);
+        blocks.setId(blockToFree, 0);
+        blocks.setUsedSize(blockToFree, size);
+
+        // Limpa a memória física
+        stamp(start, size, 0);
+
+        // Devolve o intervalo às listas buddy (fusão com os buddies por XOR)
+        if (buddyFreeLists != null) {
+            buddyFreeLists.addRange(start, size);
+        }
+
+        // Realiza coalescência (merge) com blocos adjacentes
+        coalesce(blockToFree);
+    }
+
+    /**
+     * Libera uma alocação do modo bitmap (limpeza mascarada das unidades) e
+     * notifica os listeners.
+     */
+    private void releaseBitmapEntry(int entry) {
+        int id = bitmap.getId(entry);
+        long start = bitmap.getStartAddress(entry);
+        long size = bitmap.getSize(entry);
+
+        internalFragmentation -= size - bitmap.getUsedSize(entry);
+        freeBytes += size;
+        stamp(start, size, 0);
+        bitmap.release(entry);
+
+        frees++;
+        for (MemoryListener listener : listeners) {
+            listener.onFree(id, start, size);
+        }
+    }
+
+    /**
+     * Devolve um objeto de slab à sua classe, sem coalescência.
+     */
+    private void releaseSlabObject(long slot) {
+        int id = slabs.getId(slot);
+        long start = slabs.getStartAddress(slot);
+        long size = slabs.getSize(slot);
+
+        // Limpa a memória física
+        stamp(start, size, 0);
+        slabs.release(slot);
+
+        frees++;
+        for (MemoryListener listener : listeners) {
+            listener.onFree(id, start, size);
+        }
+    }
+
+    /**
+     * Escreve o dono de um intervalo na memória física, se ela existir.
+     * O byte guarda apenas os 8 bits menores do ID; consultas de dono usam
+     * ownerAt.
+     */
+    private void stamp(long start, long size, int id) {
+        if (memory != null) {
+            memory.fill(start, size, (byte) id);
+        }
+    }
+
+    private long freeIdFailed(int id, FailureReason reason) {
+        for (MemoryListener listener : listeners) {
+            listener.onFreeIdFailed(id, reason);
+        }
+        return Result.failed(reason);
+    }
 
-    /**
-     * Construtor padrão (memória não inicializada).
-     */
-    public MemoryManager() {
-        this.blocks = new ArrayList<>();
-        this.nextId = 1;
+    private long freeAddrFailed(long address, FailureReason reason) {
+        for (MemoryListener listener : listeners) {
+            listener.onFreeAddrFailed(address, reason);
+        }
+        return Result.failed(reason);
     }
 
     /**
-     * Inicializa o vetor que simula a memória física.
-     * Cria o primeiro bloco livre com todo o espaço disponível.
+     * Realiza a coalescência (merge) de blocos livres adjacentes.
+     * O bloco resultante é (re)inserido no índice de blocos livres.
      *
-     * @param size Tamanho total da memória em bytes
+     * @param current Bloco que foi liberado
      */
-    public void init(int size) {
-        this.totalSize = size;
-        this.memory = new byte[size];
-        this.blocks = new ArrayList<>();
-        this.nextId = 1;
+    private void coalesce(int current) {
+        long started = metrics != null ? System.nanoTime() : 0;
+
+        // Tenta fazer merge com o bloco anterior
+        int prev = blocks.getPrev(current);
+        if (prev != NIL && blocks.isFree(prev) && blocks.isFree(current) &&
+            blocks.getEnd(prev) == blocks.getStartAddress(current)) {
+            // Merge com o anterior
+            removeFreeBlock(prev);
+            blocks.setSize(prev, blocks.getSize(prev) + blocks.getSize(current));
+            blocks.setUsedSize(prev, blocks.getSize(prev));
+            unlink(current);
+            blocksByAddress.remove(current);
+            blocks.destroy(current);
+            current = prev;
+            if (metrics != null) {
+                metrics.countMerge();
+            }
+        }
 
-        // Inicializa toda a memória como livre (valor 0)
-        for (int i = 0; i < size; i++) {
-            memory[i] = 0;
+        // Tenta fazer merge com o próximo
+        int next = blocks.getNext(current);
+        if (next != NIL && blocks.isFree(current) && blocks.isFree(next) &&
+            blocks.getEnd(current) == blocks.getStartAddress(next)) {
+            // Merge com o próximo
+            removeFreeBlock(next);
+            blocks.setSize(current, blocks.getSize(current) + blocks.getSize(next));
+            blocks.setUsedSize(current, blocks.getSize(current));
+            unlink(next);
+            blocksByAddress.remove(next);
+            blocks.destroy(next);
+            if (metrics != null) {
+                metrics.countMerge();
+            }
         }
 
-        // Cria um único bloco livre com todo o espaço
-        blocks.add(new MemoryBlock(0, 0, size, size, true));
-        System.out.println("Memória inicializada com " + size + " bytes.");
+        addFreeBlock(current);
+        if (metrics != null) {
+            metrics.recordCoalesce(System.nanoTime() - started);
+        }
     }
 
     /**
-     * Executa a alocação de memória usando o algoritmo especificado.
-     *
-     * @param size Tamanho requerido em bytes
-     * @param algorithm Algoritmo de alocação (FIRST_FIT, BEST_FIT, WORST_FIT)
-     * @return ID do bloco alocado, ou -1 se não houver espaço
+     * Remove 'block' da lista encadeada.
      */
-    public int alloc(int size, FitAlgorithm algorithm) {
-        if (memory == null) {
-            System.out.println("Erro: Memória não inicializada. Use 'init' primeiro.");
-            return -1;
+    private void unlink(int block) {
+        // O ponteiro do NEXT_FIT passa para o bloco que absorveu o removido
+        if (rover == block) {
+            int prev = blocks.getPrev(block);
+            rover = prev != NIL ? prev : blocks.getNext(block);
         }
+        blocks.unlink(block);
+    }
 
-        if (size <= 0) {
-            System.out.println("Erro: Tamanho deve ser maior que 0.");
-            return -1;
+    /**
+     * Compacta a memória: desliza os blocos alocados em direção ao endereço 0,
+     * na ordem atual, juntando todos os buracos em um único bloco livre no fim.
+     * Páginas de slab e regiões não se movem; os buracos antes de cada uma
+     * são juntados em um bloco livre logo antes dela.
+     *
+     * Com memória física, o conteúdo de cada bloco movido é copiado em bloco
+     * (BackingStore.copy) e a área que ficou livre é zerada. Os IDs não
+     * mudam. O índice por endereço é reconstruído (os blocos livres antigos
+     * são descartados), e os índices por tamanho, TLSF e buddy voltam a ser
+     * criados na próxima alocação que os usar.
+     *
+     * @return Tabela de realocação (blocos movidos, em ordem de endereço)
+     * @throws IllegalStateException Se a memória não foi inicializada
+     */
+    public List<Relocation> compact() {
+        if (!initialized) {
+            throw new IllegalStateException("Memória não inicializada. Use 'init' primeiro.");
+        }
+        if (bitmap != null) {
+            return compactBitmap();
         }
 
-        // Escolhe o bloco adequado conforme o algoritmo
-        MemoryBlock chosenBlock = chooseBlock(size, algorithm);
+        List<Relocation> relocations = new ArrayList<>();
+        long movedBytes = 0;
+        long cursor = 0;
+        // Fim do último intervalo de onde um bloco saiu (bytes a zerar)
+        long dirtyEnd = 0;
 
-        if (chosenBlock == null) {
-            System.out.println("Erro: Não há espaço suficiente para alocar " + size + " bytes.");
-            return -1;
+        int block = blocks.getHead();
+        int tail = NIL;
+        blocks.setHead(NIL);
+        rover = NIL;
+        blocksByAddress = new BlockTree(blocks, BlockTree.BY_ADDRESS);
+        freeBlocks = null;
+        freeBlockCount = 0;
+        largestFree = 0;
+        largestFreeStale = false;
+        freeBytes = 0;
+        tlsfFreeLists = null;
+        buddyFreeLists = null;
+
+        while (block != NIL) {
+            int next = blocks.getNext(block);
+
+            if (blocks.isFree(block)) {
+                blocks.destroy(block);
+            } else {
+                long start = blocks.getStartAddress(block);
+                long size = blocks.getSize(block);
+                int id = blocks.getId(block);
+                if (id == 0) {
+                    // Página de slab ou região: fica no lugar, e o espaço antes dela vira um buraco
+                    tail = appendHole(tail, cursor, start, dirtyEnd);
+                    cursor = start;
+                } else if (start != cursor) {
+                    if (memory != null) {
+                        memory.copy(start, cursor, size);
+                    }
+                    relocations.add(new Relocation(id, start, cursor, size));
+                    movedBytes += size;
+                    dirtyEnd = start + size;
+                    blocks.setStartAddress(block, cursor);
+                }
+                tail = append(tail, block);
+                cursor += size;
+            }
+            block = next;
         }
+        appendHole(tail, cursor, totalSize, dirtyEnd);
 
-        // Aloca o bloco
-        int blockId = nextId++;
-        int startAddr = chosenBlock.getStartAddress();
+        for (MemoryListener listener : listeners) {
+            listener.onCompact(relocations.size(), movedBytes);
+        }
+        return relocations;
+    }
 
-        // Se o bloco escolhido é maior que o necessário, dividimos
-        if (chosenBlock.getSize() > size) {
-            // Cria novo bloco livre com o espaço restante
-            MemoryBlock newFreeBlock = new MemoryBlock(
-                0,
-                startAddr + size,
-                chosenBlock.getSize() - size,
-                chosenBlock.getSize() - size,
-                true
-            );
-
-            // Ajusta o bloco escolhido para o tamanho alocado
-            chosenBlock.setSize(size);
-            chosenBlock.setUsedSize(size);
-            chosenBlock.setId(blockId);
-            chosenBlock.setFree(false);
-
-            // Adiciona o novo bloco livre na lista
-            int index = blocks.indexOf(chosenBlock);
-            blocks.add(index + 1, newFreeBlock);
-        } else {
-            // Usa o bloco inteiro
-            chosenBlock.setId(blockId);
-            chosenBlock.setUsedSize(size);
-            chosenBlock.setFree(false);
+    /**
+     * Compactação no modo bitmap: o BitmapAllocator reposiciona as alocações
+     * e o conteúdo é copiado na ordem da tabela de realocação (cada destino
+     * fica abaixo da origem, então nenhuma cópia sobrescreve um bloco ainda
+     * não copiado).
+     */
+    private List<Relocation> compactBitmap() {
+        List<Relocation> relocations = bitmap.compact();
+        long movedBytes = 0;
+        long dirtyEnd = 0;
+        for (Relocation relocation : relocations) {
+            if (memory != null) {
+                memory.copy(relocation.getOldAddress(), relocation.getNewAddress(), relocation.getSize());
+            }
+            movedBytes += relocation.getSize();
+            dirtyEnd = relocation.getOldAddress() + relocation.getSize();
         }
 
-        // Marca a memória física
-        for (int i = startAddr; i < startAddr + size; i++) {
-            memory[i] = (byte) blockId;
+        // Tudo acima da parte ocupada ficou livre; zera o que ainda tem bytes movidos
+        long packed = totalSize - freeBytes;
+        if (dirtyEnd > packed) {
+            stamp(packed, dirtyEnd - packed, 0);
         }
 
-        System.out.println("Bloco " + blockId + " alocado: " + size + " bytes em @" + startAddr +
-                         " (algoritmo: " + algorithm + ")");
-        return blockId;
+        for (MemoryListener listener : listeners) {
+            listener.onCompact(relocations.size(), movedBytes);
+        }
+        return relocations;
     }
 
     /**
-     * Seleciona o bloco ideal conforme o algoritmo de alocação.
+     * Acrescenta um bloco ao fim da lista que está sendo reconstruída.
      *
-     * @param size Tamanho necessário
-     * @param algorithm Algoritmo a ser aplicado
-     * @return Bloco escolhido ou null se não houver espaço
+     * @return Novo último bloco
      */
-    private MemoryBlock chooseBlock(int size, FitAlgorithm algorithm) {
-        MemoryBlock chosen = null;
+    private int append(int tail, int block) {
+        blocks.linkAfter(tail, block);
+        blocksByAddress.insert(block);
+        return block;
+    }
 
-        for (MemoryBlock block : blocks) {
-            if (!block.isFree() || block.getSize() < size) {
-                continue;
-            }
+    /**
+     * Acrescenta o bloco livre [from, to), se não for vazio, zerando na
+     * memória física a parte dele que ainda tem bytes de blocos movidos.
+     *
+     * @return Novo último bloco
+     */
+    private int appendHole(int tail, long from, long to, long dirtyEnd) {
+        if (from >= to) {
+            return tail;
+        }
+        if (dirtyEnd > from) {
+            stamp(from, Math.min(to, dirtyEnd) - from, 0);
+        }
+        int hole = blocks.create(0, from, to - from, to - from, true);
+        tail = append(tail, hole);
+        addFreeBlock(hole);
+        return tail;
+    }
+
+    /**
+     * Grava um snapshot da memória em um arquivo mapeado (ver SnapshotFile):
+     * um registro por bloco alocado, os bytes da memória física desses
+     * blocos e os contadores de operações. As médias de blocos examinados
+     * por algoritmo não são gravadas.
+     *
+     * @param path Arquivo de destino (substituído se já existir)
+     * @throws IOException Em erro de escrita
+     * @throws IllegalStateException Se a memória não foi inicializada, se
+     *         os slabs estão ativos ou se há regiões
+     */
+    public void save(Path path) throws IOException {
+        if (!initialized) {
+            throw new IllegalStateException("Memória não inicializada. Use 'init' primeiro.");
+        }
+        if (slabs != null) {
+            throw new IllegalStateException("Desative os slabs antes de gravar um snapshot.");
+        }
+        if (regions != null) {
+            throw new IllegalStateException("Libere as regiões antes de gravar um snapshot.");
+        }
 
-            switch (algorithm) {
-                case FIRST_FIT:
-                    // Retorna o primeiro bloco que couber
-                    return block;
+        int records = bitmap != null ? bitmap.liveAllocations() : blocksById.size();
+        long contents = memory != null ? totalSize - freeBytes : 0;
+        long length = SnapshotFile.HEADER_BYTES + (long) records * SnapshotFile.RECORD_BYTES + contents;
 
-                case BEST_FIT:
-                    // Procura o menor bloco que couber
-                    if (chosen == null || block.getSize() < chosen.getSize()) {
-                        chosen = block;
-                    }
-                    break;
+        try (SnapshotFile file = SnapshotFile.create(path, length)) {
+            file.putInt(SnapshotFile.MAGIC);
+            file.putInt(SnapshotFile.VERSION);
+            file.putLong(totalSize);
+            file.putInt(backingMode.ordinal());
+            file.putInt(bitmapUnit);
+            file.putInt(nextId);
+            file.putLong(allocations);
+            file.putLong(frees);
+            file.putLong(failedAllocations);
+            file.putLong(peakUsedBytes);
+            file.putInt(records);
 
-                case WORST_FIT:
-                    // Procura o maior bloco disponível
-                    if (chosen == null || block.getSize() > chosen.getSize()) {
-                        chosen = block;
-                    }
-                    break;
+            BlockTable table = bitmap != null ? bitmap.getAllocations() : blocks;
+            for (int block = table.getHead(); block != NIL; block = table.getNext(block)) {
+                if (!table.isFree(block)) {
+                    file.putInt(table.getId(block));
+                    file.putLong(table.getStartAddress(block));
+                    file.putLong(table.getSize(block));
+                    file.putLong(table.getUsedSize(block));
+                }
             }
+            transferContents(file, true);
         }
-
-        return chosen;
     }
 
     /**
-     * Libera um bloco previamente alocado com base no ID.
-     * Realiza coalescência (merge) com blocos livres adjacentes.
+     * Substitui o estado atual por um snapshot gravado com save. O arquivo é
+     * mapeado e validado por inteiro antes de qualquer alteração; então a
+     * memória física é recriada no modo do snapshot, a lista de blocos e os
+     * índices são reconstruídos a partir dos registros e os bytes dos blocos
+     * são copiados do arquivo. Os índices TLSF e buddy voltam a ser criados
+     * na próxima alocação que os usar. A unidade do bitmap passa a ser a do
+     * snapshot; a compactação automática não muda.
      *
-     * @param id Identificador do bloco a ser liberado
-     * @return true se liberado com sucesso, false caso contrário
+     * @param path Arquivo gravado por save
+     * @throws IOException Em erro de leitura ou se o arquivo não for um
+     *         snapshot válido
+     * @throws IllegalStateException Se os slabs estão ativos
      */
-    public boolean freeId(int id) {
-        if (memory == null) {
-            System.out.println("Erro: Memória não inicializada.");
-            return false;
+    public void load(Path path) throws IOException {
+        if (slabClassSizes != null) {
+            throw new IllegalStateException("Desative os slabs antes de carregar um snapshot.");
         }
 
-        // Procura o bloco com o ID especificado
-        MemoryBlock blockToFree = null;
-        int blockIndex = -1;
+        try (SnapshotFile file = SnapshotFile.open(path)) {
+            if (file.length() < SnapshotFile.HEADER_BYTES || file.getInt() != SnapshotFile.MAGIC) {
+                throw new IOException(path + " não é um snapshot do simulador.");
+            }
+            int version = file.getInt();
+            if (version != SnapshotFile.VERSION) {
+                throw new IOException("Versão de snapshot não suportada: " + version + ".");
+            }
+            long size = file.getLong();
+            int modeIndex = file.getInt();
+            int unit = file.getInt();
+            int savedNextId = file.getInt();
+            long savedAllocations = file.getLong();
+            long savedFrees = file.getLong();
+            long savedFailures = file.getLong();
+            long savedPeak = file.getLong();
+            int records = file.getInt();
+            if (size < 0 || modeIndex < 0 || modeIndex >= BackingMode.values().length || unit < 0 ||
+                (unit > 0 && size % unit != 0) || records < 0) {
+                throw new IOException("Snapshot inválido: cabeçalho inconsistente.");
+            }
+            BackingMode mode = BackingMode.values()[modeIndex];
 
-        for (int i = 0; i < blocks.size(); i++) {
-            if (blocks.get(i).getId() == id && !blocks.get(i).isFree()) {
-                blockToFree = blocks.get(i);
-                blockIndex = i;
-                break;
+            // Primeira passada: valida os registros sem alterar o estado
+            long used = 0;
+            long cursor = 0;
+            int maxId = 0;
+            IdIndex ids = new IdIndex();
+            for (int i = 0; i < records; i++) {
+                int id = file.getInt();
+                long start = file.getLong();
+                long blockSize = file.getLong();
+                long usedSize = file.getLong();
+                if (id <= 0 || ids.get(id) != NIL || start < cursor || blockSize <= 0 || blockSize > size - start ||
+                    usedSize <= 0 || usedSize > blockSize || (unit > 0 && (start % unit != 0 || blockSize % unit != 0))) {
+                    throw new IOException("Snapshot inválido: registro " + i + " (bloco " + id + ") inconsistente.");
+                }
+                ids.put(id, i);
+                maxId = Math.max(maxId, id);
+                cursor = start + blockSize;
+                used += blockSize;
+            }
+            long expected = SnapshotFile.HEADER_BYTES + (long) records * SnapshotFile.RECORD_BYTES +
+                            (mode != BackingMode.NONE ? used : 0);
+            if (file.length() != expected) {
+                throw new IOException("Snapshot inválido: esperados " + expected + " bytes, o arquivo tem " +
+                                      file.length() + ".");
             }
-        }
 
-        if (blockToFree == null) {
-            System.out.println("Erro: Bloco com ID " + id + " não encontrado ou já está livre.");
-            return false;
-        }
+            // Cria o bitmap e a memória antes de alterar o estado, caso falhem
+            BitmapAllocator restoredBitmap;
+            try {
+                restoredBitmap = unit > 0 ? new BitmapAllocator(size, unit) : null;
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Snapshot inválido: " + e.getMessage());
+            }
+            this.memory = mode.create(size);
+            this.backingMode = mode;
+            this.bitmap = restoredBitmap;
+            this.bitmapUnit = unit;
+            this.initialized = true;
+            this.totalSize = size;
+            this.blocks = new BlockTable(unit > 0 ? 16 : 2 * records + 1);
+            this.blocksByAddress = new BlockTree(blocks, BlockTree.BY_ADDRESS);
+            this.blocksById = new IdIndex();
+            this.freeBlocks = null;
+            this.freeBlockCount = 0;
+            this.largestFree = 0;
+            this.largestFreeStale = false;
+            this.buddyFreeLists = null;
+            this.tlsfFreeLists = null;
+            this.rover = NIL;
+            this.slabs = null;
+            this.regions = null;
+            this.searches = new long[FitAlgorithm.values().length];
+            this.blocksExamined = new long[FitAlgorithm.values().length];
+            this.freeBytes = 0;
+            this.internalFragmentation = 0;
+            this.peakUsedBytes = Math.max(savedPeak, used);
+            this.allocations = savedAllocations;
+            this.frees = savedFrees;
+            this.failedAllocations = savedFailures;
+            this.nextId = Math.max(savedNextId, maxId + 1);
+            if (metrics != null) {
+                metrics.reset();
+            }
 
-        // Marca como livre
-        blockToFree.setFree(true);
-        blockToFree.setId(0);
-        blockToFree.setUsedSize(blockToFree.getSize());
+            // Segunda passada: os buracos são os intervalos entre os registros
+            file.seek(SnapshotFile.HEADER_BYTES);
+            int tail = NIL;
+            cursor = 0;
+            if (bitmap != null) {
+                tail = appendHole(NIL, 0, size, 0);
+            }
+            for (int i = 0; i < records; i++) {
+                int id = file.getInt();
+                long start = file.getLong();
+                long blockSize = file.getLong();
+                long usedSize = file.getLong();
+                if (bitmap != null) {
+                    bitmap.allocate(start / unit, blockSize / unit, id, usedSize);
+                    freeBytes -= blockSize;
+                } else {
+                    tail = appendHole(tail, cursor, start, 0);
+                    int block = blocks.create(id, start, blockSize, usedSize, false);
+                    tail = append(tail, block);
+                    blocksById.put(id, block);
+                }
+                internalFragmentation += blockSize - usedSize;
+                cursor = start + blockSize;
+            }
+            if (bitmap == null) {
+                appendHole(tail, cursor, size, 0);
+            }
+            transferContents(file, false);
 
-        // Limpa a memória física
-        int start = blockToFree.getStartAddress();
-        int end = start + blockToFree.getSize();
-        for (int i = start; i < end; i++) {
-            memory[i] = 0;
+            for (MemoryListener listener : listeners) {
+                listener.onLoad(size, records);
+            }
         }
-
-        // Realiza coalescência (merge) com blocos adjacentes
-        coalesce(blockIndex);
-
-        System.out.println("Bloco " + id + " liberado.");
-        return true;
     }
 
     /**
-     * Libera um bloco com base no endereço.
+     * Copia os bytes dos blocos alocados, em ordem de endereço, entre a
+     * memória física e o arquivo (nada a copiar no modo NONE).
      *
-     * @param address Endereço do bloco
-     * @return true se liberado com sucesso
+     * @param toFile true para gravar no arquivo, false para ler dele
      */
-    public boolean freeAddr(int address) {
+    private void transferContents(SnapshotFile file, boolean toFile) throws IOException {
         if (memory == null) {
-            System.out.println("Erro: Memória não inicializada.");
-            return false;
+            return;
         }
-
-        for (MemoryBlock block : blocks) {
-            if (block.getStartAddress() == address && !block.isFree()) {
-                return freeId(block.getId());
+        BlockTable table = bitmap != null ? bitmap.getAllocations() : blocks;
+        for (int block = table.getHead(); block != NIL; block = table.getNext(block)) {
+            if (table.isFree(block)) {
+                continue;
+            }
+            if (toFile) {
+                file.putBytes(memory, table.getStartAddress(block), table.getSize(block));
+            } else {
+                file.getBytes(memory, table.getStartAddress(block), table.getSize(block));
             }
         }
+    }
 
-        System.out.println("Erro: Nenhum bloco alocado encontrado no endereço " + address);
-        return false;
+    /**
+     * Retorna uma cópia de todos os blocos da lista principal (livres e
+     * ocupados), em ordem de endereço. Páginas de slab e regiões aparecem
+     * como blocos ocupados de ID 0; no modo bitmap, cada trecho livre aparece como um
+     * bloco livre. As cópias não acompanham alterações posteriores.
+     *
+     * @return Blocos em ordem de endereço
+     */
+    public List<MemoryBlock> getBlocks() {
+        if (bitmap != null) {
+            return bitmap.views(0, totalSize);
+        }
+        List<MemoryBlock> views = new ArrayList<>(blocks.liveBlocks());
+        for (int block = blocks.getHead(); block != NIL; block = blocks.getNext(block)) {
+            views.add(blocks.view(block));
+        }
+        return views;
     }
 
     /**
-     * Realiza a coalescência (merge) de blocos livres adjacentes.
+     * Verifica a consistência das estruturas internas: lista encadeada,
+     * tabela de blocos, índices por endereço, por ID, de blocos livres, TLSF
+     * e de regiões, ponteiro do NEXT_FIT e contadores (no modo bitmap, o
+     * bitmap e os índices de alocações). Custa O(n log n); serve para testes de estresse.
      *
-     * @param index Índice do bloco que foi liberado
+     * @throws IllegalStateException Na primeira inconsistência encontrada
      */
-    private void coalesce(int index) {
-        // Tenta fazer merge com o bloco anterior
-        if (index > 0) {
-            MemoryBlock prev = blocks.get(index - 1);
-            MemoryBlock current = blocks.get(index);
+    public void checkInvariants() {
+        if (!initialized) {
+            return;
+        }
+        if (bitmap != null) {
+            bitmap.checkInvariants();
+            check(freeBytes == totalSize - bitmap.getUsedUnits() * bitmap.getUnitSize(),
+                  "contador de bytes livres: " + freeBytes + " no modo bitmap");
+            return;
+        }
+
+        long expectedAddress = 0;
+        long free = 0;
+        long largest = 0;
+        int holes = 0;
+        int count = 0;
+        int allocated = 0;
+        boolean roverFound = rover == NIL;
+        int prev = NIL;
 
-            if (prev.isFree() && current.isFree() &&
-                prev.getEndAddress() + 1 == current.getStartAddress()) {
-                // Merge com o anterior
-                prev.setSize(prev.getSize() + current.getSize());
-                prev.setUsedSize(prev.getSize());
-                blocks.remove(index);
-                index--;
+        for (int block = blocks.getHead(); block != NIL; block = blocks.getNext(block)) {
+            long start = blocks.getStartAddress(block);
+            check(start == expectedAddress, "bloco fora de ordem em @" + start);
+            check(blocks.getPrev(block) == prev, "ponteiro prev inconsistente em @" + start);
+            check(blocksByAddress.floor(start, 0) == block, "bloco @" + start + " ausente do índice por endereço");
+            if (blocks.isFree(block)) {
+                check(prev == NIL || !blocks.isFree(prev), "blocos livres adjacentes em @" + start);
+                check(freeBlocks == null || freeBlocks.contains(block), "bloco livre @" + start + " fora do índice");
+                free += blocks.getSize(block);
+                largest = Math.max(largest, blocks.getSize(block));
+                holes++;
+            } else if (blocks.getId(block) != 0) {
+                check(blocksById.get(blocks.getId(block)) == block,
+                      "bloco " + blocks.getId(block) + " ausente do índice por ID");
+                allocated++;
+            } else {
+                RegionAllocator.Region region = regions != null ? regions.regionAt(start) : null;
+                check((slabs != null && slabs.pageAt(start) != null) ||
+                      (region != null && region.getAddress() == start && region.getSize() == blocks.getSize(block)),
+                      "bloco ocupado sem ID em @" + start);
             }
+            roverFound |= block == rover;
+            expectedAddress += blocks.getSize(block);
+            count++;
+            prev = block;
         }
 
-        // Tenta fazer merge com o próximo
-        if (index < blocks.size() - 1) {
-            MemoryBlock current = blocks.get(index);
-            MemoryBlock next = blocks.get(index + 1);
-
-            if (current.isFree() && next.isFree() &&
-                current.getEndAddress() + 1 == next.getStartAddress()) {
-                // Merge com o próximo
-                current.setSize(current.getSize() + next.getSize());
-                current.setUsedSize(current.getSize());
-                blocks.remove(index + 1);
+        check(expectedAddress == totalSize, "blocos cobrem " + expectedAddress + " de " + totalSize + " bytes");
+        check(count == blocksByAddress.size(), "índice por endereço com blocos extras");
+        check(count == blocks.liveBlocks(), "tabela de blocos com índices perdidos");
+        check(allocated == blocksById.size(), "índice por ID com blocos extras");
+        check(holes == freeBlockCount, "contador de buracos: " + freeBlockCount + ", esperado " + holes);
+        check(freeBlocks == null || holes == freeBlocks.size(), "índice de blocos livres com blocos extras");
+        check(largest == getLargestFreeBlock(), "maior bloco livre: " + getLargestFreeBlock() + ", esperado " + largest);
+        check(free == freeBytes, "contador de bytes livres: " + freeBytes + ", esperado " + free);
+        check(roverFound, "ponteiro do NEXT_FIT fora da lista");
+        if (tlsfFreeLists != null) {
+            int[] listed = new int[1];
+            tlsfFreeLists.forEach(block -> {
+                check(blocks.isFree(block) && (freeBlocks == null || freeBlocks.contains(block)),
+                      "bloco @" + blocks.getStartAddress(block) + " no TLSF sem estar livre");
+                listed[0]++;
+            });
+            check(listed[0] == holes, "índice TLSF com " + listed[0] + " de " + holes + " blocos livres");
+        }
+        if (regions != null) {
+            for (RegionAllocator.Region region : regions.regions()) {
+                for (int i = 0; i < region.getCount(); i++) {
+                    int id = region.getId(i);
+                    long object = id != 0 ? regions.find(id) : NIL;
+                    check(id == 0 || (object != NIL && regions.regionOf(object) == region &&
+                                      RegionAllocator.indexOf(object) == i),
+                          "bloco " + id + " da região " + region.getName() + " fora do índice de regiões");
+                }
             }
         }
     }
 
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException("Invariante violada: " + message);
+        }
+    }
+
+    /**
+     * Exibe o estado atual da memória no console.
+     */
+    public void show() {
+        show(System.out);
+    }
+
     /**
      * Exibe o estado atual da memória em formato visual.
      * Linha 1: Uso físico (# para ocupado, . para livre)
      * Linha 2: IDs dos blocos
+     *
+     * O mapa é montado a partir da lista de blocos, um trecho por bloco
+     * (ou por slot, nas páginas de slab), sem ler a memória física.
+     * Memórias maiores que MAX_MAP_CELLS bytes são exibidas no modo
+     * ampliado (ver showZoomed), com DEFAULT_ZOOM_CELLS células.
+     *
+     * @param out Destino da saída
      */
-    public void show() {
-        if (memory == null) {
-            System.out.println("Erro: Memória não inicializada.");
+    public void show(PrintStream out) {
+        if (!initialized) {
+            out.println("Erro: Memória não inicializada.");
+            return;
+        }
+
+        if (totalSize > MAX_MAP_CELLS) {
+            long bytesPerCell = (totalSize + DEFAULT_ZOOM_CELLS - 1) / DEFAULT_ZOOM_CELLS;
+            showZoomed(out, bytesPerCell, 0, totalSize);
             return;
         }
 
-        System.out.println("\nMapa de Memória (" + totalSize + " bytes)");
-        System.out.println("------------------------------------------------------------");
+        out.println("\nMapa de Memória (" + totalSize + " bytes)");
+        printByteMap(out, 0, totalSize);
+        printActiveBlocks(out, 0, totalSize);
+    }
 
-        // Linha 1: Representação física
-        StringBuilder physicalLine = new StringBuilder("[");
-        for (int i = 0; i < totalSize; i++) {
-            physicalLine.append(memory[i] == 0 ? "." : "#");
+    /**
+     * Exibe o mapa byte a byte apenas do intervalo [from, to), com os blocos
+     * ativos que o intersectam. O custo é proporcional ao tamanho do
+     * intervalo, e não ao da memória.
+     *
+     * @param out Destino da saída
+     * @param from Endereço inicial (inclusivo)
+     * @param to Endereço final (exclusivo)
+     */
+    public void show(PrintStream out, long from, long to) {
+        if (!checkShowRange(out, from, to)) {
+            return;
+        }
+        if (to - from > MAX_MAP_CELLS) {
+            out.println("Erro: Intervalo maior que " + MAX_MAP_CELLS + " bytes. Use 'show zoom'.");
+            return;
         }
-        physicalLine.append("]");
-        System.out.println(physicalLine);
 
-        // Linha 2: IDs dos blocos
-        StringBuilder idLine = new StringBuilder("[");
-        for (int i = 0; i < totalSize; i++) {
-            if (memory[i] == 0) {
-                idLine.append(".");
-            } else {
-                idLine.append(memory[i] % 10); // Mostra apenas o último dígito do ID
+        out.println("\nMapa de Memória [" + from + ", " + to + ") de " + totalSize + " bytes");
+        printByteMap(out, from, to);
+        printActiveBlocks(out, from, to);
+    }
+
+    /**
+     * Exibe o intervalo [from, to) no modo ampliado: cada célula resume
+     * 'bytesPerCell' bytes como livre (.), parcialmente ocupada (+) ou cheia (#).
+     * O custo é proporcional ao número de células e de blocos do intervalo.
+     *
+     * @param out Destino da saída
+     * @param bytesPerCell Bytes resumidos por célula
+     * @param from Endereço inicial (inclusivo)
+     * @param to Endereço final (exclusivo)
+     */
+    public void showZoomed(PrintStream out, long bytesPerCell, long from, long to) {
+        if (!checkShowRange(out, from, to)) {
+            return;
+        }
+        if (bytesPerCell <= 0) {
+            out.println("Erro: Bytes por célula deve ser maior que 0.");
+            return;
+        }
+        long cells = (to - from + bytesPerCell - 1) / bytesPerCell;
+        if (cells > MAX_MAP_CELLS) {
+            out.println("Erro: O mapa teria " + cells + " células (máximo " + MAX_MAP_CELLS +
+                        "). Aumente os bytes por célula.");
+            return;
+        }
+
+        // Bytes ocupados em cada célula
+        long[] used = new long[(int) cells];
+        forEachRun(from, to, (start, length, id) -> {
+            if (id == 0) {
+                return;
+            }
+            long end = start + length;
+            while (start < end) {
+                int cell = (int) ((start - from) / bytesPerCell);
+                long cellEnd = Math.min(to, from + (cell + 1) * bytesPerCell);
+                long chunk = Math.min(end, cellEnd) - start;
+                used[cell] += chunk;
+                start += chunk;
+            }
+        });
+
+        StringBuilder line = new StringBuilder("[");
+        for (int cell = 0; cell < cells; cell++) {
+            long cellSize = Math.min(bytesPerCell, to - from - cell * bytesPerCell);
+            line.append(used[cell] == 0 ? '.' : used[cell] == cellSize ? '#' : '+');
+        }
+        line.append("]");
+
+        out.println("\nMapa de Memória [" + from + ", " + to + ") de " + totalSize + " bytes, " +
+                    bytesPerCell + " bytes por célula");
+        out.println("------------------------------------------------------------");
+        out.println(line);
+        out.println("------------------------------------------------------------");
+        out.println("Legenda: . livre | + parcial | # cheio");
+    }
+
+    /**
+     * Lista os blocos (livres e ocupados) que intersectam [from, to), um por
+     * linha, em ordem de endereço. O custo é proporcional ao número de
+     * blocos listados.
+     *
+     * @param out Destino da saída
+     * @param from Endereço inicial (inclusivo)
+     * @param to Endereço final (exclusivo)
+     */
+    public void showRuns(PrintStream out, long from, long to) {
+        if (!checkShowRange(out, from, to)) {
+            return;
+        }
+
+        out.println("\nBlocos em [" + from + ", " + to + ") de " + totalSize + " bytes");
+        out.println("------------------------------------------------------------");
+        int count = 0;
+        if (bitmap != null) {
+            for (MemoryBlock view : bitmap.views(from, to)) {
+                out.println("  " + view);
+                count++;
             }
         }
+        for (int block = bitmap != null ? NIL : blocksByAddress.floor(from, 0);
+             block != NIL && blocks.getStartAddress(block) < to; block = blocks.getNext(block)) {
+            out.println("  " + describe(block));
+            count++;
+        }
+        out.println("------------------------------------------------------------");
+        out.println("Total: " + count + " bloco(s)");
+    }
+
+    /**
+     * Valida o intervalo de um comando show.
+     *
+     * @return true se a memória está inicializada e 0 <= from < to <= totalSize
+     */
+    private boolean checkShowRange(PrintStream out, long from, long to) {
+        if (!initialized) {
+            out.println("Erro: Memória não inicializada.");
+            return false;
+        }
+        if (from < 0 || to > totalSize || from >= to) {
+            out.println("Erro: Intervalo inválido. Use 0 <= início < fim <= " + totalSize + ".");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Imprime as duas linhas do mapa byte a byte de [from, to).
+     */
+    private void printByteMap(PrintStream out, long from, long to) {
+        out.println("------------------------------------------------------------");
+
+        // Linha 1: Representação física / Linha 2: IDs dos blocos
+        StringBuilder physicalLine = new StringBuilder("[");
+        StringBuilder idLine = new StringBuilder("[");
+        forEachRun(from, to, (start, length, id) -> appendRun(physicalLine, idLine, id, length));
+        physicalLine.append("]");
         idLine.append("]");
-        System.out.println(idLine);
+        out.println(physicalLine);
+        out.println(idLine);
 
-        System.out.println("------------------------------------------------------------");
+        out.println("------------------------------------------------------------");
+    }
 
-        // Lista de blocos ativos
+    /**
+     * Imprime os blocos ativos que intersectam [from, to).
+     */
+    private void printActiveBlocks(PrintStream out, long from, long to) {
         StringBuilder activeBlocks = new StringBuilder("Blocos ativos: ");
         boolean hasActiveBlocks = false;
 
-        for (MemoryBlock block : blocks) {
-            if (!block.isFree()) {
+        if (bitmap != null) {
+            for (MemoryBlock view : bitmap.views(from, to)) {
+                if (!view.isFree()) {
+                    activeBlocks.append(hasActiveBlocks ? " | " : "").append(view);
+                    hasActiveBlocks = true;
+                }
+            }
+        }
+
+        for (int block = bitmap != null ? NIL : blocksByAddress.floor(from, 0);
+             block != NIL && blocks.getStartAddress(block) < to; block = blocks.getNext(block)) {
+            if (!blocks.isFree(block)) {
                 if (hasActiveBlocks) {
                     activeBlocks.append(" | ");
                 }
-                activeBlocks.append(block.toString());
+                activeBlocks.append(describe(block));
                 hasActiveBlocks = true;
             }
         }
@@ -319,41 +2742,174 @@ public class MemoryManager {
             activeBlocks.append("Nenhum");
         }
 
-        System.out.println(activeBlocks);
+        out.println(activeBlocks);
     }
 
     /**
-     * Calcula e exibe estatísticas de uso da memória.
-     * Inclui fragmentação interna e externa.
+     * Descrição de um bloco da lista principal; páginas de slab aparecem com
+     * a classe e a ocupação, e regiões com o nome e o uso.
+     */
+    private String describe(int block) {
+        RegionAllocator.Region region = !blocks.isFree(block) && regions != null
+            ? regions.regionAt(blocks.getStartAddress(block)) : null;
+        if (region != null) {
+            return String.format("[região %s] @%d +%dB (%d bloco(s), %dB vivos, %dB livres)",
+                region.getName(), region.getAddress(), region.getSize(),
+                region.getLive(), region.getLiveBytes(), region.remaining());
+        }
+        SlabAllocator.SlabPage page = !blocks.isFree(block) && slabs != null
+            ? slabs.pageAt(blocks.getStartAddress(block)) : null;
+        if (page == null) {
+            return blocks.view(block).toString();
+        }
+        return String.format("[slab %dB] @%d +%dB (%d/%d objetos)",
+            page.getSlabClass().getObjectSize(), page.getAddress(), page.getSize(),
+            page.usedSlots(), page.totalSlots());
+    }
+
+    /**
+     * Percorre, em ordem de endereço, os trechos de mesmo dono que
+     * intersectam [from, to): um por bloco, ou um por slot nas páginas de
+     * slab (a sobra da página conta como livre). Nas regiões, cada bloco
+     * vivo é um trecho, e o espaço liberado e o acima do topo contam como
+     * livres. A busca do primeiro bloco é
+     * binária; o custo total é proporcional ao número de trechos visitados.
+     * No modo bitmap, os trechos são as alocações e os buracos entre elas.
+     */
+    private void forEachRun(long from, long to, RunVisitor visitor) {
+        if (bitmap != null) {
+            for (MemoryBlock view : bitmap.views(from, to)) {
+                visitClipped(visitor, view.getStartAddress(), view.getSize(), view.getId(), from, to);
+            }
+            return;
+        }
+        for (int block = blocksByAddress.floor(from, 0);
+             block != NIL && blocks.getStartAddress(block) < to; block = blocks.getNext(block)) {
+            long start = blocks.getStartAddress(block);
+            RegionAllocator.Region region = !blocks.isFree(block) && regions != null ? regions.regionAt(start) : null;
+            if (region != null) {
+                long covered = start;
+                for (int i = 0; i < region.getCount(); i++) {
+                    int id = region.getId(i);
+                    if (id != 0) {
+                        visitClipped(visitor, covered, region.getStart(i) - covered, 0, from, to);
+                        visitClipped(visitor, region.getStart(i), region.getObjectSize(i), id, from, to);
+                        covered = region.getStart(i) + region.getObjectSize(i);
+                    }
+                }
+                visitClipped(visitor, covered, blocks.getEnd(block) - covered, 0, from, to);
+                continue;
+            }
+            SlabAllocator.SlabPage page = !blocks.isFree(block) && slabs != null ? slabs.pageAt(start) : null;
+            if (page == null) {
+                visitClipped(visitor, start, blocks.getSize(block), blocks.getId(block), from, to);
+                continue;
+            }
+            long covered = start;
+            int slotSize = page.getSlabClass().getObjectSize();
+            for (int i = 0; i < page.totalSlots(); i++) {
+                visitClipped(visitor, page.getSlotStart(i), slotSize, page.getId(i), from, to);
+                covered = page.getSlotStart(i) + slotSize;
+            }
+            visitClipped(visitor, covered, blocks.getEnd(block) - covered, 0, from, to);
+        }
+    }
+
+    private static void visitClipped(RunVisitor visitor, long start, long length, int id, long from, long to) {
+        long clippedStart = Math.max(start, from);
+        long clippedEnd = Math.min(start + length, to);
+        if (clippedStart < clippedEnd) {
+            visitor.visit(clippedStart, clippedEnd - clippedStart, id);
+        }
+    }
+
+    /**
+     * Acrescenta ao mapa 'length' posições de um mesmo dono.
+     */
+    private static void appendRun(StringBuilder physicalLine, StringBuilder idLine, int id, long length) {
+        char physical = id == 0 ? '.' : '#';
+        char digit = id == 0 ? '.' : (char) ('0' + id % 10); // Mostra apenas o último dígito do ID
+        for (long i = 0; i < length; i++) {
+            physicalLine.append(physical);
+            idLine.append(digit);
+        }
+    }
+
+    /**
+     * Calcula e exibe as estatísticas de uso no console.
      */
     public void stats() {
-        if (memory == null) {
-            System.out.println("Erro: Memória não inicializada.");
+        stats(System.out);
+    }
+
+    /**
+     * Exibe estatísticas de uso da memória a partir de snapshot(), em O(1).
+     * Inclui fragmentação interna e externa.
+     *
+     * @param out Destino da saída
+     */
+    public void stats(PrintStream out) {
+        if (!initialized) {
+            out.println("Erro: Memória não inicializada.");
             return;
         }
 
-        int usedSpace = 0;
-        int freeSpace = 0;
-        int internalFragmentation = 0;
-        int freeBlocks = 0; // Número de "buracos" (fragmentação externa)
+        MemoryStats stats = snapshot();
 
-        for (MemoryBlock block : blocks) {
-            if (block.isFree()) {
-                freeSpace += block.getSize();
-                freeBlocks++;
-            } else {
-                usedSpace += block.getSize();
-                internalFragmentation += block.getInternalFragmentation();
+        out.println("\n== Estatísticas ==");
+        out.println("Tamanho total: " + totalSize + " bytes");
+        out.println("Ocupado: " + stats.getUsedBytes() + " bytes | Livre: " + stats.getFreeBytes() + " bytes");
+        out.println("Buracos (fragmentação externa): " + stats.getHoles());
+        out.println("Fragmentação interna: " + stats.getInternalFragmentation() + " bytes");
+        out.printf("Uso efetivo: %.2f%%\n", stats.getUsagePercentage());
+        out.printf("Maior bloco livre: %d bytes | Fragmentação externa: %.2f%%%n",
+            stats.getLargestFreeBlock(), stats.getExternalFragmentation() * 100);
+        out.println("Pico de uso: " + stats.getPeakUsedBytes() + " bytes | Alocações: " + stats.getAllocations() +
+                    " | Liberações: " + stats.getFrees() + " | Falhas de alocação: " + stats.getFailedAllocations());
+
+        if (memory instanceof SparseBackingStore) {
+            SparseBackingStore sparse = (SparseBackingStore) memory;
+            out.printf("Páginas residentes: %d de %d (%.2f%%, páginas de %d bytes)%n",
+                sparse.getResidentPages(), sparse.getPageCount(),
+                (sparse.getResidentPages() * 100.0) / sparse.getPageCount(), SparseBackingStore.PAGE_SIZE);
+        }
+
+        StringBuilder searchCost = new StringBuilder();
+        for (FitAlgorithm algorithm : FitAlgorithm.values()) {
+            if (searches[algorithm.ordinal()] > 0) {
+                searchCost.append(searchCost.length() == 0 ? "" : " | ")
+                          .append(algorithm)
+                          .append(String.format("=%.2f", getAverageBlocksExamined(algorithm)));
             }
         }
+        if (searchCost.length() > 0) {
+            out.println("Blocos examinados por alocação: " + searchCost);
+        }
+
+        if (bitmap != null) {
+            out.printf("Bitmap: unidades de %d bytes | %d de %d unidades ocupadas%n",
+                bitmap.getUnitSize(), bitmap.getUsedUnits(), bitmap.getUnits());
+        }
 
-        double usagePercentage = (usedSpace * 100.0) / totalSize;
+        if (slabs != null) {
+            out.println("Slabs (páginas de " + slabs.getPageSize() + " bytes):");
+            for (SlabAllocator.SlabClass slabClass : slabs.getClasses()) {
+                double occupancy = slabClass.getCapacity() == 0
+                    ? 0.0 : (slabClass.getUsed() * 100.0) / slabClass.getCapacity();
+                out.printf("  %dB: %d/%d objetos (%.2f%%) em %d página(s) | fragmentação interna: %d bytes%n",
+                    slabClass.getObjectSize(), slabClass.getUsed(), slabClass.getCapacity(), occupancy,
+                    slabClass.getPages(), slabClass.getInternalFragmentation());
+            }
+        }
 
-        System.out.println("\n== Estatísticas ==");
-        System.out.println("Tamanho total: " + totalSize + " bytes");
-        System.out.println("Ocupado: " + usedSpace + " bytes | Livre: " + freeSpace + " bytes");
-        System.out.println("Buracos (fragmentação externa): " + freeBlocks);
-        System.out.println("Fragmentação interna: " + internalFragmentation + " bytes");
-        System.out.printf("Uso efetivo: %.2f%%\n", usagePercentage);
+        if (regions != null) {
+            out.println("Regiões:");
+            for (RegionAllocator.Region region : regions.regions()) {
+                out.printf("  %s: @%d +%d bytes | %d bloco(s), %d bytes vivos | topo em %d (%.2f%%) | %d bytes livres%n",
+                    region.getName(), region.getAddress(), region.getSize(), region.getLive(),
+                    region.getLiveBytes(), region.getTop(), (region.getTop() * 100.0) / region.getSize(),
+                    region.remaining());
+            }
+        }
     }
 }
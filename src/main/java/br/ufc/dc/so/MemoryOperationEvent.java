@@ -0,0 +1,53 @@
+package br.ufc.dc.so;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Evento do JDK Flight Recorder publicado a cada alloc, realloc, freeid,
+ * freeaddr, allocbatch, freebatch e operação de região enquanto as métricas
+ * do MemoryManager estão ativas.
+ *
+ * Decisões de implementação:
+ * - É um evento instantâneo: a latência vem do mesmo System.nanoTime usado
+ *   nos histogramas, em vez de um segundo par begin/end
+ * - Sem stack trace, para que a gravação custe só a cópia dos campos
+ * - Quando nenhuma gravação está ativa, isEnabled() é falso e o objeto do
+ *   evento é eliminado pela análise de escape do JIT
+ */
+@Name("br.ufc.dc.so.MemoryOperation")
+@Label("Operação de memória")
+@Category("Simulador de Memória")
+@Description("Operação do MemoryManager com latência e blocos examinados")
+@StackTrace(false)
+class MemoryOperationEvent extends Event {
+    @Label("Operação")
+    String operation;
+
+    @Label("Algoritmo")
+    String algorithm;
+
+    @Label("ID")
+    int id;
+
+    @Label("Tamanho")
+    @DataAmount
+    long size;
+
+    @Label("Latência")
+    @Timespan(Timespan.NANOSECONDS)
+    long latency;
+
+    @Label("Blocos examinados")
+    @Description("Blocos percorridos pela busca linear (-1 se não houve busca linear)")
+    int blocksExamined;
+
+    @Label("Sucesso")
+    boolean success;
+}
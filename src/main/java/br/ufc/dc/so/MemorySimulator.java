@@ -1,99 +1,292 @@
 package br.ufc.dc.so;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Console;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Scanner;
 
 /**
  * Classe principal que implementa a interface CLI do simulador.
  *
  * Comandos disponíveis:
- * - init <tamanho>: Inicializa a memória
- * - alloc <tamanho> <algoritmo>: Aloca memória (algoritmo: first, best, worst)
+ * - init <tamanho> [none|heap|offheap|sparse]: Inicializa a memória
+ * - alloc <tamanho> <algoritmo>: Aloca memória (algoritmos: FitAlgorithm.cliNames())
+ * - realloc <id> <tamanho> [algoritmo]: Altera o tamanho de um bloco (no lugar, se possível)
  * - freeid <id>: Libera bloco pelo ID
  * - freeaddr <endereco>: Libera bloco pelo endereço
- * - show: Exibe mapa da memória
+ * - allocbatch <algoritmo> <tamanho>...: Aloca um grupo de blocos com uma única busca
+ * - freebatch <id>...: Libera um grupo de blocos, coalescendo os vizinhos de uma vez
+ * - region create|alloc|reset|free: Regiões (arenas) com alocação por bump
+ * - show [<início> <fim>] | show zoom <bytes> [<início> <fim>] | show runs [<início> <fim>]:
+ *   Exibe mapa da memória (inteiro, por intervalo, ampliado ou como lista de blocos)
  * - stats: Exibe estatísticas
+ * - metrics [on|off|reset]: Exibe / liga / desliga / zera as métricas de latência e busca
+ * - slab <página> <classe>... | slab off: Ativa/desativa a camada de slabs
+ * - bitmap <unidade> | bitmap off: Ativa/desativa o modo bitmap
+ * - compact | compact auto on|off: Compacta a memória / liga a compactação automática
+ * - save <arquivo> / load <arquivo>: Grava / restaura um snapshot da memória
+ * - gen <arquivo> <ops> <distribuição> <min> <max> [razão] [vida] [seed]: Gera um trace sintético
+ * - replay <arquivo> <tamanho> <algoritmo> [intervalo]: Reproduz um trace em uma memória nova
+ * - compare <arquivo>... <tamanho>: Reproduz traces com todos os algoritmos em paralelo
  * - help: Mostra ajuda
  * - exit: Sai do programa
+ *
+ * Modos de execução (ver main):
+ * - Interativo: prompt "> " e uma linha em branco após cada comando
+ * - Batch: lê um script (arquivo ou stdin redirecionado) com leitura
+ *   bufferizada, sem prompts, escrevendo toda a saída em um único buffer
+ * - Batch silencioso (--quiet): imprime apenas as estatísticas finais
+ *
+ * O simulador é um MemoryListener do MemoryManager: as mensagens de cada
+ * operação são impressas a partir dos eventos publicados pelo gerenciador.
  */
-public class MemorySimulator {
+public final class MemorySimulator implements MemoryListener {
+    /**
+     * Entradas da tabela de realocação exibidas pelo comando 'compact'.
+     */
+    private static final int MAX_RELOCATIONS_SHOWN = 20;
+
     private MemoryManager memoryManager;
-    private Scanner scanner;
+    private PrintStream out;
+    private PrintStream finalOut;
+    private boolean quiet;
 
     public MemorySimulator() {
+        this(System.out, false);
+    }
+
+    /**
+     * Cria um simulador que escreve em 'out'.
+     *
+     * @param out Destino das mensagens
+     * @param quiet Se true, nenhuma mensagem por comando é montada ou impressa
+     *              e 'show'/'stats' são ignorados; apenas as estatísticas
+     *              finais do modo batch são escritas em 'out'
+     */
+    public MemorySimulator(PrintStream out, boolean quiet) {
         this.memoryManager = new MemoryManager();
-        this.scanner = new Scanner(System.in);
+        this.quiet = quiet;
+        this.finalOut = out;
+        if (quiet) {
+            this.out = new PrintStream(OutputStream.nullOutputStream());
+        } else {
+            this.out = out;
+            this.memoryManager.addListener(this);
+        }
     }
 
     /**
-     * Inicia o loop principal da CLI.
+     * Inicia o loop principal da CLI interativa.
      */
     public void start() {
-        System.out.println("========================================");
-        System.out.println("  Simulador de Alocação de Memória");
-        System.out.println("  Sistemas Operacionais - UFC");
-        System.out.println("========================================");
-        System.out.println("Digite 'help' para ver os comandos disponíveis.\n");
+        out.println("========================================");
+        out.println("  Simulador de Alocação de Memória");
+        out.println("  Sistemas Operacionais - UFC");
+        out.println("========================================");
+        out.println("Digite 'help' para ver os comandos disponíveis.\n");
 
+        Scanner scanner = new Scanner(System.in);
         boolean running = true;
 
         while (running) {
-            System.out.print("> ");
-            String input = scanner.nextLine().trim();
+            out.print("> ");
+            if (!scanner.hasNextLine()) {
+                break;
+            }
 
-            if (input.isEmpty()) {
+            String[] tokens = tokenize(scanner.nextLine());
+            if (tokens.length == 0) {
                 continue;
             }
 
-            String[] tokens = input.split("\\s+");
-            String command = tokens[0].toLowerCase();
+            running = execute(tokens);
+            out.println();
+        }
 
-            try {
-                switch (command) {
-                    case "init":
-                        handleInit(tokens);
-                        break;
-
-                    case "alloc":
-                        handleAlloc(tokens);
-                        break;
-
-                    case "freeid":
-                        handleFreeId(tokens);
-                        break;
-
-                    case "freeaddr":
-                        handleFreeAddr(tokens);
-                        break;
-
-                    case "show":
-                        memoryManager.show();
-                        break;
-
-                    case "stats":
-                        memoryManager.stats();
-                        break;
-
-                    case "help":
-                        showHelp();
-                        break;
-
-                    case "exit":
-                    case "quit":
-                        running = false;
-                        System.out.println("Encerrando simulador...");
-                        break;
-
-                    default:
-                        System.out.println("Comando desconhecido: '" + command + "'. Digite 'help' para ajuda.");
+        scanner.close();
+    }
+
+    /**
+     * Executa um script de comandos (modo batch), sem prompt e sem linhas em
+     * branco entre comandos. A saída deve ser um stream com buffer; ela é
+     * descarregada ao final, mesmo que um comando lance uma exceção ou um
+     * erro não tratado, para que a saída dos comandos anteriores não se perca.
+     *
+     * @param in Script de comandos, um por linha
+     */
+    public void runBatch(BufferedReader in) throws IOException {
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] tokens = tokenize(line);
+                if (tokens.length == 0) {
+                    continue;
+                }
+                if (!execute(tokens)) {
+                    break;
                 }
-            } catch (Exception e) {
-                System.out.println("Erro ao executar comando: " + e.getMessage());
             }
 
-            System.out.println();
+            if (quiet) {
+                memoryManager.stats(finalOut);
+            }
+        } finally {
+            finalOut.flush();
         }
+    }
 
-        scanner.close();
+    /**
+     * Executa um comando já separado em tokens.
+     *
+     * @return false se o comando encerra o simulador
+     */
+    private boolean execute(String[] tokens) {
+        String command = tokens[0].toLowerCase();
+
+        try {
+            switch (command) {
+                case "init":
+                    handleInit(tokens);
+                    break;
+
+                case "alloc":
+                    handleAlloc(tokens);
+                    break;
+
+                case "realloc":
+                    handleRealloc(tokens);
+                    break;
+
+                case "freeid":
+                    handleFreeId(tokens);
+                    break;
+
+                case "freeaddr":
+                    handleFreeAddr(tokens);
+                    break;
+
+                case "allocbatch":
+                    handleAllocBatch(tokens);
+                    break;
+
+                case "freebatch":
+                    handleFreeBatch(tokens);
+                    break;
+
+                case "region":
+                    handleRegion(tokens);
+                    break;
+
+                case "show":
+                    if (!quiet) {
+                        handleShow(tokens);
+                    }
+                    break;
+
+                case "stats":
+                    if (!quiet) {
+                        memoryManager.stats(out);
+                    }
+                    break;
+
+                case "metrics":
+                    handleMetrics(tokens);
+                    break;
+
+                case "slab":
+                    handleSlab(tokens);
+                    break;
+
+                case "bitmap":
+                    handleBitmap(tokens);
+                    break;
+
+                case "compact":
+                    handleCompact(tokens);
+                    break;
+
+                case "save":
+                    handleSave(tokens);
+                    break;
+
+                case "load":
+                    handleLoad(tokens);
+                    break;
+
+                case "gen":
+                    handleGen(tokens);
+                    break;
+
+                case "replay":
+                    handleReplay(tokens);
+                    break;
+
+                case "compare":
+                    handleCompare(tokens);
+                    break;
+
+                case "help":
+                    showHelp();
+                    break;
+
+                case "exit":
+                case "quit":
+                    out.println("Encerrando simulador...");
+                    return false;
+
+                default:
+                    out.println("Comando desconhecido: '" + command + "'. Digite 'help' para ajuda.");
+            }
+        } catch (Exception e) {
+            out.println("Erro ao executar comando: " + e.getMessage());
+        }
+
+        return true;
+    }
+
+    /**
+     * Separa uma linha em tokens delimitados por espaços, sem usar regex.
+     *
+     * @return Tokens da linha (vazio para linhas em branco)
+     */
+    static String[] tokenize(String line) {
+        String[] tokens = new String[4];
+        int count = 0;
+        int length = line.length();
+        int pos = 0;
+
+        while (pos < length) {
+            while (pos < length && Character.isWhitespace(line.charAt(pos))) {
+                pos++;
+            }
+            if (pos == length) {
+                break;
+            }
+            int start = pos;
+            while (pos < length && !Character.isWhitespace(line.charAt(pos))) {
+                pos++;
+            }
+            if (count == tokens.length) {
+                tokens = Arrays.copyOf(tokens, count * 2);
+            }
+            tokens[count++] = line.substring(start, pos);
+        }
+
+        return count == tokens.length ? tokens : Arrays.copyOf(tokens, count);
     }
 
     /**
@@ -101,15 +294,28 @@ public class MemorySimulator {
      */
     private void handleInit(String[] tokens) {
         if (tokens.length < 2) {
-            System.out.println("Uso: init <tamanho>");
+            out.println("Uso: init <tamanho> [none|heap|offheap|sparse]");
             return;
         }
 
         try {
-            int size = Integer.parseInt(tokens[1]);
-            memoryManager.init(size);
+            long size = Long.parseLong(tokens[1]);
+            BackingMode mode = BackingMode.NONE;
+            if (tokens.length > 2) {
+                mode = BackingMode.fromCliName(tokens[2]);
+                if (mode == null) {
+                    out.println("Modo inválido. Use: none, heap, offheap ou sparse");
+                    return;
+                }
+            }
+            memoryManager.init(size, mode);
         } catch (NumberFormatException e) {
-            System.out.println("Erro: Tamanho deve ser um número inteiro.");
+            out.println("Erro: Tamanho deve ser um número inteiro.");
+        } catch (IllegalArgumentException e) {
+            out.println("Erro: " + e.getMessage());
+        } catch (OutOfMemoryError e) {
+            out.println("Erro: Memória insuficiente para " + tokens[1] + " bytes" +
+                        " (ajuste -Xmx ou -XX:MaxDirectMemorySize).");
         }
     }
 
@@ -118,34 +324,52 @@ public class MemorySimulator {
      */
     private void handleAlloc(String[] tokens) {
         if (tokens.length < 3) {
-            System.out.println("Uso: alloc <tamanho> <algoritmo>");
-            System.out.println("Algoritmos: first, best, worst");
+            out.println("Uso: alloc <tamanho> <algoritmo>");
+            out.println("Algoritmos: " + FitAlgorithm.cliNames());
             return;
         }
 
         try {
-            int size = Integer.parseInt(tokens[1]);
+            long size = Long.parseLong(tokens[1]);
             String algStr = tokens[2].toLowerCase();
 
-            FitAlgorithm algorithm;
-            switch (algStr) {
-                case "first":
-                    algorithm = FitAlgorithm.FIRST_FIT;
-                    break;
-                case "best":
-                    algorithm = FitAlgorithm.BEST_FIT;
-                    break;
-                case "worst":
-                    algorithm = FitAlgorithm.WORST_FIT;
-                    break;
-                default:
-                    System.out.println("Algoritmo inválido. Use: first, best ou worst");
-                    return;
+            FitAlgorithm algorithm = FitAlgorithm.fromCliName(algStr);
+            if (algorithm == null) {
+                out.println("Algoritmo inválido. Use: " + FitAlgorithm.cliNames());
+                return;
             }
 
             memoryManager.alloc(size, algorithm);
         } catch (NumberFormatException e) {
-            System.out.println("Erro: Tamanho deve ser um número inteiro.");
+            out.println("Erro: Tamanho deve ser um número inteiro.");
+        }
+    }
+
+    /**
+     * Processa o comando 'realloc'. Sem algoritmo, um eventual movimento do
+     * bloco usa FIRST_FIT.
+     */
+    private void handleRealloc(String[] tokens) {
+        if (tokens.length < 3) {
+            out.println("Uso: realloc <id> <tamanho> [algoritmo]");
+            return;
+        }
+
+        try {
+            int id = Integer.parseInt(tokens[1]);
+            long size = Long.parseLong(tokens[2]);
+            FitAlgorithm algorithm = FitAlgorithm.FIRST_FIT;
+            if (tokens.length > 3) {
+                algorithm = FitAlgorithm.fromCliName(tokens[3]);
+                if (algorithm == null) {
+                    out.println("Algoritmo inválido. Use: " + FitAlgorithm.cliNames());
+                    return;
+                }
+            }
+
+            memoryManager.realloc(id, size, algorithm);
+        } catch (NumberFormatException e) {
+            out.println("Erro: ID e tamanho devem ser números inteiros.");
         }
     }
 
@@ -154,7 +378,7 @@ public class MemorySimulator {
      */
     private void handleFreeId(String[] tokens) {
         if (tokens.length < 2) {
-            System.out.println("Uso: freeid <id>");
+            out.println("Uso: freeid <id>");
             return;
         }
 
@@ -162,7 +386,7 @@ public class MemorySimulator {
             int id = Integer.parseInt(tokens[1]);
             memoryManager.freeId(id);
         } catch (NumberFormatException e) {
-            System.out.println("Erro: ID deve ser um número inteiro.");
+            out.println("Erro: ID deve ser um número inteiro.");
         }
     }
 
@@ -171,15 +395,647 @@ public class MemorySimulator {
      */
     private void handleFreeAddr(String[] tokens) {
         if (tokens.length < 2) {
-            System.out.println("Uso: freeaddr <endereco>");
+            out.println("Uso: freeaddr <endereco>");
             return;
         }
 
         try {
-            int address = Integer.parseInt(tokens[1]);
+            long address = Long.parseLong(tokens[1]);
             memoryManager.freeAddr(address);
         } catch (NumberFormatException e) {
-            System.out.println("Erro: Endereço deve ser um número inteiro.");
+            out.println("Erro: Endereço deve ser um número inteiro.");
+        }
+    }
+
+    /**
+     * Processa o comando 'allocbatch'.
+     */
+    private void handleAllocBatch(String[] tokens) {
+        if (tokens.length < 3) {
+            out.println("Uso: allocbatch <algoritmo> <tamanho> [<tamanho>...]");
+            return;
+        }
+
+        FitAlgorithm algorithm = FitAlgorithm.fromCliName(tokens[1]);
+        if (algorithm == null) {
+            out.println("Algoritmo inválido. Use: " + FitAlgorithm.cliNames());
+            return;
+        }
+        try {
+            int[] sizes = new int[tokens.length - 2];
+            for (int i = 0; i < sizes.length; i++) {
+                sizes[i] = Integer.parseInt(tokens[i + 2]);
+            }
+            int allocated = 0;
+            for (long result : memoryManager.allocBatch(sizes, algorithm)) {
+                if (Result.isOk(result)) {
+                    allocated++;
+                }
+            }
+            out.println("Lote: " + allocated + " de " + sizes.length + " bloco(s) alocado(s).");
+        } catch (NumberFormatException e) {
+            out.println("Erro: Tamanhos devem ser números inteiros.");
+        }
+    }
+
+    /**
+     * Processa o comando 'freebatch'.
+     */
+    private void handleFreeBatch(String[] tokens) {
+        if (tokens.length < 2) {
+            out.println("Uso: freebatch <id> [<id>...]");
+            return;
+        }
+
+        try {
+            int[] ids = new int[tokens.length - 1];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = Integer.parseInt(tokens[i + 1]);
+            }
+            int freed = memoryManager.freeBatch(ids);
+            out.println("Lote: " + freed + " de " + ids.length + " bloco(s) liberado(s).");
+        } catch (NumberFormatException e) {
+            out.println("Erro: IDs devem ser números inteiros.");
+        }
+    }
+
+    /**
+     * Processa o comando 'region'.
+     */
+    private void handleRegion(String[] tokens) {
+        String usage = "Uso: region create <nome> <tamanho> [algoritmo] | region alloc <nome> <tamanho> | " +
+                       "region reset <nome> | region free <nome>";
+        if (tokens.length < 3) {
+            out.println(usage);
+            return;
+        }
+
+        String name = tokens[2];
+        try {
+            switch (tokens[1].toLowerCase()) {
+                case "create":
+                    if (tokens.length < 4) {
+                        out.println(usage);
+                        return;
+                    }
+                    long size = Long.parseLong(tokens[3]);
+                    FitAlgorithm algorithm = tokens.length > 4
+                        ? FitAlgorithm.fromCliName(tokens[4]) : FitAlgorithm.FIRST_FIT;
+                    if (algorithm == null) {
+                        out.println("Algoritmo inválido. Use: " + FitAlgorithm.cliNames());
+                        return;
+                    }
+                    long address = memoryManager.createRegion(name, size, algorithm);
+                    if (address >= 0) {
+                        out.println("Região " + name + " criada: " + size + " bytes em @" + address + ".");
+                    }
+                    break;
+
+                case "alloc":
+                    if (tokens.length < 4) {
+                        out.println(usage);
+                        return;
+                    }
+                    memoryManager.allocIn(name, Long.parseLong(tokens[3]));
+                    break;
+
+                case "reset":
+                    out.println("Região " + name + " reiniciada: " + memoryManager.resetRegion(name) +
+                                " bloco(s) liberado(s).");
+                    break;
+
+                case "free":
+                    out.println("Região " + name + " liberada: " + memoryManager.freeRegion(name) +
+                                " bloco(s) liberado(s).");
+                    break;
+
+                default:
+                    out.println(usage);
+            }
+        } catch (NumberFormatException e) {
+            out.println("Erro: Tamanho deve ser um número inteiro.");
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            out.println("Erro: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Processa o comando 'show'.
+     */
+    private void handleShow(String[] tokens) {
+        if (tokens.length == 1) {
+            memoryManager.show(out);
+            return;
+        }
+
+        try {
+            String mode = tokens[1].toLowerCase();
+            if (mode.equals("zoom")) {
+                if (tokens.length != 3 && tokens.length != 5) {
+                    out.println("Uso: show zoom <bytes-por-célula> [<início> <fim>]");
+                    return;
+                }
+                long bytesPerCell = Long.parseLong(tokens[2]);
+                long from = tokens.length == 5 ? Long.parseLong(tokens[3]) : 0;
+                long to = tokens.length == 5 ? Long.parseLong(tokens[4]) : memoryManager.getTotalSize();
+                memoryManager.showZoomed(out, bytesPerCell, from, to);
+            } else if (mode.equals("runs")) {
+                if (tokens.length != 2 && tokens.length != 4) {
+                    out.println("Uso: show runs [<início> <fim>]");
+                    return;
+                }
+                long from = tokens.length == 4 ? Long.parseLong(tokens[2]) : 0;
+                long to = tokens.length == 4 ? Long.parseLong(tokens[3]) : memoryManager.getTotalSize();
+                memoryManager.showRuns(out, from, to);
+            } else if (tokens.length == 3) {
+                memoryManager.show(out, Long.parseLong(tokens[1]), Long.parseLong(tokens[2]));
+            } else {
+                out.println("Uso: show [<início> <fim>] | show zoom <bytes> [<início> <fim>] | show runs [<início> <fim>]");
+            }
+        } catch (NumberFormatException e) {
+            out.println("Erro: Endereços e tamanhos devem ser números inteiros.");
+        }
+    }
+
+    /**
+     * Processa o comando 'metrics'.
+     */
+    private void handleMetrics(String[] tokens) {
+        if (tokens.length == 1) {
+            if (!quiet) {
+                printMetrics(memoryManager.getMetrics());
+            }
+            return;
+        }
+        switch (tokens.length == 2 ? tokens[1].toLowerCase() : "") {
+            case "on":
+                memoryManager.enableMetrics();
+                out.println("Métricas ativadas.");
+                break;
+            case "off":
+                memoryManager.disableMetrics();
+                out.println("Métricas desativadas.");
+                break;
+            case "reset":
+                if (memoryManager.getMetrics() == null) {
+                    out.println("Erro: Métricas desativadas. Use 'metrics on'.");
+                } else {
+                    memoryManager.getMetrics().reset();
+                    out.println("Métricas zeradas.");
+                }
+                break;
+            default:
+                out.println("Uso: metrics [on|off|reset]");
+        }
+    }
+
+    /**
+     * Processa o comando 'slab'.
+     */
+    private void handleSlab(String[] tokens) {
+        if (tokens.length == 2 && tokens[1].equalsIgnoreCase("off")) {
+            try {
+                memoryManager.disableSlabs();
+                out.println("Slabs desativados.");
+            } catch (IllegalStateException e) {
+                out.println("Erro: " + e.getMessage());
+            }
+            return;
+        }
+
+        if (tokens.length < 3) {
+            out.println("Uso: slab <tamanho-página> <classe1> [classe2 ...] | slab off");
+            return;
+        }
+
+        try {
+            int pageSize = Integer.parseInt(tokens[1]);
+            int[] classSizes = new int[tokens.length - 2];
+            for (int i = 2; i < tokens.length; i++) {
+                classSizes[i - 2] = Integer.parseInt(tokens[i]);
+            }
+            memoryManager.enableSlabs(classSizes, pageSize);
+            out.println("Slabs ativados: classes " + Arrays.toString(classSizes) +
+                        " em páginas de " + pageSize + " bytes.");
+        } catch (NumberFormatException e) {
+            out.println("Erro: Tamanhos devem ser números inteiros.");
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            out.println("Erro: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Processa o comando 'bitmap'.
+     */
+    private void handleBitmap(String[] tokens) {
+        if (tokens.length != 2) {
+            out.println("Uso: bitmap <tamanho-unidade> | bitmap off");
+            return;
+        }
+
+        try {
+            if (tokens[1].equalsIgnoreCase("off")) {
+                memoryManager.disableBitmap();
+                out.println("Bitmap desativado.");
+                return;
+            }
+            int unitSize = Integer.parseInt(tokens[1]);
+            memoryManager.enableBitmap(unitSize);
+            out.println("Bitmap ativado: unidades de " + unitSize + " bytes.");
+        } catch (NumberFormatException e) {
+            out.println("Erro: Tamanho da unidade deve ser um número inteiro.");
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            out.println("Erro: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Processa o comando 'compact'.
+     * Exibe até MAX_RELOCATIONS_SHOWN entradas da tabela de realocação.
+     */
+    private void handleCompact(String[] tokens) {
+        if (tokens.length == 3 && tokens[1].equalsIgnoreCase("auto")) {
+            String value = tokens[2].toLowerCase();
+            if (!value.equals("on") && !value.equals("off")) {
+                out.println("Uso: compact auto on|off");
+                return;
+            }
+            memoryManager.setAutoCompact(value.equals("on"));
+            out.println("Compactação automática " + (memoryManager.isAutoCompact() ? "ativada." : "desativada."));
+            return;
+        }
+        if (tokens.length != 1) {
+            out.println("Uso: compact | compact auto on|off");
+            return;
+        }
+
+        try {
+            List<Relocation> relocations = memoryManager.compact();
+            int shown = Math.min(relocations.size(), MAX_RELOCATIONS_SHOWN);
+            for (int i = 0; i < shown; i++) {
+                Relocation relocation = relocations.get(i);
+                out.println("  Bloco " + relocation.getId() + ": @" + relocation.getOldAddress() +
+                            " -> @" + relocation.getNewAddress() + " (" + relocation.getSize() + " bytes)");
+            }
+            if (relocations.size() > shown) {
+                out.println("  ... e mais " + (relocations.size() - shown) + " bloco(s)");
+            }
+        } catch (IllegalStateException e) {
+            out.println("Erro: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Processa o comando 'save'.
+     */
+    private void handleSave(String[] tokens) {
+        if (tokens.length != 2) {
+            out.println("Uso: save <arquivo>");
+            return;
+        }
+
+        try {
+            Path path = Path.of(tokens[1]);
+            memoryManager.save(path);
+            out.println("Snapshot gravado em " + tokens[1] + " (" + Files.size(path) + " bytes).");
+        } catch (IOException e) {
+            out.println("Erro: Não foi possível gravar " + tokens[1] + ": " + e.getMessage());
+        } catch (IllegalStateException e) {
+            out.println("Erro: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Processa o comando 'load'.
+     */
+    private void handleLoad(String[] tokens) {
+        if (tokens.length != 2) {
+            out.println("Uso: load <arquivo>");
+            return;
+        }
+
+        try {
+            memoryManager.load(Path.of(tokens[1]));
+        } catch (NoSuchFileException e) {
+            out.println("Erro: Arquivo não encontrado: " + tokens[1]);
+        } catch (IOException e) {
+            out.println("Erro: Não foi possível carregar " + tokens[1] + ": " + e.getMessage());
+        } catch (IllegalStateException e) {
+            out.println("Erro: " + e.getMessage());
+        } catch (OutOfMemoryError e) {
+            out.println("Erro: Memória insuficiente para restaurar " + tokens[1] +
+                        " (ajuste -Xmx ou -XX:MaxDirectMemorySize).");
+        }
+    }
+
+    /**
+     * Processa o comando 'gen'.
+     */
+    private void handleGen(String[] tokens) throws IOException {
+        if (tokens.length < 6) {
+            out.println("Uso: gen <arquivo> <ops> <distribuição> <min> <max> [razão-alloc] [vida-média] [seed]");
+            out.println("Distribuições: uniform, exponential, bimodal, powerlaw");
+            return;
+        }
+
+        try {
+            long operations = Long.parseLong(tokens[2]);
+            SizeDistribution distribution = SizeDistribution.fromCliName(tokens[3]);
+            if (distribution == null) {
+                out.println("Distribuição inválida. Use: uniform, exponential, bimodal ou powerlaw");
+                return;
+            }
+            int min = Integer.parseInt(tokens[4]);
+            int max = Integer.parseInt(tokens[5]);
+            double allocRatio = tokens.length > 6 ? Double.parseDouble(tokens[6]) : 0.5;
+            int lifetime = tokens.length > 7 ? Integer.parseInt(tokens[7]) : 1000;
+            long seed = tokens.length > 8 ? Long.parseLong(tokens[8]) : 42;
+
+            WorkloadGenerator generator = new WorkloadGenerator(distribution, min, max, allocRatio, lifetime, seed);
+            try (Writer trace = Files.newBufferedWriter(Path.of(tokens[1]), StandardCharsets.UTF_8)) {
+                generator.generate(operations, trace);
+            }
+            out.println("Trace com " + operations + " operações gravado em " + tokens[1]);
+        } catch (NumberFormatException e) {
+            out.println("Erro: Parâmetros numéricos inválidos.");
+        }
+    }
+
+    /**
+     * Processa o comando 'replay'.
+     * O trace é reproduzido em um MemoryManager novo e sem listeners, para que
+     * a medição não inclua a escrita no console.
+     */
+    private void handleReplay(String[] tokens) throws IOException {
+        if (tokens.length < 4) {
+            out.println("Uso: replay <arquivo> <tamanho> <algoritmo> [intervalo-amostragem]");
+            return;
+        }
+
+        try {
+            long size = Long.parseLong(tokens[2]);
+            FitAlgorithm algorithm = FitAlgorithm.fromCliName(tokens[3]);
+            if (algorithm == null) {
+                out.println("Algoritmo inválido. Use: " + FitAlgorithm.cliNames());
+                return;
+            }
+            long interval = tokens.length > 4 ? Long.parseLong(tokens[4]) : 10_000;
+
+            MemoryManager replayManager = new MemoryManager();
+            if (memoryManager.getMetrics() != null) {
+                replayManager.enableMetrics();
+            }
+            replayManager.init(size);
+            ReplayReport report;
+            try (TraceReader trace = TraceReader.open(Path.of(tokens[1]))) {
+                report = new TraceReplayer(replayManager, algorithm, interval).replay(trace);
+            }
+            printReport(tokens[1], size, report);
+            if (replayManager.getMetrics() != null) {
+                printMetrics(replayManager.getMetrics());
+            }
+        } catch (NumberFormatException e) {
+            out.println("Erro: Parâmetros numéricos inválidos.");
+        }
+    }
+
+    /**
+     * Processa o comando 'compare'.
+     * Os traces são carregados uma vez e cada um é reproduzido com todos os
+     * algoritmos, cada replay em uma memória nova e todos em paralelo.
+     */
+    private void handleCompare(String[] tokens) throws IOException {
+        if (tokens.length < 3) {
+            out.println("Uso: compare <arquivo> [<arquivo>...] <tamanho>");
+            return;
+        }
+
+        try {
+            long size = Long.parseLong(tokens[tokens.length - 1]);
+            List<Trace> traces = new ArrayList<>();
+            for (int i = 1; i < tokens.length - 1; i++) {
+                traces.add(Trace.load(Path.of(tokens[i])));
+            }
+
+            List<FitAlgorithm> algorithms = List.of(FitAlgorithm.values());
+            List<List<ReplayReport>> results = new TraceComparator(size, 10_000).compare(traces, algorithms);
+            for (int i = 0; i < traces.size(); i++) {
+                printComparison(tokens[i + 1], size, traces.get(i), results.get(i));
+            }
+        } catch (NumberFormatException e) {
+            out.println("Erro: Parâmetros numéricos inválidos.");
+        } catch (IllegalArgumentException e) {
+            out.println("Erro: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            out.println("Comparação interrompida.");
+        }
+    }
+
+    /**
+     * Exibe a tabela comparativa dos algoritmos para um trace.
+     */
+    private void printComparison(String file, long size, Trace trace, List<ReplayReport> reports) {
+        out.println("\n== Comparação: " + file + " (" + trace.length() + " operações, " + size + " bytes) ==");
+        out.printf("  %-10s %14s %10s %13s %15s %16s%n",
+                   "algoritmo", "ops/s", "falhas", "pico buracos", "frag. ext. máx", "frag. ext. final");
+        for (ReplayReport report : reports) {
+            double maxFragmentation = 0.0;
+            double finalFragmentation = 0.0;
+            for (FragmentationSample sample : report.getSamples()) {
+                maxFragmentation = Math.max(maxFragmentation, sample.getExternalFragmentation());
+                finalFragmentation = sample.getExternalFragmentation();
+            }
+            out.printf("  %-10s %14.0f %10d %13d %14.2f%% %15.2f%%%n",
+                       report.getAlgorithm().getCliName(), report.getOpsPerSecond(),
+                       report.getFailedAllocations(), report.getPeakHoles(),
+                       maxFragmentation * 100, finalFragmentation * 100);
+        }
+    }
+
+    /**
+     * Exibe o relatório de um replay.
+     */
+    private void printReport(String file, long size, ReplayReport report) {
+        out.println("\n== Replay: " + file + " (" + report.getAlgorithm() + ", " + size + " bytes) ==");
+        out.println("Operações: " + report.getOperations() + " (alloc: " + report.getAllocations() +
+                           ", free: " + report.getFrees() + ")");
+        out.println("Falhas de alocação: " + report.getFailedAllocations());
+        out.println("Liberações sem bloco: " + report.getUnmatchedFrees());
+        out.println("Alocações em handle vivo: " + report.getReusedHandles());
+        out.println("Pico de buracos: " + report.getPeakHoles());
+        out.printf("Tempo: %.3f s | %.0f ops/s%n", report.getElapsedNanos() / 1e9, report.getOpsPerSecond());
+        out.println("Fragmentação ao longo do tempo:");
+        out.printf("  %12s %12s %12s %9s %12s %10s%n",
+                          "operação", "ocupado", "livre", "buracos", "maior livre", "frag. ext.");
+        for (FragmentationSample sample : report.getSamples()) {
+            out.printf("  %12d %12d %12d %9d %12d %9.2f%%%n",
+                              sample.getOperation(), sample.getUsedBytes(), sample.getFreeBytes(),
+                              sample.getHoles(), sample.getLargestFreeBlock(),
+                              sample.getExternalFragmentation() * 100);
+        }
+    }
+
+    /**
+     * Exibe os histogramas de latência e de blocos examinados, os splits,
+     * os merges e as falhas por algoritmo.
+     */
+    private void printMetrics(OperationMetrics metrics) {
+        if (metrics == null) {
+            out.println("Métricas desativadas. Use 'metrics on'.");
+            return;
+        }
+
+        out.println("\n== Métricas ==");
+        boolean header = false;
+        for (OperationMetrics.Operation operation : OperationMetrics.Operation.values()) {
+            LogHistogram histogram = metrics.getLatency(operation);
+            if (histogram.getCount() > 0) {
+                if (!header) {
+                    out.println("Latência (ns):");
+                    out.printf("  %-12s %12s %10s %10s %10s %10s %10s %12s%n",
+                               "operação", "ops", "média", "p50", "p90", "p99", "p99.9", "máx");
+                    header = true;
+                }
+                printHistogramRow(operation.getCliName(), histogram);
+            }
+        }
+        if (!header) {
+            out.println("Nenhuma operação medida.");
+        }
+
+        header = false;
+        for (FitAlgorithm algorithm : FitAlgorithm.values()) {
+            LogHistogram histogram = metrics.getBlocksExamined(algorithm);
+            if (histogram.getCount() > 0) {
+                if (!header) {
+                    out.println("Blocos examinados por alocação:");
+                    out.printf("  %-12s %12s %10s %10s %10s %10s %10s %12s%n",
+                               "algoritmo", "buscas", "média", "p50", "p90", "p99", "p99.9", "máx");
+                    header = true;
+                }
+                printHistogramRow(algorithm.getCliName(), histogram);
+            }
+        }
+
+        out.println("Splits: " + metrics.getSplits() + " | Merges: " + metrics.getMerges());
+
+        StringBuilder failures = new StringBuilder();
+        for (FitAlgorithm algorithm : FitAlgorithm.values()) {
+            if (metrics.getFailures(algorithm) == 0) {
+                continue;
+            }
+            failures.append(failures.length() == 0 ? "" : " | ").append(algorithm.getCliName()).append('=')
+                    .append(metrics.getFailures(algorithm)).append(" (");
+            String separator = "";
+            for (FailureReason reason : FailureReason.values()) {
+                long count = metrics.getFailures(algorithm, reason);
+                if (count > 0) {
+                    failures.append(separator).append(reason).append('=').append(count);
+                    separator = ", ";
+                }
+            }
+            failures.append(')');
+        }
+        out.println("Falhas de alocação por algoritmo: " + (failures.length() == 0 ? "nenhuma" : failures));
+    }
+
+    private void printHistogramRow(String name, LogHistogram histogram) {
+        out.printf("  %-12s %12d %10.1f %10d %10d %10d %10d %12d%n", name, histogram.getCount(),
+                   histogram.getMean(), histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(90),
+                   histogram.getValueAtPercentile(99), histogram.getValueAtPercentile(99.9), histogram.getMax());
+    }
+
+    @Override
+    public void onInit(long size) {
+        out.println("Memória inicializada com " + size + " bytes.");
+    }
+
+    @Override
+    public void onLoad(long size, int allocatedBlocks) {
+        out.println("Snapshot carregado: memória de " + size + " bytes com " + allocatedBlocks +
+                    " bloco(s) alocado(s).");
+    }
+
+    @Override
+    public void onAlloc(int id, long address, long size, FitAlgorithm algorithm) {
+        out.println("Bloco " + id + " alocado: " + size + " bytes em @" + address +
+                         " (algoritmo: " + algorithm + ")");
+    }
+
+    @Override
+    public void onRegionAlloc(int id, long address, long size, String region) {
+        out.println("Bloco " + id + " alocado: " + size + " bytes em @" + address + " (região: " + region + ")");
+    }
+
+    @Override
+    public void onAllocFailed(long size, FitAlgorithm algorithm, FailureReason reason) {
+        switch (reason) {
+            case NOT_INITIALIZED:
+                out.println("Erro: Memória não inicializada. Use 'init' primeiro.");
+                break;
+            case INVALID_SIZE:
+                out.println("Erro: Tamanho deve ser maior que 0.");
+                break;
+            default:
+                out.println("Erro: Não há espaço suficiente para alocar " + size + " bytes.");
+        }
+    }
+
+    @Override
+    public void onRealloc(int id, long oldAddress, long newAddress, long newSize) {
+        if (oldAddress == newAddress) {
+            out.println("Bloco " + id + " redimensionado para " + newSize + " bytes em @" + newAddress + ".");
+        } else {
+            out.println("Bloco " + id + " movido de @" + oldAddress + " para @" + newAddress +
+                        " com " + newSize + " bytes.");
+        }
+    }
+
+    @Override
+    public void onReallocFailed(int id, long newSize, FailureReason reason) {
+        switch (reason) {
+            case NOT_INITIALIZED:
+                out.println("Erro: Memória não inicializada. Use 'init' primeiro.");
+                break;
+            case INVALID_SIZE:
+                out.println("Erro: Tamanho deve ser maior que 0.");
+                break;
+            case BLOCK_NOT_FOUND:
+                out.println("Erro: Bloco com ID " + id + " não encontrado ou já está livre.");
+                break;
+            default:
+                out.println("Erro: Não há espaço suficiente para redimensionar o bloco " + id +
+                            " para " + newSize + " bytes.");
+        }
+    }
+
+    @Override
+    public void onCompact(int movedBlocks, long movedBytes) {
+        out.println("Memória compactada: " + movedBlocks + " bloco(s) movido(s), " + movedBytes +
+                    " bytes copiados. Maior bloco livre: " + memoryManager.getLargestFreeBlock() + " bytes.");
+    }
+
+    @Override
+    public void onFree(int id, long address, long size) {
+        out.println("Bloco " + id + " liberado.");
+    }
+
+    @Override
+    public void onFreeIdFailed(int id, FailureReason reason) {
+        if (reason == FailureReason.NOT_INITIALIZED) {
+            out.println("Erro: Memória não inicializada.");
+        } else {
+            out.println("Erro: Bloco com ID " + id + " não encontrado ou já está livre.");
+        }
+    }
+
+    @Override
+    public void onFreeAddrFailed(long address, FailureReason reason) {
+        if (reason == FailureReason.NOT_INITIALIZED) {
+            out.println("Erro: Memória não inicializada.");
+        } else {
+            out.println("Erro: Nenhum bloco alocado encontrado no endereço " + address);
         }
     }
 
@@ -187,31 +1043,104 @@ public class MemorySimulator {
      * Exibe a ajuda com todos os comandos disponíveis.
      */
     private void showHelp() {
-        System.out.println("Comandos disponíveis:");
-        System.out.println("  init <tamanho>              - Inicializa a memória com o tamanho especificado");
-        System.out.println("  alloc <tamanho> <algoritmo> - Aloca bloco de memória");
-        System.out.println("                                Algoritmos: first, best, worst");
-        System.out.println("  freeid <id>                 - Libera bloco pelo ID");
-        System.out.println("  freeaddr <endereco>         - Libera bloco pelo endereço");
-        System.out.println("  show                        - Exibe mapa visual da memória");
-        System.out.println("  stats                       - Exibe estatísticas de uso");
-        System.out.println("  help                        - Mostra esta ajuda");
-        System.out.println("  exit                        - Sai do programa");
-        System.out.println("\nExemplo de uso:");
-        System.out.println("  > init 64");
-        System.out.println("  > alloc 10 first");
-        System.out.println("  > alloc 8 first");
-        System.out.println("  > freeid 2");
-        System.out.println("  > alloc 6 best");
-        System.out.println("  > show");
-        System.out.println("  > stats");
+        out.println("Comandos disponíveis:");
+        out.println("  init <tamanho> [modo]       - Inicializa a memória com o tamanho especificado");
+        out.println("                                Memória física: none (padrão, sem mapa de bytes),");
+        out.println("                                heap (até ~2 GB), offheap ou sparse (páginas sob demanda)");
+        out.println("  alloc <tamanho> <algoritmo> - Aloca bloco de memória");
+        out.println("                                Algoritmos: " + FitAlgorithm.cliNames());
+        out.println("  realloc <id> <tamanho> [alg]- Altera o tamanho de um bloco, no lugar se possível");
+        out.println("  freeid <id>                 - Libera bloco pelo ID");
+        out.println("  freeaddr <endereco>         - Libera bloco pelo endereço");
+        out.println("  allocbatch <alg> <tam>...   - Aloca um grupo de blocos contíguos com uma única busca");
+        out.println("  freebatch <id>...           - Libera um grupo de blocos, coalescendo os vizinhos de uma vez");
+        out.println("  region create <nome> <tam> [alg] - Cria uma região (arena) de <tam> bytes");
+        out.println("  region alloc <nome> <tam>   - Aloca um bloco na região, avançando o topo (bump)");
+        out.println("  region reset <nome>         - Libera todos os blocos da região de uma vez");
+        out.println("  region free <nome>          - Libera os blocos e devolve a região à memória");
+        out.println("  show [<início> <fim>]       - Exibe mapa visual da memória (ou do intervalo [início, fim))");
+        out.println("  show zoom <bytes> [<i> <f>] - Mapa em que cada célula resume <bytes> bytes");
+        out.println("  show runs [<início> <fim>]  - Lista os blocos livres e ocupados do intervalo");
+        out.println("  stats                       - Exibe estatísticas de uso");
+        out.println("  metrics [on|off|reset]      - Exibe latências (p50/p99/máx), blocos examinados,");
+        out.println("                                splits, merges e falhas; on/off liga/desliga a medição");
+        out.println("  slab <página> <classe>...   - Ativa slabs para pedidos pequenos (slab off desativa)");
+        out.println("  bitmap <unidade>            - Aloca em unidades de <unidade> bytes, um bit por unidade");
+        out.println("                                (bitmap off volta para a lista de blocos)");
+        out.println("  compact                     - Junta os buracos movendo os blocos para o início");
+        out.println("  compact auto on|off         - Compacta e tenta de novo quando uma alocação falha");
+        out.println("  save <arquivo>              - Grava um snapshot da memória (blocos e bytes)");
+        out.println("  load <arquivo>              - Restaura um snapshot gravado com save");
+        out.println("  gen <arq> <ops> <dist> <min> <max> [razão] [vida] [seed]");
+        out.println("                              - Gera um trace sintético");
+        out.println("                                Distribuições: uniform, exponential, bimodal, powerlaw");
+        out.println("  replay <arq> <tamanho> <algoritmo> [intervalo]");
+        out.println("                              - Reproduz um trace e mede vazão e fragmentação");
+        out.println("  compare <arq>... <tamanho>  - Reproduz os traces com todos os algoritmos em paralelo");
+        out.println("  help                        - Mostra esta ajuda");
+        out.println("  exit                        - Sai do programa");
+        out.println("\nExemplo de uso:");
+        out.println("  > init 64");
+        out.println("  > alloc 10 first");
+        out.println("  > alloc 8 first");
+        out.println("  > freeid 2");
+        out.println("  > alloc 6 best");
+        out.println("  > show");
+        out.println("  > stats");
     }
 
     /**
      * Método main - ponto de entrada do programa.
+     *
+     * Uso: MemorySimulator [--batch | --interactive] [--quiet] [script]
+     * - Com um arquivo de script, ou com --batch, executa em modo batch
+     * - Sem argumentos, usa o modo batch quando a entrada padrão não é um
+     *   terminal (ex.: script redirecionado por pipe) e o interativo caso contrário
+     * - --interactive força o modo interativo mesmo com a entrada redirecionada
+     * - --quiet (apenas batch) imprime somente as estatísticas finais
      */
-    public static void main(String[] args) {
-        MemorySimulator simulator = new MemorySimulator();
-        simulator.start();
+    public static void main(String[] args) throws IOException {
+        boolean batch = false;
+        boolean interactive = false;
+        boolean quiet = false;
+        String script = null;
+
+        for (String arg : args) {
+            switch (arg) {
+                case "--batch":
+                    batch = true;
+                    break;
+                case "--interactive":
+                    interactive = true;
+                    break;
+                case "--quiet":
+                    quiet = true;
+                    break;
+                default:
+                    script = arg;
+            }
+        }
+
+        if (!batch && script == null) {
+            Console console = System.console();
+            batch = !interactive && console == null;
+        }
+
+        if (!batch && script == null) {
+            MemorySimulator simulator = new MemorySimulator();
+            simulator.start();
+            return;
+        }
+
+        PrintStream out = new PrintStream(
+            new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16),
+            false, StandardCharsets.UTF_8);
+        BufferedReader in = script != null
+            ? Files.newBufferedReader(Path.of(script), StandardCharsets.UTF_8)
+            : new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), 1 << 16);
+
+        try (in) {
+            new MemorySimulator(out, quiet).runBatch(in);
+        }
     }
 }
@@ -0,0 +1,109 @@
+package br.ufc.dc.so;
+
+/**
+ * Retrato imutável das estatísticas de um MemoryManager (ver snapshot()).
+ *
+ * Os valores vêm de contadores mantidos a cada alocação, liberação e
+ * coalescência (e, para o maior bloco livre, dos índices de blocos livres),
+ * então obter um retrato não percorre a lista de blocos e pode ser feito após
+ * cada operação (por exemplo, durante a reprodução de um trace).
+ */
+public class MemoryStats {
+    private final long totalSize;
+    private final long usedBytes;
+    private final long freeBytes;
+    private final int holes;
+    private final long largestFreeBlock;
+    private final long internalFragmentation;
+    private final long peakUsedBytes;
+    private final long allocations;
+    private final long frees;
+    private final long failedAllocations;
+
+    /**
+     * @param totalSize Tamanho total da memória
+     * @param usedBytes Bytes ocupados por blocos (incluindo páginas de slab)
+     * @param freeBytes Bytes livres
+     * @param holes Número de blocos livres
+     * @param largestFreeBlock Tamanho do maior bloco livre
+     * @param internalFragmentation Bytes reservados mas não pedidos
+     * @param peakUsedBytes Maior valor de usedBytes desde o init
+     * @param allocations Alocações bem-sucedidas desde o init
+     * @param frees Liberações bem-sucedidas desde o init
+     * @param failedAllocations Alocações que falharam desde o init
+     */
+    public MemoryStats(long totalSize, long usedBytes, long freeBytes, int holes, long largestFreeBlock,
+                       long internalFragmentation, long peakUsedBytes, long allocations, long frees,
+                       long failedAllocations) {
+        this.totalSize = totalSize;
+        this.usedBytes = usedBytes;
+        this.freeBytes = freeBytes;
+        this.holes = holes;
+        this.largestFreeBlock = largestFreeBlock;
+        this.internalFragmentation = internalFragmentation;
+        this.peakUsedBytes = peakUsedBytes;
+        this.allocations = allocations;
+        this.frees = frees;
+        this.failedAllocations = failedAllocations;
+    }
+
+    public long getTotalSize() {
+        return totalSize;
+    }
+
+    public long getUsedBytes() {
+        return usedBytes;
+    }
+
+    public long getFreeBytes() {
+        return freeBytes;
+    }
+
+    public int getHoles() {
+        return holes;
+    }
+
+    public long getLargestFreeBlock() {
+        return largestFreeBlock;
+    }
+
+    public long getInternalFragmentation() {
+        return internalFragmentation;
+    }
+
+    public long getPeakUsedBytes() {
+        return peakUsedBytes;
+    }
+
+    public long getAllocations() {
+        return allocations;
+    }
+
+    public long getFrees() {
+        return frees;
+    }
+
+    public long getFailedAllocations() {
+        return failedAllocations;
+    }
+
+    /**
+     * @return Percentual da memória ocupado por blocos
+     */
+    public double getUsagePercentage() {
+        return (usedBytes * 100.0) / totalSize;
+    }
+
+    /**
+     * Fragmentação externa = 1 - (maior bloco livre / total livre).
+     * Vale 0 quando todo o espaço livre é contíguo.
+     *
+     * @return Valor entre 0 e 1
+     */
+    public double getExternalFragmentation() {
+        if (freeBytes == 0) {
+            return 0.0;
+        }
+        return 1.0 - (double) largestFreeBlock / freeBytes;
+    }
+}
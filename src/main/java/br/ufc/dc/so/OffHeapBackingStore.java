@@ -0,0 +1,134 @@
+package br.ufc.dc.so;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Memória física simulada fora do heap da JVM, com endereços de 64 bits.
+ *
+ * Estrutura de dados utilizada:
+ * - ByteBuffer[] diretos de até 1 GB cada; o endereço é dividido em índice
+ *   do pedaço (bits altos) e deslocamento (30 bits baixos)
+ *
+ * Decisões de implementação:
+ * - A memória direta não é percorrida pelo GC, então simulações de dezenas
+ *   de GB não aumentam as pausas; o limite é dado por -XX:MaxDirectMemorySize
+ * - fill escreve 8 bytes por vez (putLong com o byte repetido) e só usa
+ *   escritas byte a byte nas pontas do intervalo
+ * - copy divide o intervalo nas fronteiras dos pedaços e copia cada parte
+ *   com um put em bloco entre buffers; com sobreposição e destino depois da
+ *   origem, as partes são copiadas do fim para o início
+ * - read e write também seguem as fronteiras dos pedaços, com um put em
+ *   bloco por parte
+ * - A API java.lang.foreign (MemorySegment/Arena) ainda é preview no Java 21;
+ *   buffers diretos dão o mesmo resultado sem exigir --enable-preview
+ */
+public class OffHeapBackingStore implements BackingStore {
+    private static final int CHUNK_BITS = 30;
+    private static final long CHUNK_SIZE = 1L << CHUNK_BITS;
+    private static final long CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final long size;
+    private final ByteBuffer[] chunks;
+
+    /**
+     * @param size Tamanho em bytes
+     */
+    public OffHeapBackingStore(long size) {
+        this.size = size;
+        int count = (int) ((size + CHUNK_SIZE - 1) >>> CHUNK_BITS);
+        this.chunks = new ByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long chunkSize = Math.min(CHUNK_SIZE, size - ((long) i << CHUNK_BITS));
+            // Buffers diretos já são alocados zerados
+            chunks[i] = ByteBuffer.allocateDirect((int) chunkSize);
+        }
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public byte get(long address) {
+        return chunks[(int) (address >>> CHUNK_BITS)].get((int) (address & CHUNK_MASK));
+    }
+
+    @Override
+    public void fill(long address, long length, byte value) {
+        long pattern = (value & 0xFFL) * 0x0101010101010101L;
+        long end = address + length;
+
+        while (address < end) {
+            ByteBuffer chunk = chunks[(int) (address >>> CHUNK_BITS)];
+            int offset = (int) (address & CHUNK_MASK);
+            int limit = (int) Math.min(chunk.capacity(), offset + (end - address));
+
+            int i = offset;
+            while (i < limit && (i & 7) != 0) {
+                chunk.put(i++, value);
+            }
+            for (; i + 8 <= limit; i += 8) {
+                chunk.putLong(i, pattern);
+            }
+            while (i < limit) {
+                chunk.put(i++, value);
+            }
+            address += limit - offset;
+        }
+    }
+
+    @Override
+    public void copy(long from, long to, long length) {
+        if (to <= from) {
+            while (length > 0) {
+                int n = (int) Math.min(length, Math.min(CHUNK_SIZE - (from & CHUNK_MASK), CHUNK_SIZE - (to & CHUNK_MASK)));
+                copyPart(from, to, n);
+                from += n;
+                to += n;
+                length -= n;
+            }
+        } else {
+            long fromEnd = from + length;
+            long toEnd = to + length;
+            while (length > 0) {
+                int n = (int) Math.min(length, Math.min(((fromEnd - 1) & CHUNK_MASK) + 1, ((toEnd - 1) & CHUNK_MASK) + 1));
+                fromEnd -= n;
+                toEnd -= n;
+                copyPart(fromEnd, toEnd, n);
+                length -= n;
+            }
+        }
+    }
+
+    @Override
+    public void read(long address, ByteBuffer target) {
+        while (target.hasRemaining()) {
+            int offset = (int) (address & CHUNK_MASK);
+            int n = (int) Math.min(target.remaining(), CHUNK_SIZE - offset);
+            target.put(target.position(), chunks[(int) (address >>> CHUNK_BITS)], offset, n);
+            target.position(target.position() + n);
+            address += n;
+        }
+    }
+
+    @Override
+    public void write(long address, ByteBuffer source) {
+        while (source.hasRemaining()) {
+            int offset = (int) (address & CHUNK_MASK);
+            int n = (int) Math.min(source.remaining(), CHUNK_SIZE - offset);
+            chunks[(int) (address >>> CHUNK_BITS)].put(offset, source, source.position(), n);
+            source.position(source.position() + n);
+            address += n;
+        }
+    }
+
+    /**
+     * Copia uma parte que não atravessa fronteiras de pedaço.
+     */
+    private void copyPart(long from, long to, int length) {
+        ByteBuffer source = chunks[(int) (from >>> CHUNK_BITS)];
+        ByteBuffer target = chunks[(int) (to >>> CHUNK_BITS)];
+        target.put((int) (to & CHUNK_MASK), source, (int) (from & CHUNK_MASK), length);
+    }
+}
@@ -0,0 +1,182 @@
+package br.ufc.dc.so;
+
+import java.util.Arrays;
+
+/**
+ * Instrumentação opcional do MemoryManager (ver enableMetrics): latência de
+ * cada operação, blocos examinados por alocação, splits, merges e falhas
+ * por algoritmo.
+ *
+ * Estrutura de dados utilizada:
+ * - LogHistogram[]: Latência em ns por Operation e blocos examinados por
+ *   FitAlgorithm, com buckets logarítmicos
+ * - long[][]: Falhas de alocação por algoritmo e motivo
+ *
+ * Decisões de implementação:
+ * - Tudo é pré-alocado na criação: registrar uma operação não aloca objetos
+ * - Com as métricas desativadas o MemoryManager não tem instância desta
+ *   classe, e cada ponto de medição custa só o teste de null
+ * - A latência de alloc, realloc, freeid, freeaddr, dos lotes e das regiões é medida em
+ *   volta do método público, incluindo os listeners; a de coalesce, apenas
+ *   a fusão (um lote mede o grupo inteiro como uma operação)
+ * - Os blocos examinados só existem nas buscas lineares (FIRST_FIT e
+ *   NEXT_FIT); os demais algoritmos consultam índices
+ * - Cada operação pública também é publicada como MemoryOperationEvent
+ *   para o JDK Flight Recorder
+ */
+public class OperationMetrics {
+
+    /**
+     * Operações medidas.
+     */
+    public enum Operation {
+        ALLOC("alloc"),
+        ALLOC_BATCH("allocbatch"),
+        REALLOC("realloc"),
+        FREE_ID("freeid"),
+        FREE_ADDR("freeaddr"),
+        FREE_BATCH("freebatch"),
+        REGION_ALLOC("region alloc"),
+        REGION_RESET("region reset"),
+        REGION_FREE("region free"),
+        COALESCE("coalesce");
+
+        private final String cliName;
+
+        Operation(String cliName) {
+            this.cliName = cliName;
+        }
+
+        public String getCliName() {
+            return cliName;
+        }
+    }
+
+    private final LogHistogram[] latency = new LogHistogram[Operation.values().length];
+    private final LogHistogram[] blocksExamined = new LogHistogram[FitAlgorithm.values().length];
+    private final long[][] failures = new long[FitAlgorithm.values().length][FailureReason.values().length];
+    private long splits;
+    private long merges;
+    private int lastExamined = -1;
+
+    public OperationMetrics() {
+        for (int i = 0; i < latency.length; i++) {
+            latency[i] = new LogHistogram();
+        }
+        for (int i = 0; i < blocksExamined.length; i++) {
+            blocksExamined[i] = new LogHistogram();
+        }
+    }
+
+    /**
+     * Registra uma operação pública e publica o evento JFR.
+     *
+     * @param operation Operação
+     * @param algorithm Algoritmo (null para as liberações)
+     * @param id ID do bloco (ou informado; 0 para freeaddr e lotes)
+     * @param size Tamanho pedido (soma dos tamanhos em allocbatch; 0 para as liberações)
+     * @param nanos Latência em ns
+     * @param success Resultado da operação
+     */
+    void record(Operation operation, FitAlgorithm algorithm, int id, long size, long nanos, boolean success) {
+        latency[operation.ordinal()].record(nanos);
+
+        MemoryOperationEvent event = new MemoryOperationEvent();
+        if (event.isEnabled()) {
+            event.operation = operation.getCliName();
+            event.algorithm = algorithm != null ? algorithm.name() : null;
+            event.id = id;
+            event.size = size;
+            event.latency = nanos;
+            event.blocksExamined = lastExamined;
+            event.success = success;
+            event.commit();
+        }
+        lastExamined = -1;
+    }
+
+    void recordCoalesce(long nanos) {
+        latency[Operation.COALESCE.ordinal()].record(nanos);
+    }
+
+    void recordSearch(FitAlgorithm algorithm, int examined) {
+        blocksExamined[algorithm.ordinal()].record(examined);
+        lastExamined = examined;
+    }
+
+    void recordFailure(FitAlgorithm algorithm, FailureReason reason) {
+        failures[algorithm.ordinal()][reason.ordinal()]++;
+    }
+
+    void countSplit() {
+        splits++;
+    }
+
+    void countMerge() {
+        merges++;
+    }
+
+    /**
+     * Zera todas as métricas.
+     */
+    public void reset() {
+        for (LogHistogram histogram : latency) {
+            histogram.reset();
+        }
+        for (LogHistogram histogram : blocksExamined) {
+            histogram.reset();
+        }
+        for (long[] counts : failures) {
+            Arrays.fill(counts, 0);
+        }
+        splits = 0;
+        merges = 0;
+        lastExamined = -1;
+    }
+
+    /**
+     * @return Histograma de latências (ns) da operação
+     */
+    public LogHistogram getLatency(Operation operation) {
+        return latency[operation.ordinal()];
+    }
+
+    /**
+     * @return Histograma de blocos examinados por alocação com o algoritmo
+     */
+    public LogHistogram getBlocksExamined(FitAlgorithm algorithm) {
+        return blocksExamined[algorithm.ordinal()];
+    }
+
+    /**
+     * @return Falhas de alocação com o algoritmo pelo motivo
+     */
+    public long getFailures(FitAlgorithm algorithm, FailureReason reason) {
+        return failures[algorithm.ordinal()][reason.ordinal()];
+    }
+
+    /**
+     * @return Total de falhas de alocação com o algoritmo
+     */
+    public long getFailures(FitAlgorithm algorithm) {
+        long total = 0;
+        for (long count : failures[algorithm.ordinal()]) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * @return Blocos livres divididos para atender um pedido (split)
+     */
+    public long getSplits() {
+        return splits;
+    }
+
+    /**
+     * @return Fusões de blocos livres vizinhos (merge) na coalescência
+     */
+    public long getMerges() {
+        return merges;
+    }
+}
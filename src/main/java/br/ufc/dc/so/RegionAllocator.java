@@ -0,0 +1,447 @@
+package br.ufc.dc.so;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Regiões (arenas) nomeadas: trechos da memória principal em que a alocação
+ * é um ponteiro que só avança (bump) e a liberação é da região inteira.
+ *
+ * Estrutura de dados utilizada:
+ * - Region: um trecho de 'size' bytes reservado na lista principal do
+ *   MemoryManager (bloco ocupado de ID 0, como as páginas de slab), com o
+ *   topo do bump e os objetos em arrays paralelos, em ordem de endereço
+ * - IdIndex (único para todas as regiões): Objeto de cada ID, como o slot
+ *   da região, a época do slot e a posição do objeto nos arrays em um long
+ * - Region[] e int[]: Região e época atual de cada slot
+ * - TreeMap<String, Region>: regiões por nome
+ * - TreeMap<Long, Region>: regiões por endereço inicial (freeaddr e show)
+ *
+ * Decisões de implementação:
+ * - Alocar é comparar o topo com o fim da região e avançá-lo, sem busca,
+ *   split nem coalescência, mais uma inserção no índice único; os objetos
+ *   não entram na lista principal
+ * - reset só volta o topo e a contagem a zero e avança a época do slot, em
+ *   O(1): as entradas dos objetos descartados ficam inválidas de uma vez e
+ *   são removidas quando consultadas. Quando as entradas inválidas passam
+ *   das válidas, o próximo allocIn reconstrói o índice a partir das
+ *   regiões; como cada entrada inválida veio de um allocIn, o custo fica
+ *   O(1) amortizado por alocação. A época de um slot só dá a volta (e força
+ *   a reconstrução no próprio reset) depois de 2^19 resets
+ * - Um objeto liberado sozinho sai do índice, mas seu espaço só volta a ser
+ *   usado no reset, a não ser que esteja no topo: nesse caso o topo recua
+ *   sobre ele e sobre os objetos já liberados logo abaixo
+ * - A busca de um ID é uma consulta ao índice único, que já dá a região e
+ *   a posição, independente do número de regiões (o MemoryManager só chega
+ *   aqui quando o ID não está na lista principal)
+ * - Os slots são reaproveitados; como a época continua no slot, uma região
+ *   nova não herda as entradas da região liberada
+ */
+class RegionAllocator {
+
+    /**
+     * Uma região.
+     */
+    static class Region {
+        private final int slot;
+        private final String name;
+        private final long address;
+        private final long size;
+        private long top;
+        private int[] ids = new int[16];
+        private long[] starts = new long[16];
+        private long[] sizes = new long[16];
+        private int count;
+        private int live;
+        private long liveBytes;
+
+        Region(int slot, String name, long address, long size) {
+            this.slot = slot;
+            this.name = name;
+            this.address = address;
+            this.size = size;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        /**
+         * @return Endereço do bloco da lista principal reservado para a região
+         */
+        long getAddress() {
+            return address;
+        }
+
+        long getSize() {
+            return size;
+        }
+
+        /**
+         * @return Bytes já percorridos pelo bump (objetos vivos e liberados)
+         */
+        long getTop() {
+            return top;
+        }
+
+        /**
+         * @return Número de objetos vivos
+         */
+        int getLive() {
+            return live;
+        }
+
+        /**
+         * @return Bytes dos objetos vivos
+         */
+        long getLiveBytes() {
+            return liveBytes;
+        }
+
+        /**
+         * @return Posição do objeto vivo que contém 'address', ou NIL
+         */
+        int indexAt(long address) {
+            // Os objetos estão em ordem de endereço: busca binária pelo último início <= address
+            int low = 0;
+            int high = count - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (starts[mid] <= address) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            int index = high;
+            if (index < 0 || ids[index] == 0 || address >= starts[index] + sizes[index]) {
+                return BlockTable.NIL;
+            }
+            return index;
+        }
+
+        /**
+         * @return Número de posições usadas pelo bump; objetos liberados
+         *         continuam ocupando a sua, com ID 0, até o topo recuar
+         */
+        int getCount() {
+            return count;
+        }
+
+        /**
+         * @return ID do objeto da posição, ou 0 se ele foi liberado
+         */
+        int getId(int index) {
+            return ids[index];
+        }
+
+        long getStart(int index) {
+            return starts[index];
+        }
+
+        long getObjectSize(int index) {
+            return sizes[index];
+        }
+
+        /**
+         * @return true se o objeto é o último do bump
+         */
+        boolean isTop(int index) {
+            return index == count - 1;
+        }
+
+        /**
+         * @return Bytes ainda livres acima do topo
+         */
+        long remaining() {
+            return size - top;
+        }
+
+        /**
+         * Avança o topo em 'objectSize' bytes para um novo objeto.
+         *
+         * @return Posição do objeto, ou NIL se a região não comporta o pedido
+         */
+        int bump(int id, long objectSize) {
+            if (objectSize > size - top) {
+                return BlockTable.NIL;
+            }
+            if (count == ids.length) {
+                int capacity = count * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                starts = Arrays.copyOf(starts, capacity);
+                sizes = Arrays.copyOf(sizes, capacity);
+            }
+            int index = count++;
+            ids[index] = id;
+            starts[index] = address + top;
+            sizes[index] = objectSize;
+            top += objectSize;
+            live++;
+            liveBytes += objectSize;
+            return index;
+        }
+
+        /**
+         * Altera o tamanho do objeto no topo, sem movê-lo.
+         *
+         * @return false se a região não comporta o novo tamanho
+         */
+        boolean resizeTop(long objectSize) {
+            int index = count - 1;
+            if (starts[index] + objectSize > address + size) {
+                return false;
+            }
+            liveBytes += objectSize - sizes[index];
+            sizes[index] = objectSize;
+            top = starts[index] + objectSize - address;
+            return true;
+        }
+
+        /**
+         * Reduz o tamanho de um objeto que não está no topo; a sobra só
+         * volta a ser usada no reset.
+         */
+        void shrink(int index, long objectSize) {
+            liveBytes -= sizes[index] - objectSize;
+            sizes[index] = objectSize;
+        }
+
+        /**
+         * Libera um objeto; se ele estava no topo, o topo recua sobre ele e
+         * sobre os objetos liberados logo abaixo.
+         */
+        void release(int index) {
+            ids[index] = 0;
+            live--;
+            liveBytes -= sizes[index];
+            while (count > 0 && ids[count - 1] == 0) {
+                count--;
+                top = starts[count] - address;
+            }
+        }
+
+        /**
+         * Descarta todos os objetos e volta o topo ao início, em O(1).
+         */
+        void reset() {
+            count = 0;
+            top = 0;
+            live = 0;
+            liveBytes = 0;
+        }
+    }
+
+    private static final int NIL = BlockTable.NIL;
+    private static final int SLOT_BITS = 12;
+    private static final int SLOT_MASK = (1 << SLOT_BITS) - 1;
+    private static final int EPOCH_MASK = (1 << (31 - SLOT_BITS)) - 1;
+
+    /**
+     * Número máximo de regiões ao mesmo tempo.
+     */
+    static final int MAX_REGIONS = 1 << SLOT_BITS;
+
+    private final Map<String, Region> regionsByName = new TreeMap<>();
+    private final TreeMap<Long, Region> regionsByAddress = new TreeMap<>();
+    private Region[] slots = new Region[4];
+    private int[] epochs = new int[4];
+    private final IdIndex objectsById = new IdIndex();
+    private int staleEntries;
+
+    /**
+     * @return Região com o nome, ou null
+     */
+    Region byName(String name) {
+        return regionsByName.get(name);
+    }
+
+    /**
+     * Registra uma região sobre um bloco recém-reservado da lista principal.
+     * Deve haver menos de MAX_REGIONS regiões.
+     */
+    Region add(String name, long address, long size) {
+        int slot = 0;
+        while (slot < slots.length && slots[slot] != null) {
+            slot++;
+        }
+        if (slot == slots.length) {
+            slots = Arrays.copyOf(slots, slots.length * 2);
+            epochs = Arrays.copyOf(epochs, epochs.length * 2);
+        }
+        Region region = new Region(slot, name, address, size);
+        slots[slot] = region;
+        regionsByName.put(name, region);
+        regionsByAddress.put(address, region);
+        return region;
+    }
+
+    /**
+     * Esquece a região (o bloco reservado é devolvido pelo MemoryManager).
+     */
+    void remove(Region region) {
+        regionsByName.remove(region.name);
+        regionsByAddress.remove(region.address);
+        slots[region.slot] = null;
+        discard(region.slot, region.live);
+    }
+
+    /**
+     * Aloca um objeto no topo da região e o registra no índice único.
+     *
+     * @return Posição do objeto, ou NIL se a região não comporta o pedido
+     */
+    int allocIn(Region region, int id, long objectSize) {
+        int index = region.bump(id, objectSize);
+        if (index != NIL) {
+            if (staleEntries * 2 > objectsById.size()) {
+                rebuild();
+            }
+            objectsById.put(id, entry(region, index));
+        }
+        return index;
+    }
+
+    /**
+     * Move um objeto que não está no topo para o topo da mesma região, com
+     * 'objectSize' bytes, mantendo o ID. A região deve comportar o pedido.
+     *
+     * @return Nova posição do objeto
+     */
+    int moveToTop(Region region, int index, long objectSize) {
+        int id = region.ids[index];
+        region.release(index);
+        int target = region.bump(id, objectSize);
+        objectsById.put(id, entry(region, target));
+        return target;
+    }
+
+    /**
+     * Libera um objeto sozinho (ver Region.release).
+     */
+    void release(Region region, int index) {
+        objectsById.remove(region.ids[index]);
+        region.release(index);
+    }
+
+    /**
+     * Descarta todos os objetos da região (ver Region.reset), invalidando
+     * as suas entradas do índice único pela época.
+     */
+    void reset(Region region) {
+        int live = region.live;
+        region.reset();
+        discard(region.slot, live);
+    }
+
+    /**
+     * Avança a época do slot: as entradas dos 'live' objetos que estavam na
+     * região deixam de valer sem serem removidas uma a uma. Deve ser chamado
+     * depois de a região esquecer os objetos (ver rebuild).
+     */
+    private void discard(int slot, int live) {
+        staleEntries += live;
+        epochs[slot] = (epochs[slot] + 1) & EPOCH_MASK;
+        // Com a época de volta a um valor antigo, as entradas velhas voltariam a valer
+        if (epochs[slot] == 0) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Recria o índice único só com os objetos vivos das regiões.
+     */
+    private void rebuild() {
+        objectsById.clear();
+        for (Region region : slots) {
+            if (region == null) {
+                continue;
+            }
+            for (int i = 0; i < region.count; i++) {
+                if (region.ids[i] != 0) {
+                    objectsById.put(region.ids[i], entry(region, i));
+                }
+            }
+        }
+        staleEntries = 0;
+    }
+
+    /**
+     * @return Entrada do índice único: slot e época nos bits altos, posição
+     *         nos baixos
+     */
+    private long entry(Region region, int index) {
+        return (long) (region.slot | epochs[region.slot] << SLOT_BITS) << 32 | index;
+    }
+
+    /**
+     * @return Objeto vivo com o ID (para regionOf e indexOf), ou NIL
+     */
+    long find(int id) {
+        long object = objectsById.getLong(id);
+        if (object == NIL) {
+            return NIL;
+        }
+        int slotAndEpoch = (int) (object >>> 32);
+        if (slotAndEpoch >>> SLOT_BITS != epochs[slotAndEpoch & SLOT_MASK]) {
+            // Entrada de uma época anterior (região reiniciada ou liberada)
+            objectsById.remove(id);
+            staleEntries--;
+            return NIL;
+        }
+        return object;
+    }
+
+    /**
+     * @param object Objeto devolvido por find
+     * @return Região do objeto
+     */
+    Region regionOf(long object) {
+        return slots[(int) (object >>> 32) & SLOT_MASK];
+    }
+
+    /**
+     * @param object Objeto devolvido por find
+     * @return Posição do objeto nos arrays da região
+     */
+    static int indexOf(long object) {
+        return (int) object;
+    }
+
+    /**
+     * @return Região cujo bloco reservado contém 'address', ou null
+     */
+    Region regionAt(long address) {
+        Map.Entry<Long, Region> entry = regionsByAddress.floorEntry(address);
+        if (entry == null || address >= entry.getKey() + entry.getValue().size) {
+            return null;
+        }
+        return entry.getValue();
+    }
+
+    /**
+     * @return Número de regiões
+     */
+    int size() {
+        return regionsByName.size();
+    }
+
+    /**
+     * @return Número de objetos vivos em todas as regiões
+     */
+    int liveObjects() {
+        int live = 0;
+        for (Region region : regionsByName.values()) {
+            live += region.live;
+        }
+        return live;
+    }
+
+    /**
+     * @return Regiões em ordem de nome
+     */
+    Iterable<Region> regions() {
+        return regionsByName.values();
+    }
+}
@@ -0,0 +1,41 @@
+package br.ufc.dc.so;
+
+/**
+ * Entrada da tabela de realocação devolvida por MemoryManager.compact():
+ * um bloco que mudou de endereço.
+ */
+public class Relocation {
+    private final int id;
+    private final long oldAddress;
+    private final long newAddress;
+    private final long size;
+
+    /**
+     * @param id ID do bloco (não muda na compactação)
+     * @param oldAddress Endereço antes da compactação
+     * @param newAddress Endereço depois da compactação
+     * @param size Tamanho do bloco em bytes
+     */
+    public Relocation(int id, long oldAddress, long newAddress, long size) {
+        this.id = id;
+        this.oldAddress = oldAddress;
+        this.newAddress = newAddress;
+        this.size = size;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public long getOldAddress() {
+        return oldAddress;
+    }
+
+    public long getNewAddress() {
+        return newAddress;
+    }
+
+    public long getSize() {
+        return size;
+    }
+}
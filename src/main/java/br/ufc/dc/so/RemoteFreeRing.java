@@ -0,0 +1,85 @@
+package br.ufc.dc.so;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fila de liberações remotas de uma arena do ConcurrentMemoryManager:
+ * muitas threads produtoras, um consumidor por vez (quem tem o lock da
+ * arena).
+ *
+ * Estrutura de dados utilizada:
+ * - AtomicIntegerArray: Anel de IDs com capacidade potência de 2; 0 marca
+ *   posição vazia (o ID 0 nunca é de um bloco alocado)
+ * - AtomicLong tail: Próxima posição a ser reservada pelos produtores
+ * - AtomicLong head: Próxima posição a ser lida pelo consumidor
+ *
+ * Decisões de implementação:
+ * - Oferecer e esvaziar não alocam: os IDs ficam como int no anel, sem
+ *   Integer nem nós de lista
+ * - O produtor reserva uma posição com CAS em tail e só então grava o ID;
+ *   o consumidor para na primeira posição ainda vazia (reservada, mas não
+ *   gravada) e a retoma no próximo esvaziamento
+ * - O consumidor zera a posição antes de avançar head, então um produtor
+ *   que vê o novo head sempre encontra a posição livre
+ * - Com o anel cheio, offer falha e o produtor libera o bloco sob o lock
+ *   da arena, sem esperar o consumidor
+ */
+class RemoteFreeRing {
+    private final AtomicIntegerArray slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * @param capacity Capacidade do anel (potência de 2)
+     */
+    RemoteFreeRing(int capacity) {
+        this.slots = new AtomicIntegerArray(capacity);
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Enfileira um ID; pode ser chamado por qualquer thread.
+     *
+     * @param id ID do bloco (diferente de 0)
+     * @return false se o anel está cheio
+     */
+    boolean offer(int id) {
+        long position;
+        do {
+            position = tail.get();
+            if (position - head.get() > mask) {
+                return false;
+            }
+        } while (!tail.compareAndSet(position, position + 1));
+        slots.setRelease((int) position & mask, id);
+        return true;
+    }
+
+    /**
+     * Retira o próximo ID. Deve ser chamado por um consumidor por vez.
+     *
+     * @return ID, ou 0 se não há ID pronto para leitura
+     */
+    int poll() {
+        long position = head.get();
+        if (position == tail.get()) {
+            return 0;
+        }
+        int index = (int) position & mask;
+        int id = slots.getAcquire(index);
+        if (id != 0) {
+            slots.setPlain(index, 0);
+            head.set(position + 1);
+        }
+        return id;
+    }
+
+    /**
+     * @return true se não há IDs enfileirados
+     */
+    boolean isEmpty() {
+        return head.get() == tail.get();
+    }
+}
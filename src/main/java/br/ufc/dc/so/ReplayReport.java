@@ -0,0 +1,101 @@
+package br.ufc.dc.so;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado da reprodução de um trace por um TraceReplayer.
+ *
+ * O tempo medido (elapsedNanos) cobre apenas as operações de alocação e
+ * liberação; o custo de coletar as amostras de fragmentação é descontado.
+ */
+public class ReplayReport {
+    private final FitAlgorithm algorithm;
+    private final long operations;
+    private final long allocations;
+    private final long frees;
+    private final long failedAllocations;
+    private final long unmatchedFrees;
+    private final long reusedHandles;
+    private final int peakHoles;
+    private final long elapsedNanos;
+    private final List<FragmentationSample> samples;
+
+    public ReplayReport(FitAlgorithm algorithm, long operations, long allocations, long frees,
+                        long failedAllocations, long unmatchedFrees, long reusedHandles, int peakHoles,
+                        long elapsedNanos, List<FragmentationSample> samples) {
+        this.algorithm = algorithm;
+        this.operations = operations;
+        this.allocations = allocations;
+        this.frees = frees;
+        this.failedAllocations = failedAllocations;
+        this.unmatchedFrees = unmatchedFrees;
+        this.reusedHandles = reusedHandles;
+        this.peakHoles = peakHoles;
+        this.elapsedNanos = elapsedNanos;
+        this.samples = Collections.unmodifiableList(samples);
+    }
+
+    public FitAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public long getOperations() {
+        return operations;
+    }
+
+    public long getAllocations() {
+        return allocations;
+    }
+
+    public long getFrees() {
+        return frees;
+    }
+
+    public long getFailedAllocations() {
+        return failedAllocations;
+    }
+
+    /**
+     * @return Liberações cujo handle não tinha bloco vivo (ex.: a alocação falhou)
+     */
+    public long getUnmatchedFrees() {
+        return unmatchedFrees;
+    }
+
+    /**
+     * @return Alocações em handles que ainda tinham bloco vivo; cada uma deixa
+     *         o bloco anterior alocado até o fim do replay
+     */
+    public long getReusedHandles() {
+        return reusedHandles;
+    }
+
+    /**
+     * @return Maior número de buracos (blocos livres) durante o replay
+     */
+    public int getPeakHoles() {
+        return peakHoles;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return Operações por segundo
+     */
+    public double getOpsPerSecond() {
+        if (elapsedNanos == 0) {
+            return 0.0;
+        }
+        return operations * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    /**
+     * @return Amostras de fragmentação, em ordem de operação
+     */
+    public List<FragmentationSample> getSamples() {
+        return samples;
+    }
+}
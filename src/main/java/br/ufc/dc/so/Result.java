@@ -0,0 +1,65 @@
+package br.ufc.dc.so;
+
+/**
+ * Resultado de uma operação do MemoryManager (alloc, allocIn, realloc,
+ * freeId, freeAddr) empacotado em um único long: o chamador recebe o ID e
+ * o motivo da falha no próprio retorno, sem consultar outro método depois.
+ *
+ * Formato:
+ * - bits 0 a 31: ID do bloco alocado, redimensionado ou liberado (0 em
+ *   caso de falha)
+ * - bits 32 a 39: motivo da falha (0 = sucesso; senão o ordinal do
+ *   FailureReason + 1)
+ *
+ * Decisões de implementação:
+ * - Um long não é alocado no heap; um objeto de resultado por operação
+ *   custaria uma alocação no caminho quente
+ * - Os métodos são estáticos, como os de Long, e leem os campos direto dos
+ *   bits
+ */
+public final class Result {
+    private static final int FAILURE_SHIFT = 32;
+    private static final FailureReason[] REASONS = FailureReason.values();
+
+    private Result() {
+    }
+
+    /**
+     * @return Resultado de sucesso com o ID do bloco
+     */
+    static long ok(int id) {
+        return id & 0xFFFFFFFFL;
+    }
+
+    /**
+     * @return Resultado de falha com o motivo
+     */
+    static long failed(FailureReason reason) {
+        return (long) (reason.ordinal() + 1) << FAILURE_SHIFT;
+    }
+
+    /**
+     * @param result Resultado de uma operação
+     * @return true se a operação teve sucesso
+     */
+    public static boolean isOk(long result) {
+        return result >>> FAILURE_SHIFT == 0;
+    }
+
+    /**
+     * @param result Resultado de uma operação
+     * @return ID do bloco, ou 0 se a operação falhou
+     */
+    public static int id(long result) {
+        return (int) result;
+    }
+
+    /**
+     * @param result Resultado de uma operação
+     * @return Motivo da falha, ou null se a operação teve sucesso
+     */
+    public static FailureReason failure(long result) {
+        int code = (int) (result >>> FAILURE_SHIFT);
+        return code == 0 ? null : REASONS[code - 1];
+    }
+}
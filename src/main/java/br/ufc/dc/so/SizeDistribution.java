@@ -0,0 +1,81 @@
+package br.ufc.dc.so;
+
+import java.util.SplittableRandom;
+
+/**
+ * Enum que representa as distribuições de tamanho usadas pelo WorkloadGenerator.
+ *
+ * Todas as distribuições produzem tamanhos no intervalo [min, max]:
+ * - UNIFORM: Tamanhos igualmente prováveis em todo o intervalo
+ * - EXPONENTIAL: Predominam tamanhos pequenos, com média em min + (max - min) / 8
+ * - BIMODAL: 90% das requisições pequenas (primeiro 1/16 do intervalo) e 10%
+ *   grandes (último 1/4 do intervalo)
+ * - POWER_LAW: Distribuição de Pareto (alfa = 1.5) a partir de min, truncada em max
+ */
+public enum SizeDistribution {
+    UNIFORM("uniform") {
+        @Override
+        public int sample(SplittableRandom random, int min, int max) {
+            return random.nextInt(min, max + 1);
+        }
+    },
+    EXPONENTIAL("exponential") {
+        @Override
+        public int sample(SplittableRandom random, int min, int max) {
+            double mean = Math.max(1.0, (max - min) / 8.0);
+            double value = min - mean * Math.log(1.0 - random.nextDouble());
+            return (int) Math.min(max, value);
+        }
+    },
+    BIMODAL("bimodal") {
+        @Override
+        public int sample(SplittableRandom random, int min, int max) {
+            int span = max - min;
+            if (random.nextInt(10) < 9) {
+                return random.nextInt(min, min + span / 16 + 1);
+            }
+            return random.nextInt(max - span / 4, max + 1);
+        }
+    },
+    POWER_LAW("powerlaw") {
+        @Override
+        public int sample(SplittableRandom random, int min, int max) {
+            double value = min / Math.pow(1.0 - random.nextDouble(), 1.0 / 1.5);
+            return (int) Math.min(max, value);
+        }
+    };
+
+    private final String cliName;
+
+    SizeDistribution(String cliName) {
+        this.cliName = cliName;
+    }
+
+    public String getCliName() {
+        return cliName;
+    }
+
+    /**
+     * Sorteia um tamanho no intervalo [min, max].
+     *
+     * @param random Gerador de números aleatórios
+     * @param min Tamanho mínimo (maior que 0)
+     * @param max Tamanho máximo (maior ou igual a min)
+     * @return Tamanho sorteado
+     */
+    public abstract int sample(SplittableRandom random, int min, int max);
+
+    /**
+     * Converte o nome curto usado na CLI (ex.: "uniform") na distribuição.
+     *
+     * @return Distribuição correspondente, ou null se o nome for inválido
+     */
+    public static SizeDistribution fromCliName(String name) {
+        for (SizeDistribution distribution : values()) {
+            if (distribution.cliName.equalsIgnoreCase(name)) {
+                return distribution;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,365 @@
+package br.ufc.dc.so;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Camada de slabs para alocações pequenas, na frente dos algoritmos de fit.
+ *
+ * Estrutura de dados utilizada:
+ * - SlabClass: uma classe por tamanho de objeto, com uma pilha (long[]) de
+ *   slots livres e a contagem de objetos em uso
+ * - SlabPage: uma página de 'pageSize' bytes reservada na lista principal do
+ *   MemoryManager (identificada pelo endereço) e dividida em slots do
+ *   tamanho da classe, com o ID e o tamanho pedido de cada slot em arrays
+ *   paralelos
+ * - Slot: um long com o número da página nos 32 bits altos e a posição do
+ *   slot na página nos baixos
+ * - SlabPage[]: páginas por número
+ * - IdIndex: slot de cada objeto alocado, por ID
+ * - TreeMap<Long, SlabPage>: páginas por endereço inicial (freeaddr e show)
+ *
+ * Decisões de implementação:
+ * - Os slots não são objetos: o estado de cada um fica nos arrays da
+ *   página, e o endereço sai da posição (início da página + posição *
+ *   tamanho da classe). Alocar e liberar um objeto é empilhar ou
+ *   desempilhar um long e atualizar o IdIndex, em O(1), sem split, sem
+ *   coalescência e sem alocar objetos
+ * - Uma página é reservada (pelo MemoryManager, com o algoritmo da alocação
+ *   que precisou dela) quando a classe não tem slot livre; as páginas ficam
+ *   com a classe até os slabs serem desativados
+ * - A fragmentação interna do slab é a diferença entre o tamanho do slot e o
+ *   tamanho pedido, somada sobre os objetos em uso
+ */
+class SlabAllocator {
+    static final long NIL = BlockTable.NIL;
+
+    /**
+     * Uma classe de tamanho.
+     */
+    static class SlabClass {
+        private final int objectSize;
+        private long[] freeSlots = new long[16];
+        private int freeCount;
+        private int capacity;
+        private int used;
+        private long requestedBytes;
+        private int pages;
+
+        SlabClass(int objectSize) {
+            this.objectSize = objectSize;
+        }
+
+        int getObjectSize() {
+            return objectSize;
+        }
+
+        int getCapacity() {
+            return capacity;
+        }
+
+        int getUsed() {
+            return used;
+        }
+
+        int getPages() {
+            return pages;
+        }
+
+        /**
+         * @return Bytes desperdiçados pelo arredondamento para o tamanho do slot
+         */
+        long getInternalFragmentation() {
+            return (long) used * objectSize - requestedBytes;
+        }
+
+        private void push(long slot) {
+            if (freeCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+            }
+            freeSlots[freeCount++] = slot;
+        }
+    }
+
+    /**
+     * Uma página de slabs.
+     */
+    static class SlabPage {
+        private final int number;
+        private final SlabClass slabClass;
+        private final long address;
+        private final long size;
+        private final int[] ids;
+        private final int[] requestedSizes;
+        private int used;
+
+        SlabPage(int number, SlabClass slabClass, long address, long size, int slots) {
+            this.number = number;
+            this.slabClass = slabClass;
+            this.address = address;
+            this.size = size;
+            this.ids = new int[slots];
+            this.requestedSizes = new int[slots];
+        }
+
+        SlabClass getSlabClass() {
+            return slabClass;
+        }
+
+        /**
+         * @return Endereço do bloco da lista principal reservado para a página
+         */
+        long getAddress() {
+            return address;
+        }
+
+        /**
+         * @return Tamanho do bloco reservado (pode passar do espaço dos slots)
+         */
+        long getSize() {
+            return size;
+        }
+
+        /**
+         * @return Número de slots ocupados da página
+         */
+        int usedSlots() {
+            return used;
+        }
+
+        int totalSlots() {
+            return ids.length;
+        }
+
+        /**
+         * @return ID do objeto no slot da posição, ou 0 se o slot está livre
+         */
+        int getId(int index) {
+            return ids[index];
+        }
+
+        /**
+         * @return Endereço inicial do slot da posição
+         */
+        long getSlotStart(int index) {
+            return address + (long) index * slabClass.objectSize;
+        }
+    }
+
+    private final SlabClass[] classes;
+    private final int pageSize;
+    private SlabPage[] pages = new SlabPage[4];
+    private int pageCount;
+    private final IdIndex objectsById = new IdIndex();
+    private final TreeMap<Long, SlabPage> pagesByAddress = new TreeMap<>();
+
+    /**
+     * @param classSizes Tamanhos das classes (serão ordenados; repetidos são ignorados)
+     * @param pageSize Tamanho de cada página; deve comportar ao menos um objeto da maior classe
+     */
+    SlabAllocator(int[] classSizes, int pageSize) {
+        int[] sizes = Arrays.stream(classSizes).sorted().distinct().toArray();
+        if (sizes.length == 0 || sizes[0] <= 0) {
+            throw new IllegalArgumentException("Classes de tamanho devem ser maiores que 0.");
+        }
+        if (pageSize < sizes[sizes.length - 1]) {
+            throw new IllegalArgumentException("Página deve comportar ao menos um objeto da maior classe.");
+        }
+        this.classes = new SlabClass[sizes.length];
+        for (int i = 0; i < sizes.length; i++) {
+            classes[i] = new SlabClass(sizes[i]);
+        }
+        this.pageSize = pageSize;
+    }
+
+    int getPageSize() {
+        return pageSize;
+    }
+
+    SlabClass[] getClasses() {
+        return classes;
+    }
+
+    /**
+     * @return Menor classe que comporta 'size' bytes, ou null se o pedido
+     *         deve seguir para os algoritmos de fit
+     */
+    SlabClass classFor(long size) {
+        for (SlabClass slabClass : classes) {
+            if (slabClass.objectSize >= size) {
+                return slabClass;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Desempilha um slot livre da classe.
+     *
+     * @return Slot livre, ou NIL se a classe precisa de uma nova página
+     */
+    long take(SlabClass slabClass) {
+        if (slabClass.freeCount == 0) {
+            return NIL;
+        }
+        return slabClass.freeSlots[--slabClass.freeCount];
+    }
+
+    /**
+     * Divide uma página recém-reservada em slots livres da classe.
+     *
+     * @param slabClass Classe dona da página
+     * @param pageAddress Endereço do bloco da lista principal reservado para a página
+     * @param pageSize Tamanho do bloco reservado
+     */
+    void addPage(SlabClass slabClass, long pageAddress, long pageSize) {
+        int count = (int) (pageSize / slabClass.objectSize);
+        if (pageCount == pages.length) {
+            pages = Arrays.copyOf(pages, pageCount * 2);
+        }
+        SlabPage page = new SlabPage(pageCount, slabClass, pageAddress, pageSize, count);
+        pages[pageCount++] = page;
+        // Empilha em ordem inversa para que os primeiros slots saiam primeiro
+        for (int i = count - 1; i >= 0; i--) {
+            slabClass.push(slot(page, i));
+        }
+        slabClass.capacity += count;
+        slabClass.pages++;
+        pagesByAddress.put(pageAddress, page);
+    }
+
+    /**
+     * Registra um slot como alocado com o ID e o tamanho pedido.
+     */
+    void register(SlabClass slabClass, long slot, int id, long requestedSize) {
+        SlabPage page = pageOf(slot);
+        int index = indexOf(slot);
+        page.ids[index] = id;
+        page.requestedSizes[index] = (int) requestedSize;
+        page.used++;
+        slabClass.used++;
+        slabClass.requestedBytes += requestedSize;
+        objectsById.put(id, slot);
+    }
+
+    /**
+     * Altera o tamanho pedido de um objeto sem trocar de slot.
+     *
+     * @param slot Objeto alocado
+     * @param requestedSize Novo tamanho pedido (até o tamanho do slot)
+     */
+    void resize(long slot, long requestedSize) {
+        SlabPage page = pageOf(slot);
+        int index = indexOf(slot);
+        page.slabClass.requestedBytes += requestedSize - page.requestedSizes[index];
+        page.requestedSizes[index] = (int) requestedSize;
+    }
+
+    /**
+     * @return Slot do objeto alocado com o ID, ou NIL se não for um objeto de slab
+     */
+    long objectById(int id) {
+        return objectsById.getLong(id);
+    }
+
+    /**
+     * @return Slot do objeto alocado que começa em 'address', ou NIL
+     */
+    long objectAt(long address) {
+        long slot = slotAt(address);
+        if (slot == NIL || getId(slot) == 0 || getStartAddress(slot) != address) {
+            return NIL;
+        }
+        return slot;
+    }
+
+    /**
+     * @return Slot (livre ou ocupado) que contém 'address', ou NIL se o
+     *         endereço não está em um slot de página
+     */
+    long slotAt(long address) {
+        SlabPage page = pageAt(address);
+        if (page == null) {
+            return NIL;
+        }
+        long offset = address - page.address;
+        return slot(page, (int) (offset / page.slabClass.objectSize));
+    }
+
+    /**
+     * @return Página que contém 'address', ou null
+     */
+    SlabPage pageAt(long address) {
+        Map.Entry<Long, SlabPage> entry = pagesByAddress.floorEntry(address);
+        if (entry == null) {
+            return null;
+        }
+        SlabPage page = entry.getValue();
+        long offset = address - page.address;
+        if (offset >= (long) page.ids.length * page.slabClass.objectSize) {
+            return null;
+        }
+        return page;
+    }
+
+    /**
+     * @return ID do objeto no slot, ou 0 se o slot está livre
+     */
+    int getId(long slot) {
+        return pageOf(slot).ids[indexOf(slot)];
+    }
+
+    long getStartAddress(long slot) {
+        return pageOf(slot).getSlotStart(indexOf(slot));
+    }
+
+    /**
+     * @return Tamanho do slot (o da classe)
+     */
+    int getSize(long slot) {
+        return pageOf(slot).slabClass.objectSize;
+    }
+
+    /**
+     * Devolve um objeto à pilha de slots livres da sua classe.
+     */
+    void release(long slot) {
+        SlabPage page = pageOf(slot);
+        int index = indexOf(slot);
+        SlabClass slabClass = page.slabClass;
+        objectsById.remove(page.ids[index]);
+        slabClass.used--;
+        slabClass.requestedBytes -= page.requestedSizes[index];
+        page.ids[index] = 0;
+        page.requestedSizes[index] = 0;
+        page.used--;
+        slabClass.push(slot);
+    }
+
+    /**
+     * @return Número de objetos alocados em todas as classes
+     */
+    int liveObjects() {
+        return objectsById.size();
+    }
+
+    /**
+     * @return Blocos da lista principal reservados como páginas
+     */
+    Iterable<SlabPage> pages() {
+        return pagesByAddress.values();
+    }
+
+    private static long slot(SlabPage page, int index) {
+        return (long) page.number << 32 | index;
+    }
+
+    private SlabPage pageOf(long slot) {
+        return pages[(int) (slot >>> 32)];
+    }
+
+    private static int indexOf(long slot) {
+        return (int) slot;
+    }
+}
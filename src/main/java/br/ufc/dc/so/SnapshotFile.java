@@ -0,0 +1,169 @@
+package br.ufc.dc.so;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Arquivo de snapshot do MemoryManager (save/load), lido e escrito por
+ * mapeamento em memória.
+ *
+ * Formato (big-endian):
+ * - Cabeçalho de HEADER_BYTES: MAGIC, VERSION, tamanho da memória, modo da
+ *   memória física, unidade do bitmap (0 = lista de blocos), próximo ID,
+ *   contadores de operações, pico de uso e número de registros
+ * - Um registro de RECORD_BYTES por bloco alocado, em ordem de endereço:
+ *   ID, endereço, tamanho reservado e tamanho pedido
+ * - Os bytes da memória física de cada bloco alocado, na ordem dos
+ *   registros (ausentes no modo NONE)
+ *
+ * Estrutura de dados utilizada:
+ * - MappedByteBuffer: Janela de até WINDOW bytes do arquivo, remapeada
+ *   conforme a posição avança
+ *
+ * Decisões de implementação:
+ * - Os blocos livres não são gravados: são os intervalos entre os registros,
+ *   e seus bytes na memória física são sempre zero
+ * - Um mapeamento é limitado a 2 GB; as janelas de 1 GB permitem arquivos
+ *   de qualquer tamanho, e os bytes dos blocos passam da janela para a
+ *   memória física (e vice-versa) com as cópias em bloco do BackingStore
+ * - Ao criar, o arquivo já recebe o tamanho final; ao abrir, qualquer
+ *   leitura além do fim vira IOException (snapshot truncado)
+ */
+class SnapshotFile implements Closeable {
+    static final int MAGIC = 0x4D4D534E;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 64;
+    static final int RECORD_BYTES = 28;
+    private static final long WINDOW = 1L << 30;
+
+    private final FileChannel channel;
+    private final FileChannel.MapMode mode;
+    private final long length;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long position;
+
+    private SnapshotFile(FileChannel channel, FileChannel.MapMode mode, long length) {
+        this.channel = channel;
+        this.mode = mode;
+        this.length = length;
+    }
+
+    /**
+     * Cria (ou substitui) um arquivo de 'length' bytes para escrita.
+     */
+    static SnapshotFile create(Path path, long length) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                               StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        return new SnapshotFile(channel, FileChannel.MapMode.READ_WRITE, length);
+    }
+
+    /**
+     * Abre um arquivo existente para leitura.
+     */
+    static SnapshotFile open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        return new SnapshotFile(channel, FileChannel.MapMode.READ_ONLY, channel.size());
+    }
+
+    /**
+     * @return Tamanho do arquivo em bytes
+     */
+    long length() {
+        return length;
+    }
+
+    /**
+     * Volta (ou avança) para a posição 'position' do arquivo.
+     */
+    void seek(long position) {
+        this.position = position;
+    }
+
+    void putInt(int value) throws IOException {
+        window(4).putInt(value);
+        position += 4;
+    }
+
+    void putLong(long value) throws IOException {
+        window(8).putLong(value);
+        position += 8;
+    }
+
+    int getInt() throws IOException {
+        int value = window(4).getInt();
+        position += 4;
+        return value;
+    }
+
+    long getLong() throws IOException {
+        long value = window(8).getLong();
+        position += 8;
+        return value;
+    }
+
+    /**
+     * Grava os bytes [address, address + count) da memória física.
+     */
+    void putBytes(BackingStore memory, long address, long count) throws IOException {
+        while (count > 0) {
+            ByteBuffer part = part(count);
+            int n = part.remaining();
+            memory.read(address, part);
+            address += n;
+            count -= n;
+        }
+    }
+
+    /**
+     * Lê 'count' bytes para [address, address + count) da memória física.
+     */
+    void getBytes(BackingStore memory, long address, long count) throws IOException {
+        while (count > 0) {
+            ByteBuffer part = part(count);
+            int n = part.remaining();
+            memory.write(address, part);
+            address += n;
+            count -= n;
+        }
+    }
+
+    /**
+     * Trecho da janela atual com até 'count' bytes a partir da posição,
+     * avançando a posição até o fim dele.
+     */
+    private ByteBuffer part(long count) throws IOException {
+        MappedByteBuffer current = window(1);
+        int n = (int) Math.min(count, current.remaining());
+        ByteBuffer part = current.slice(current.position(), n);
+        position += n;
+        return part;
+    }
+
+    /**
+     * Garante que os próximos 'bytes' bytes estão na janela mapeada e a
+     * posiciona no início deles.
+     */
+    private MappedByteBuffer window(int bytes) throws IOException {
+        if (position + bytes > length) {
+            throw new IOException("Snapshot truncado: esperados " + (position + bytes) +
+                                  " bytes, o arquivo tem " + length + ".");
+        }
+        if (window == null || position < windowStart || position + bytes > windowStart + window.capacity()) {
+            windowStart = position;
+            window = channel.map(mode, position, Math.min(WINDOW, length - position));
+        }
+        window.position((int) (position - windowStart));
+        return window;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
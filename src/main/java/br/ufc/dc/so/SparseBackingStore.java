@@ -0,0 +1,255 @@
+package br.ufc.dc.so;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Memória física simulada esparsa, paginada sob demanda.
+ *
+ * Estrutura de dados utilizada:
+ * - byte[][]: Tabela de páginas de 64 KB; uma página ausente (null) vale
+ *   zero em todos os bytes
+ * - int[]: Número de bytes diferentes de zero em cada página
+ *
+ * Decisões de implementação:
+ * - init não reserva nem zera a memória: apenas a tabela de páginas é
+ *   criada, então memórias de dezenas de GB são inicializadas em milissegundos
+ * - Uma página é materializada quando um fill com valor diferente de zero a
+ *   alcança pela primeira vez, e volta ao estado implícito (null) quando
+ *   todos os seus bytes voltam a zero
+ * - O uso de memória real acompanha as páginas tocadas pelos blocos vivos,
+ *   e não o tamanho lógico
+ * - copy trabalha por trechos que não atravessam páginas: trechos de
+ *   páginas ausentes viram um fill com zero, e os demais são copiados com
+ *   System.arraycopy, recontando os bytes não zero do destino
+ * - read devolve zeros para as páginas ausentes, e write não materializa
+ *   páginas que continuam só com zeros
+ */
+public class SparseBackingStore implements BackingStore {
+    public static final int PAGE_BITS = 16;
+    public static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final long PAGE_MASK = PAGE_SIZE - 1;
+    private static final byte[] ZERO_PAGE = new byte[PAGE_SIZE];
+
+    private final long size;
+    private final byte[][] pages;
+    private final int[] nonZeroBytes;
+    private int residentPages;
+
+    /**
+     * @param size Tamanho em bytes
+     */
+    public SparseBackingStore(long size) {
+        long count = (size + PAGE_SIZE - 1) >>> PAGE_BITS;
+        if (count > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Tamanho excede o limite do modo sparse.");
+        }
+        this.size = size;
+        this.pages = new byte[(int) count][];
+        this.nonZeroBytes = new int[(int) count];
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public byte get(long address) {
+        byte[] page = pages[(int) (address >>> PAGE_BITS)];
+        return page == null ? 0 : page[(int) (address & PAGE_MASK)];
+    }
+
+    @Override
+    public void fill(long address, long length, byte value) {
+        long end = address + length;
+
+        while (address < end) {
+            int index = (int) (address >>> PAGE_BITS);
+            int offset = (int) (address & PAGE_MASK);
+            int limit = (int) Math.min(PAGE_SIZE, offset + (end - address));
+
+            if (offset == 0 && limit == PAGE_SIZE) {
+                fillPage(index, value);
+            } else {
+                fillPartial(index, offset, limit, value);
+            }
+            address += limit - offset;
+        }
+    }
+
+    /**
+     * Página inteira coberta: descarta (zero) ou materializa sem contar bytes.
+     */
+    private void fillPage(int index, byte value) {
+        if (value == 0) {
+            if (pages[index] != null) {
+                pages[index] = null;
+                nonZeroBytes[index] = 0;
+                residentPages--;
+            }
+            return;
+        }
+        byte[] page = pages[index];
+        if (page == null) {
+            page = new byte[PAGE_SIZE];
+            pages[index] = page;
+            residentPages++;
+        }
+        Arrays.fill(page, value);
+        nonZeroBytes[index] = PAGE_SIZE;
+    }
+
+    /**
+     * Parte de uma página: escreve byte a byte mantendo a contagem de não zeros.
+     */
+    private void fillPartial(int index, int from, int to, byte value) {
+        byte[] page = pages[index];
+        if (page == null) {
+            if (value == 0) {
+                return;
+            }
+            page = new byte[PAGE_SIZE];
+            pages[index] = page;
+            residentPages++;
+        }
+
+        int nonZero = nonZeroBytes[index];
+        for (int i = from; i < to; i++) {
+            if (page[i] != 0) {
+                nonZero--;
+            }
+            page[i] = value;
+        }
+        if (value != 0) {
+            nonZero += to - from;
+        }
+
+        if (nonZero == 0) {
+            pages[index] = null;
+            residentPages--;
+        }
+        nonZeroBytes[index] = nonZero;
+    }
+
+    @Override
+    public void copy(long from, long to, long length) {
+        if (to <= from) {
+            while (length > 0) {
+                int n = (int) Math.min(length, Math.min(PAGE_SIZE - (from & PAGE_MASK), PAGE_SIZE - (to & PAGE_MASK)));
+                copyPart(from, to, n);
+                from += n;
+                to += n;
+                length -= n;
+            }
+        } else {
+            long fromEnd = from + length;
+            long toEnd = to + length;
+            while (length > 0) {
+                int n = (int) Math.min(length, Math.min(((fromEnd - 1) & PAGE_MASK) + 1, ((toEnd - 1) & PAGE_MASK) + 1));
+                fromEnd -= n;
+                toEnd -= n;
+                copyPart(fromEnd, toEnd, n);
+                length -= n;
+            }
+        }
+    }
+
+    /**
+     * Copia um trecho que não atravessa fronteiras de página.
+     */
+    private void copyPart(long from, long to, int length) {
+        byte[] source = pages[(int) (from >>> PAGE_BITS)];
+        if (source == null) {
+            fill(to, length, (byte) 0);
+            return;
+        }
+
+        int index = (int) (to >>> PAGE_BITS);
+        int offset = (int) (to & PAGE_MASK);
+        byte[] page = pages[index];
+        if (page == null) {
+            page = new byte[PAGE_SIZE];
+            pages[index] = page;
+            residentPages++;
+        }
+
+        int nonZero = nonZeroBytes[index] - countNonZero(page, offset, offset + length);
+        System.arraycopy(source, (int) (from & PAGE_MASK), page, offset, length);
+        nonZero += countNonZero(page, offset, offset + length);
+
+        if (nonZero == 0) {
+            pages[index] = null;
+            residentPages--;
+        }
+        nonZeroBytes[index] = nonZero;
+    }
+
+    @Override
+    public void read(long address, ByteBuffer target) {
+        while (target.hasRemaining()) {
+            int offset = (int) (address & PAGE_MASK);
+            int n = Math.min(target.remaining(), PAGE_SIZE - offset);
+            byte[] page = pages[(int) (address >>> PAGE_BITS)];
+            if (page == null) {
+                target.put(ZERO_PAGE, 0, n);
+            } else {
+                target.put(page, offset, n);
+            }
+            address += n;
+        }
+    }
+
+    @Override
+    public void write(long address, ByteBuffer source) {
+        while (source.hasRemaining()) {
+            int index = (int) (address >>> PAGE_BITS);
+            int offset = (int) (address & PAGE_MASK);
+            int n = Math.min(source.remaining(), PAGE_SIZE - offset);
+            byte[] page = pages[index];
+            boolean created = page == null;
+            if (created) {
+                page = new byte[PAGE_SIZE];
+            }
+
+            int nonZero = nonZeroBytes[index] - countNonZero(page, offset, offset + n);
+            source.get(page, offset, n);
+            nonZero += countNonZero(page, offset, offset + n);
+
+            // Página nova que recebeu só zeros continua implícita
+            if (nonZero == 0 && !created) {
+                pages[index] = null;
+                residentPages--;
+            } else if (nonZero > 0 && created) {
+                pages[index] = page;
+                residentPages++;
+            }
+            nonZeroBytes[index] = nonZero;
+            address += n;
+        }
+    }
+
+    private static int countNonZero(byte[] page, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (page[i] != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return Número de páginas materializadas
+     */
+    public int getResidentPages() {
+        return residentPages;
+    }
+
+    /**
+     * @return Número total de páginas do espaço de endereços
+     */
+    public int getPageCount() {
+        return pages.length;
+    }
+}
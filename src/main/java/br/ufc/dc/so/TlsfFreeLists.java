@@ -0,0 +1,188 @@
+package br.ufc.dc.so;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Índice TLSF (Two-Level Segregated Fit) dos blocos livres.
+ *
+ * Estrutura de dados utilizada:
+ * - Primeiro nível (FL): classes de tamanho por potência de 2, com um bitmap
+ *   (long) indicando quais classes têm blocos livres
+ * - Segundo nível (SL): cada classe do primeiro nível é dividida em 16
+ *   subclasses lineares, com um bitmap por classe do primeiro nível
+ * - Uma lista duplamente encadeada de blocos livres por subclasse, com os
+ *   índices dos blocos da BlockTable e os elos em int[] prevFree/nextFree
+ *   (sem alocação por bloco)
+ *
+ * Decisões de implementação:
+ * - Inserir e remover um bloco é O(1): cálculo da classe por
+ *   numberOfLeadingZeros e ajuste de ponteiros e bits
+ * - Buscar é O(1): o tamanho pedido é arredondado para o início da subclasse
+ *   seguinte, de modo que qualquer bloco de uma subclasse >= a encontrada
+ *   serve; a subclasse é achada com Long.numberOfTrailingZeros nos bitmaps
+ * - Os vizinhos físicos (prev/next da BlockTable) funcionam como boundary
+ *   tags: split e merge continuam sendo feitos pelo MemoryManager em O(1)
+ * - Tamanhos menores que 16 bytes ficam na classe 0, uma subclasse por byte
+ */
+class TlsfFreeLists {
+    private static final int SL_COUNT_LOG2 = 4;
+    private static final int SL_COUNT = 1 << SL_COUNT_LOG2;
+    private static final int FL_SHIFT = SL_COUNT_LOG2 - 1;
+    private static final int FL_COUNT = 64 - FL_SHIFT;
+
+    private static final int NIL = BlockTable.NIL;
+
+    private long flBitmap;
+    private final long[] slBitmaps = new long[FL_COUNT];
+    private final int[][] heads = new int[FL_COUNT][SL_COUNT];
+    private int[] prevFree = new int[16];
+    private int[] nextFree = new int[16];
+
+    TlsfFreeLists() {
+        for (int[] row : heads) {
+            Arrays.fill(row, NIL);
+        }
+    }
+
+    /**
+     * Insere um bloco livre no início da lista da sua subclasse.
+     *
+     * @param block Índice do bloco na BlockTable
+     * @param size Tamanho do bloco
+     */
+    void insert(int block, long size) {
+        int fl = firstLevel(size);
+        int sl = secondLevel(size, fl);
+
+        if (block >= prevFree.length) {
+            int capacity = Math.max(block + 1, prevFree.length * 2);
+            prevFree = Arrays.copyOf(prevFree, capacity);
+            nextFree = Arrays.copyOf(nextFree, capacity);
+        }
+        int head = heads[fl][sl];
+        prevFree[block] = NIL;
+        nextFree[block] = head;
+        if (head != NIL) {
+            prevFree[head] = block;
+        }
+        heads[fl][sl] = block;
+        flBitmap |= 1L << fl;
+        slBitmaps[fl] |= 1L << sl;
+    }
+
+    /**
+     * Remove um bloco livre da lista da sua subclasse.
+     * Deve ser chamado antes de alterar o tamanho do bloco.
+     *
+     * @param block Índice do bloco na BlockTable
+     * @param size Tamanho do bloco (o mesmo usado em insert)
+     */
+    void remove(int block, long size) {
+        int fl = firstLevel(size);
+        int sl = secondLevel(size, fl);
+
+        int prev = prevFree[block];
+        int next = nextFree[block];
+        if (prev != NIL) {
+            nextFree[prev] = next;
+        } else {
+            heads[fl][sl] = next;
+        }
+        if (next != NIL) {
+            prevFree[next] = prev;
+        }
+        prevFree[block] = NIL;
+        nextFree[block] = NIL;
+
+        if (heads[fl][sl] == NIL) {
+            slBitmaps[fl] &= ~(1L << sl);
+            if (slBitmaps[fl] == 0) {
+                flBitmap &= ~(1L << fl);
+            }
+        }
+    }
+
+    /**
+     * Encontra um bloco livre com pelo menos 'size' bytes em tempo constante.
+     *
+     * @param size Tamanho pedido
+     * @return Índice do bloco livre (ainda no índice), ou NIL se não houver
+     */
+    int find(long size) {
+        // Arredonda para o início da próxima subclasse (good fit)
+        long rounded = size;
+        if (size >= SL_COUNT) {
+            rounded += (1L << (log2(size) - SL_COUNT_LOG2)) - 1;
+        }
+        if (rounded < 0) {
+            return NIL;
+        }
+
+        int fl = firstLevel(rounded);
+        int sl = secondLevel(rounded, fl);
+
+        long slMap = slBitmaps[fl] & (-1L << sl);
+        if (slMap == 0) {
+            long flMap = fl + 1 < FL_COUNT ? flBitmap & (-1L << (fl + 1)) : 0;
+            if (flMap == 0) {
+                return NIL;
+            }
+            fl = Long.numberOfTrailingZeros(flMap);
+            slMap = slBitmaps[fl];
+        }
+        sl = Long.numberOfTrailingZeros(slMap);
+        return heads[fl][sl];
+    }
+
+    /**
+     * Tamanho do maior bloco livre: percorre só a lista da subclasse mais
+     * alta que tem blocos.
+     *
+     * @param blocks Tabela dos blocos (tamanhos)
+     * @return Tamanho do maior bloco, ou 0 se não houver blocos
+     */
+    long largest(BlockTable blocks) {
+        if (flBitmap == 0) {
+            return 0;
+        }
+        int fl = 63 - Long.numberOfLeadingZeros(flBitmap);
+        int sl = 63 - Long.numberOfLeadingZeros(slBitmaps[fl]);
+        long largest = 0;
+        for (int block = heads[fl][sl]; block != NIL; block = nextFree[block]) {
+            largest = Math.max(largest, blocks.getSize(block));
+        }
+        return largest;
+    }
+
+    /**
+     * Percorre os blocos de todas as listas (para verificações de consistência).
+     */
+    void forEach(IntConsumer action) {
+        for (int[] row : heads) {
+            for (int head : row) {
+                for (int block = head; block != NIL; block = nextFree[block]) {
+                    action.accept(block);
+                }
+            }
+        }
+    }
+
+    private static int log2(long size) {
+        return 63 - Long.numberOfLeadingZeros(size);
+    }
+
+    private static int firstLevel(long size) {
+        if (size < SL_COUNT) {
+            return 0;
+        }
+        return log2(size) - FL_SHIFT;
+    }
+
+    private static int secondLevel(long size, int fl) {
+        if (fl == 0) {
+            return (int) size;
+        }
+        return (int) (size >>> (fl + FL_SHIFT - SL_COUNT_LOG2)) ^ SL_COUNT;
+    }
+}
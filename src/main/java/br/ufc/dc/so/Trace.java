@@ -0,0 +1,115 @@
+package br.ufc.dc.so;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Trace já lido para a memória, para ser reproduzido várias vezes.
+ *
+ * Estrutura de dados utilizada:
+ * - Arrays paralelos (byte[] de operações, int[] de handles e int[] de
+ *   tamanhos), indexados pela posição da operação no trace: 9 bytes por
+ *   operação e nenhum objeto por operação
+ *
+ * Decisões de implementação:
+ * - Depois de carregado, o trace não é mais modificado e os arrays não são
+ *   expostos, então a mesma instância pode ser reproduzida por várias
+ *   threads ao mesmo tempo sem cópia nem sincronização
+ * - Para reproduzir uma única vez, o TraceReader em streaming continua sendo
+ *   a opção que não guarda o trace inteiro
+ */
+public class Trace {
+    private final byte[] ops;
+    private final int[] handles;
+    private final int[] sizes;
+    private final int length;
+    private final int maxHandle;
+
+    private Trace(byte[] ops, int[] handles, int[] sizes, int length, int maxHandle) {
+        this.ops = ops;
+        this.handles = handles;
+        this.sizes = sizes;
+        this.length = length;
+        this.maxHandle = maxHandle;
+    }
+
+    /**
+     * Lê todas as operações restantes de um TraceReader.
+     *
+     * @param reader Leitor do trace
+     * @return Trace em memória
+     * @throws IOException Em erro de leitura ou trace malformado
+     */
+    public static Trace load(TraceReader reader) throws IOException {
+        byte[] ops = new byte[1024];
+        int[] handles = new int[1024];
+        int[] sizes = new int[1024];
+        int length = 0;
+        int maxHandle = -1;
+
+        while (reader.next()) {
+            if (length == ops.length) {
+                if (length == Integer.MAX_VALUE - 8) {
+                    throw new IOException("Trace com mais de " + length + " operações.");
+                }
+                int capacity = (int) Math.min(Integer.MAX_VALUE - 8, length * 2L);
+                ops = Arrays.copyOf(ops, capacity);
+                handles = Arrays.copyOf(handles, capacity);
+                sizes = Arrays.copyOf(sizes, capacity);
+            }
+            ops[length] = (byte) reader.getOp();
+            handles[length] = reader.getHandle();
+            sizes[length] = reader.getSize();
+            maxHandle = Math.max(maxHandle, reader.getHandle());
+            length++;
+        }
+
+        return new Trace(ops, handles, sizes, length, maxHandle);
+    }
+
+    /**
+     * Lê um arquivo de trace inteiro.
+     *
+     * @param path Caminho do arquivo
+     * @return Trace em memória
+     */
+    public static Trace load(Path path) throws IOException {
+        try (TraceReader reader = TraceReader.open(path)) {
+            return load(reader);
+        }
+    }
+
+    /**
+     * @return Número de operações
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * @return Maior handle usado no trace, ou -1 se o trace estiver vazio
+     */
+    public int getMaxHandle() {
+        return maxHandle;
+    }
+
+    /**
+     * @param index Posição da operação
+     * @return TraceReader.ALLOC ou TraceReader.FREE
+     */
+    public char getOp(int index) {
+        return (char) ops[index];
+    }
+
+    public int getHandle(int index) {
+        return handles[index];
+    }
+
+    /**
+     * @return Tamanho solicitado (apenas para ALLOC)
+     */
+    public int getSize(int index) {
+        return sizes[index];
+    }
+}
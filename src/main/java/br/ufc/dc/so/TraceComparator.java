@@ -0,0 +1,102 @@
+package br.ufc.dc.so;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Compara os algoritmos de alocação reproduzindo os mesmos traces em
+ * paralelo.
+ *
+ * Estrutura de dados utilizada:
+ * - Trace: cada trace é carregado uma vez e lido por todas as reproduções
+ * - List<Future<ReplayReport>>: Um replay por par (trace, algoritmo), na
+ *   ordem em que os resultados são devolvidos
+ *
+ * Decisões de implementação:
+ * - Cada replay usa um MemoryManager próprio (o gerenciador não é
+ *   thread-safe) e um TraceReplayer próprio; o único dado compartilhado é o
+ *   Trace, que é imutável
+ * - Os replays rodam em threads virtuais, cujo escalonador usa uma thread de
+ *   plataforma por núcleo; todos os pares são submetidos de uma vez, então
+ *   comparar vários traces ocupa todos os núcleos mesmo com poucos
+ *   algoritmos
+ */
+public class TraceComparator {
+    private final long memorySize;
+    private final long sampleInterval;
+
+    /**
+     * @param memorySize Tamanho da memória de cada replay
+     * @param sampleInterval Intervalo (em operações) entre amostras de fragmentação
+     */
+    public TraceComparator(long memorySize, long sampleInterval) {
+        if (memorySize < 0) {
+            throw new IllegalArgumentException("Tamanho da memória não pode ser negativo.");
+        }
+        if (sampleInterval <= 0) {
+            throw new IllegalArgumentException("Intervalo de amostragem deve ser maior que 0.");
+        }
+        this.memorySize = memorySize;
+        this.sampleInterval = sampleInterval;
+    }
+
+    /**
+     * Reproduz um trace com cada algoritmo.
+     *
+     * @param trace Trace carregado
+     * @param algorithms Algoritmos a comparar
+     * @return Um relatório por algoritmo, na ordem de 'algorithms'
+     */
+    public List<ReplayReport> compare(Trace trace, List<FitAlgorithm> algorithms) throws InterruptedException {
+        return compare(List.of(trace), algorithms).get(0);
+    }
+
+    /**
+     * Reproduz cada trace com cada algoritmo, todos os replays em paralelo.
+     *
+     * @param traces Traces carregados
+     * @param algorithms Algoritmos a comparar
+     * @return Para cada trace (na ordem de 'traces'), um relatório por algoritmo
+     */
+    public List<List<ReplayReport>> compare(List<Trace> traces, List<FitAlgorithm> algorithms)
+            throws InterruptedException {
+        List<Future<ReplayReport>> futures = new ArrayList<>(traces.size() * algorithms.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Trace trace : traces) {
+                for (FitAlgorithm algorithm : algorithms) {
+                    futures.add(executor.submit(() -> replay(trace, algorithm)));
+                }
+            }
+
+            List<List<ReplayReport>> results = new ArrayList<>(traces.size());
+            int next = 0;
+            for (int t = 0; t < traces.size(); t++) {
+                List<ReplayReport> reports = new ArrayList<>(algorithms.size());
+                for (int a = 0; a < algorithms.size(); a++) {
+                    reports.add(futures.get(next++).get());
+                }
+                results.add(reports);
+            }
+            return results;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private ReplayReport replay(Trace trace, FitAlgorithm algorithm) {
+        MemoryManager manager = new MemoryManager();
+        manager.init(memorySize);
+        return new TraceReplayer(manager, algorithm, sampleInterval).replay(trace);
+    }
+}
@@ -0,0 +1,152 @@
+package br.ufc.dc.so;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Leitor de arquivos de trace de alocação/liberação.
+ *
+ * Formato (uma operação por linha):
+ * - a <handle> <tamanho>: Aloca 'tamanho' bytes e associa o bloco ao handle
+ * - f <handle>: Libera o bloco associado ao handle
+ * - Linhas vazias e linhas iniciadas por '#' são ignoradas
+ *
+ * Os handles são definidos pelo trace (e não pelos IDs do MemoryManager),
+ * de modo que o mesmo trace pode ser reproduzido com qualquer FitAlgorithm.
+ *
+ * O arquivo é lido em streaming: apenas a linha atual fica em memória, e a
+ * operação lida é exposta pelos getters até a próxima chamada de next().
+ */
+public class TraceReader implements Closeable {
+    public static final char ALLOC = 'a';
+    public static final char FREE = 'f';
+
+    private final BufferedReader reader;
+    private long lineNumber;
+    private char op;
+    private int handle;
+    private int size;
+
+    // Posição do tokenizador na linha atual
+    private String line;
+    private int pos;
+
+    public TraceReader(Reader in) {
+        this.reader = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in, 1 << 16);
+    }
+
+    /**
+     * Abre um arquivo de trace para leitura.
+     *
+     * @param path Caminho do arquivo
+     * @return Leitor posicionado antes da primeira operação
+     */
+    public static TraceReader open(Path path) throws IOException {
+        return new TraceReader(Files.newBufferedReader(path, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Avança para a próxima operação do trace.
+     *
+     * @return true se uma operação foi lida, false no fim do arquivo
+     * @throws IOException Em erro de leitura ou linha malformada
+     */
+    public boolean next() throws IOException {
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            pos = 0;
+            skipSpaces();
+            if (pos == line.length() || line.charAt(pos) == '#') {
+                continue;
+            }
+
+            char c = line.charAt(pos);
+            skipToken();
+            if (c == ALLOC) {
+                op = ALLOC;
+                handle = nextInt();
+                size = nextInt();
+            } else if (c == FREE) {
+                op = FREE;
+                handle = nextInt();
+                size = 0;
+            } else {
+                throw malformed("operação desconhecida");
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return ALLOC ou FREE
+     */
+    public char getOp() {
+        return op;
+    }
+
+    public int getHandle() {
+        return handle;
+    }
+
+    /**
+     * @return Tamanho solicitado (apenas para ALLOC)
+     */
+    public int getSize() {
+        return size;
+    }
+
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private void skipSpaces() {
+        while (pos < line.length() && Character.isWhitespace(line.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private void skipToken() {
+        while (pos < line.length() && !Character.isWhitespace(line.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    /**
+     * Lê um inteiro não negativo sem criar substrings.
+     */
+    private int nextInt() throws IOException {
+        skipSpaces();
+        int start = pos;
+        long value = 0;
+        while (pos < line.length()) {
+            char c = line.charAt(pos);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            value = value * 10 + (c - '0');
+            if (value > Integer.MAX_VALUE) {
+                throw malformed("número fora do intervalo");
+            }
+            pos++;
+        }
+        if (pos == start || (pos < line.length() && !Character.isWhitespace(line.charAt(pos)))) {
+            throw malformed("número inválido");
+        }
+        return (int) value;
+    }
+
+    private IOException malformed(String message) {
+        return new IOException("Trace malformado na linha " + lineNumber + ": " + message + " ('" + line + "')");
+    }
+}
@@ -0,0 +1,153 @@
+package br.ufc.dc.so;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reproduz um trace (ver TraceReader) sobre um MemoryManager.
+ *
+ * Estrutura de dados utilizada:
+ * - int[] indexado pelo handle do trace, com o ID do bloco no MemoryManager
+ *   (0 quando o handle não tem bloco vivo), evitando boxing em um HashMap
+ *
+ * Decisões de implementação:
+ * - Todas as alocações usam o mesmo FitAlgorithm, o que permite comparar os
+ *   algoritmos sobre o mesmo trace
+ * - Liberações de handles sem bloco vivo (porque a alocação falhou) são
+ *   contadas e ignoradas
+ * - Uma alocação em um handle que ainda tem bloco vivo (trace malformado)
+ *   é contada; o bloco anterior continua alocado até o fim do replay, já que
+ *   o trace não o libera
+ * - A cada 'sampleInterval' operações é registrada uma FragmentationSample,
+ *   além de uma amostra final; a amostra vem de MemoryManager.snapshot(),
+ *   sem percorrer a lista de blocos, então amostrar após cada operação não
+ *   torna o replay quadrático
+ * - O pico de buracos é acompanhado após cada operação (getHoleCount é O(1)),
+ *   e não apenas nas amostras
+ * - O trace pode vir em streaming (TraceReader) ou já carregado (Trace); os
+ *   dois caminhos aplicam as operações pelo mesmo código
+ */
+public class TraceReplayer {
+    private final MemoryManager manager;
+    private final FitAlgorithm algorithm;
+    private final long sampleInterval;
+
+    /**
+     * @param manager Gerenciador já inicializado
+     * @param algorithm Algoritmo usado em todas as alocações
+     * @param sampleInterval Intervalo (em operações) entre amostras de fragmentação
+     */
+    public TraceReplayer(MemoryManager manager, FitAlgorithm algorithm, long sampleInterval) {
+        if (!manager.isInitialized()) {
+            throw new IllegalStateException("Memória não inicializada. Use 'init' primeiro.");
+        }
+        if (sampleInterval <= 0) {
+            throw new IllegalArgumentException("Intervalo de amostragem deve ser maior que 0.");
+        }
+        this.manager = manager;
+        this.algorithm = algorithm;
+        this.sampleInterval = sampleInterval;
+    }
+
+    /**
+     * Reproduz todas as operações do trace.
+     *
+     * @param trace Trace a ser lido
+     * @return Relatório com vazão, falhas e fragmentação ao longo do tempo
+     * @throws IOException Em erro de leitura ou trace malformado
+     */
+    public ReplayReport replay(TraceReader trace) throws IOException {
+        Run run = new Run(1024);
+        while (trace.next()) {
+            run.apply(trace.getOp(), trace.getHandle(), trace.getSize());
+        }
+        return run.finish();
+    }
+
+    /**
+     * Reproduz um trace já carregado. O trace é apenas lido, então várias
+     * threads podem reproduzi-lo ao mesmo tempo, cada uma com seu replayer.
+     *
+     * @param trace Trace em memória
+     * @return Relatório com vazão, falhas e fragmentação ao longo do tempo
+     */
+    public ReplayReport replay(Trace trace) {
+        Run run = new Run(trace.getMaxHandle() + 1);
+        for (int i = 0; i < trace.length(); i++) {
+            run.apply(trace.getOp(i), trace.getHandle(i), trace.getSize(i));
+        }
+        return run.finish();
+    }
+
+    /**
+     * Estado de uma reprodução em andamento.
+     */
+    private final class Run {
+        private int[] idByHandle;
+        private final List<FragmentationSample> samples = new ArrayList<>();
+        private long operations;
+        private long allocations;
+        private long frees;
+        private long failedAllocations;
+        private long unmatchedFrees;
+        private long reusedHandles;
+        private int peakHoles = manager.getHoleCount();
+        private long samplingNanos;
+        private final long start = System.nanoTime();
+
+        Run(int handles) {
+            idByHandle = new int[Math.max(1, handles)];
+        }
+
+        void apply(char op, int handle, int size) {
+            if (handle >= idByHandle.length) {
+                idByHandle = Arrays.copyOf(idByHandle, Math.max(handle + 1, idByHandle.length * 2));
+            }
+
+            if (op == TraceReader.ALLOC) {
+                allocations++;
+                if (idByHandle[handle] != 0) {
+                    reusedHandles++;
+                }
+                long result = manager.alloc(size, algorithm);
+                if (!Result.isOk(result)) {
+                    failedAllocations++;
+                }
+                idByHandle[handle] = Result.id(result);
+            } else {
+                frees++;
+                int id = idByHandle[handle];
+                if (id == 0 || !Result.isOk(manager.freeId(id))) {
+                    unmatchedFrees++;
+                }
+                idByHandle[handle] = 0;
+            }
+            peakHoles = Math.max(peakHoles, manager.getHoleCount());
+
+            operations++;
+            if (operations % sampleInterval == 0) {
+                long sampleStart = System.nanoTime();
+                samples.add(sample(operations));
+                samplingNanos += System.nanoTime() - sampleStart;
+            }
+        }
+
+        ReplayReport finish() {
+            long elapsed = System.nanoTime() - start - samplingNanos;
+            if (operations % sampleInterval != 0) {
+                samples.add(sample(operations));
+            }
+
+            return new ReplayReport(algorithm, operations, allocations, frees, failedAllocations,
+                                    unmatchedFrees, reusedHandles, peakHoles, elapsed, samples);
+        }
+    }
+
+    private FragmentationSample sample(long operation) {
+        MemoryStats stats = manager.snapshot();
+        return new FragmentationSample(operation, stats.getUsedBytes(), stats.getFreeBytes(),
+                                       stats.getHoles(), stats.getLargestFreeBlock());
+    }
+}
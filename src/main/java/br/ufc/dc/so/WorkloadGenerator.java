@@ -0,0 +1,96 @@
+package br.ufc.dc.so;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+
+/**
+ * Gerador de traces sintéticos no formato lido pelo TraceReader.
+ *
+ * Parâmetros:
+ * - distribution/minSize/maxSize: Distribuição dos tamanhos das alocações
+ * - allocRatio: Probabilidade de cada operação ser uma alocação (0 a 1);
+ *   as demais são liberações
+ * - meanLifetime: Tempo de vida médio (em operações) de cada bloco; o tempo de
+ *   vida de cada bloco segue uma distribuição exponencial
+ * - seed: Semente, para que o mesmo trace possa ser gerado novamente
+ *
+ * Cada liberação escolhe o bloco vivo cujo tempo de vida termina primeiro, de
+ * modo que blocos de vida curta e longa convivem como em cargas reais. Quando
+ * não há blocos vivos, a operação vira uma alocação.
+ *
+ * O trace é escrito em streaming; o gerador mantém em memória apenas os
+ * blocos vivos.
+ */
+public class WorkloadGenerator {
+    private final SizeDistribution distribution;
+    private final int minSize;
+    private final int maxSize;
+    private final double allocRatio;
+    private final int meanLifetime;
+    private final long seed;
+
+    /**
+     * @param distribution Distribuição dos tamanhos
+     * @param minSize Tamanho mínimo de alocação (maior que 0)
+     * @param maxSize Tamanho máximo de alocação (maior ou igual a minSize)
+     * @param allocRatio Fração de alocações entre as operações (0 a 1)
+     * @param meanLifetime Tempo de vida médio em operações (maior que 0)
+     * @param seed Semente do gerador aleatório
+     */
+    public WorkloadGenerator(SizeDistribution distribution, int minSize, int maxSize,
+                             double allocRatio, int meanLifetime, long seed) {
+        if (minSize <= 0 || maxSize < minSize) {
+            throw new IllegalArgumentException("Intervalo de tamanhos inválido: [" + minSize + ", " + maxSize + "]");
+        }
+        if (allocRatio < 0 || allocRatio > 1) {
+            throw new IllegalArgumentException("Razão de alocação deve estar entre 0 e 1.");
+        }
+        if (meanLifetime <= 0) {
+            throw new IllegalArgumentException("Tempo de vida médio deve ser maior que 0.");
+        }
+        this.distribution = distribution;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.allocRatio = allocRatio;
+        this.meanLifetime = meanLifetime;
+        this.seed = seed;
+    }
+
+    /**
+     * Gera o trace com o número de operações especificado.
+     *
+     * @param operations Número de operações (alocações + liberações)
+     * @param out Destino do trace
+     */
+    public void generate(long operations, Writer out) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+
+        // Blocos vivos, ordenados pelo instante de liberação (instante << 32 | handle)
+        PriorityQueue<Long> live = new PriorityQueue<>();
+        int nextHandle = 1;
+
+        out.write("# trace sintético: " + distribution.getCliName() + " [" + minSize + ", " + maxSize +
+                  "], alloc=" + allocRatio + ", vida=" + meanLifetime + ", seed=" + seed + "\n");
+
+        StringBuilder line = new StringBuilder(32);
+        for (long now = 0; now < operations; now++) {
+            line.setLength(0);
+            if (live.isEmpty() || random.nextDouble() < allocRatio) {
+                int handle = nextHandle++;
+                int size = distribution.sample(random, minSize, maxSize);
+                long lifetime = 1 + (long) (-meanLifetime * Math.log(1.0 - random.nextDouble()));
+                long death = Math.min(now + lifetime, Integer.MAX_VALUE);
+                live.add((death << 32) | handle);
+                line.append(TraceReader.ALLOC).append(' ').append(handle).append(' ').append(size);
+            } else {
+                int handle = (int) (live.poll() & 0xFFFFFFFFL);
+                line.append(TraceReader.FREE).append(' ').append(handle);
+            }
+            line.append('\n');
+            out.append(line);
+        }
+        out.flush();
+    }
+}